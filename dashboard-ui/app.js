@@ -4,6 +4,7 @@ document.addEventListener("DOMContentLoaded", () => {
 
     // Get DOM elements
     const tableBody = document.getElementById("runs-table-body");
+    const loadMoreButton = document.getElementById("load-more");
 
     // Summary card elements
     const totalRunsEl = document.getElementById("total-runs");
@@ -11,12 +12,67 @@ document.addEventListener("DOMContentLoaded", () => {
     const totalFailedEl = document.getElementById("total-failed");
     const totalRunningEl = document.getElementById("total-running");
 
+    // Runs currently shown in the table, kept in sync by the change stream
+    let runs = [];
+    // Opaque position after the last loaded run; null once every run is loaded
+    let nextCursor = null;
+    // Server-side run counts ({ total, byStatus }), adjusted locally from the change stream
+    let summary = { total: 0, byStatus: {} };
+
     // Main function to fetch and render data
     const loadData = () => {
+        loadSummary();
+
         // Set table to loading state
         tableBody.innerHTML = '<tr><td colspan="7">Loading...</td></tr>';
 
-        fetch(API_URL)
+        fetchPage(null)
+            .then(page => {
+                // The API returns one page of runs (newest first) plus an opaque nextCursor
+                runs = page.items;
+                populateTable(runs);
+                setNextCursor(page.nextCursor);
+            })
+            .catch(error => {
+                console.error("Error fetching test runs:", error);
+                tableBody.innerHTML = `<tr><td colspan="7">Error loading data: ${error.message}</td></tr>`;
+                setNextCursor(null);
+            });
+    };
+
+    // Appends the next page of older runs below the ones already shown
+    const loadMore = () => {
+        loadMoreButton.disabled = true;
+        fetchPage(nextCursor)
+            .then(page => {
+                // Skip runs the change stream already added while this page was loading
+                const older = page.items.filter(run => !runs.some(r => r.runId === run.runId));
+                runs.push(...older);
+                older.forEach(run => tableBody.appendChild(createRow(run)));
+                setNextCursor(page.nextCursor);
+            })
+            .catch(error => console.error("Error fetching more test runs:", error))
+            .finally(() => loadMoreButton.disabled = false);
+    };
+
+    const fetchPage = (cursor) => {
+        const url = cursor ? `${API_URL}?cursor=${encodeURIComponent(cursor)}` : API_URL;
+        return fetch(url).then(response => {
+            if (!response.ok) {
+                throw new Error("Network response was not ok: " + response.statusText);
+            }
+            return response.json();
+        });
+    };
+
+    const setNextCursor = (cursor) => {
+        nextCursor = cursor;
+        loadMoreButton.hidden = !cursor;
+    };
+
+    // The summary cards come from the API's counters, so they cover every run, not just this page
+    const loadSummary = () => {
+        fetch(API_URL + "/summary")
             .then(response => {
                 if (!response.ok) {
                     throw new Error("Network response was not ok: " + response.statusText);
@@ -24,42 +80,39 @@ document.addEventListener("DOMContentLoaded", () => {
                 return response.json();
             })
             .then(data => {
-                populateSummary(data);
-                populateTable(data);
+                summary = data;
+                populateSummary();
             })
             .catch(error => {
-                console.error("Error fetching test runs:", error);
-                tableBody.innerHTML = `<tr><td colspan="7">Error loading data: ${error.message}</td></tr>`;
-                // Clear summary on error too
-                populateSummary([]);
+                console.error("Error fetching run summary:", error);
+                // Clear summary on error
+                summary = { total: 0, byStatus: {} };
+                populateSummary();
             });
     };
 
     // Function to populate the summary cards
-    const populateSummary = (data) => {
-        let completed = 0;
-        let failed = 0;
-        let running = 0;
-
-        data.forEach(run => {
-            switch(run.status) {
-                case "COMPLETED":
-                    completed++;
-                    break;
-                case "FAILED":
-                    failed++;
-                    break;
-                case "RUNNING":
-                case "SCHEDULED":
-                    running++;
-                    break;
-            }
-        });
+    const populateSummary = () => {
+        const count = (status) => summary.byStatus[status] || 0;
+
+        totalRunsEl.textContent = summary.total;
+        totalCompletedEl.textContent = count("COMPLETED");
+        totalFailedEl.textContent = count("FAILED") + count("TIMED_OUT");
+        totalRunningEl.textContent = count("RUNNING") + count("SCHEDULED");
+    };
 
-        totalRunsEl.textContent = data.length;
-        totalCompletedEl.textContent = completed;
-        totalFailedEl.textContent = failed;
-        totalRunningEl.textContent = running;
+    // Moves one run between the summary counts, mirroring what the server did
+    const applySummaryChange = (previousStatus, status) => {
+        if (previousStatus === status) {
+            return;
+        }
+        if (previousStatus) {
+            summary.byStatus[previousStatus] = (summary.byStatus[previousStatus] || 0) - 1;
+        } else {
+            summary.total++;
+        }
+        summary.byStatus[status] = (summary.byStatus[status] || 0) + 1;
+        populateSummary();
     };
 
     // Function to populate the runs table
@@ -72,40 +125,81 @@ document.addEventListener("DOMContentLoaded", () => {
         // Clear loading row
         tableBody.innerHTML = "";
 
-        // Sort data to show newest runs first
-        data.sort((a, b) => new Date(b.startTime) - new Date(a.startTime));
-
         // Loop through each test run and add it to the table
-        data.forEach(run => {
-            const row = document.createElement("tr");
-
-            // Format dates to be readable
-            const startTime = new Date(run.startTime).toLocaleString();
-            const endTime = run.endTime ? new Date(run.endTime).toLocaleString() : "N/A";
-
-            // Creates a link for the "Report" column
-            let reportCell = `<span class="report-link-na">N/A</span>`;
-            if (run.reportUrl) {
-                // This assumes the API returns a relative path like "reports/report-name.html"
-                reportCell = `<a href="${run.reportUrl}" target="_blank" class="report-link">View Report</a>`;
+        data.forEach(run => tableBody.appendChild(createRow(run)));
+    };
+
+    // Builds the table row for a single run
+    const createRow = (run) => {
+        const row = document.createElement("tr");
+        row.dataset.runId = run.runId;
+
+        // Format dates to be readable
+        const startTime = new Date(run.startTime).toLocaleString();
+        const endTime = run.endTime ? new Date(run.endTime).toLocaleString() : "N/A";
+
+        // Creates a link for the "Report" column
+        let reportCell = `<span class="report-link-na">N/A</span>`;
+        if (run.reportUrl) {
+            // This assumes the API returns a relative path like "reports/report-name.html"
+            reportCell = `<a href="${run.reportUrl}" target="_blank" class="report-link">View Report</a>`;
+        }
+
+        // Progress reported by the worker while the run executes, e.g. "RUNNING 4/10"
+        const progress = run.status === "RUNNING" && run.testsTotal ? ` ${run.testsDone}/${run.testsTotal}` : "";
+
+        row.innerHTML = `
+            <td>${run.runId}</td>
+            <td>${run.environment}</td>
+            <td><span class="status status-${run.status.toLowerCase()}">${run.status}${progress}</span></td>
+            <td>${run.failedTestCount !== null ? run.failedTestCount : 0}</td>
+            <td>${startTime}</td>
+            <td>${endTime}</td>
+            <td>${reportCell}</td>
+        `;
+        return row;
+    };
+
+    // Applies a single pushed change instead of re-fetching the whole list
+    const applyRunEvent = (event) => {
+        const run = event.run;
+        applySummaryChange(event.previousStatus, run.status);
+
+        const existingRow = tableBody.querySelector(`tr[data-run-id="${run.runId}"]`);
+        const index = runs.findIndex(r => r.runId === run.runId);
+
+        if (index >= 0) {
+            runs[index] = run;
+        } else if (event.type === "CREATED") {
+            runs.unshift(run);
+        } else {
+            // An update for a run that is not on the current page
+            return;
+        }
+
+        if (existingRow) {
+            existingRow.replaceWith(createRow(run));
+        } else {
+            if (runs.length === 1) {
+                // Drop the "No test runs found." placeholder
+                tableBody.innerHTML = "";
             }
+            tableBody.prepend(createRow(run));
+        }
+    };
 
-            row.innerHTML = `
-                <td>${run.id}</td>
-                <td>${run.environment}</td>
-                <td><span class="status status-${run.status.toLowerCase()}">${run.status}</span></td>
-                <td>${run.failedTestCount !== null ? run.failedTestCount : 0}</td>
-                <td>${startTime}</td>
-                <td>${endTime}</td>
-                <td>${reportCell}</td>
-            `;
-            tableBody.appendChild(row);
-        });
+    // Subscribe to run changes; EventSource reconnects and resumes via Last-Event-ID on its own
+    const subscribe = () => {
+        const source = new EventSource(API_URL + "/stream");
+        source.addEventListener("run", e => applyRunEvent(JSON.parse(e.data)));
+        // The server no longer has the events we missed, so start over from a fresh page
+        source.addEventListener("reset", () => loadData());
+        source.onerror = () => console.warn("Run stream interrupted, the browser will reconnect");
     };
 
-    // Initial data load
-    loadData();
+    loadMoreButton.addEventListener("click", loadMore);
 
-    // Optional: Refresh data every 10 seconds
-    // setInterval(loadData, 10000);
+    // Initial data load, then live updates instead of polling
+    loadData();
+    subscribe();
 });
\ No newline at end of file
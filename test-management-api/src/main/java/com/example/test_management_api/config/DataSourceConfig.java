@@ -0,0 +1,45 @@
+package com.example.test_management_api.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DataSourceConfig {
+
+    // Wraps the auto-configured Hikari pool; static so it does not force early initialization of this class
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(Environment environment) {
+        Binder binder = Binder.get(environment);
+        int poolSize = binder.bind("spring.datasource.hikari.maximum-pool-size", Integer.class).orElse(10);
+        int maxConcurrency = binder.bind("api.datasource.max-concurrency", Integer.class).orElse(poolSize);
+        long acquireTimeoutMs = binder.bind("api.datasource.acquire-timeout-ms", Long.class).orElse(30000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    return new ConcurrencyLimitingDataSource(dataSource, maxConcurrency, acquireTimeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Threads parked in front of the pool; non-zero for long means the pool is the bottleneck
+    @Bean
+    public MeterBinder concurrencyLimitingDataSourceMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConcurrencyLimitingDataSource limited) {
+                Gauge.builder("datasource.limiter.waiting", limited, ConcurrencyLimitingDataSource::getWaitingThreads)
+                        .description("Threads waiting for a database connection permit")
+                        .register(registry);
+            }
+        };
+    }
+}
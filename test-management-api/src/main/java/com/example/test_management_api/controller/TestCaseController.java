@@ -0,0 +1,43 @@
+package com.example.test_management_api.controller;
+
+import com.example.test_management_api.dtos.TestCaseBatchResultDto;
+import com.example.test_management_api.dtos.TestCaseResultDto;
+import com.example.test_management_api.dtos.TestTrendDto;
+import com.example.test_management_api.service.TestCaseResultService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@CrossOrigin(origins = "*")
+@RestController
+@RequestMapping("/api")
+public class TestCaseController {
+    private final TestCaseResultService testCaseResultService;
+
+    @Autowired
+    public TestCaseController(TestCaseResultService testCaseResultService) {
+        this.testCaseResultService = testCaseResultService;
+    }
+
+    // Sent by the worker in batches while a run executes; results a run already has are skipped, so retries are safe
+    @PostMapping("/runs/{id}/tests")
+    public ResponseEntity<TestCaseBatchResultDto> ingestTestResults(@PathVariable UUID id, @RequestBody List<TestCaseResultDto> results){
+        return testCaseResultService.ingest(id, results)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // Read from the daily rollups: one row per day with results, however many runs there were
+    @GetMapping("/tests/{name}/trend")
+    public ResponseEntity<TestTrendDto> getTestTrend(@PathVariable String name, @RequestParam(defaultValue = "30") int days){
+        return ResponseEntity.ok(testCaseResultService.getTrend(name, days));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e){
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
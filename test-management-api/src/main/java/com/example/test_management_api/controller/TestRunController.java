@@ -1,64 +1,153 @@
 package com.example.test_management_api.controller;
 
+import com.example.test_management_api.dtos.BatchTestRunItemDto;
+import com.example.test_management_api.dtos.BatchTestRunResultDto;
 import com.example.test_management_api.dtos.CreateTestRunRequestDto;
+import com.example.test_management_api.dtos.RunSummaryDto;
+import com.example.test_management_api.dtos.TestRunFailureDto;
+import com.example.test_management_api.dtos.TestRunPageDto;
+import com.example.test_management_api.dtos.TestRunProgressDto;
+import com.example.test_management_api.dtos.TestRunResultsDto;
 import com.example.test_management_api.dtos.TestRunUpdateDto;
 import com.example.test_management_api.model.TestRun;
 import com.example.test_management_api.model.enums.TestRunStatus;
-import com.example.test_management_api.service.RabbitMQProducer;
+import com.example.test_management_api.service.JobOutboxRelay;
+import com.example.test_management_api.service.RunSummaryService;
 import com.example.test_management_api.service.TestRunService;
+import com.example.test_management_api.service.TestRunStreamService;
 import com.example.test_management_api.service.impl.TestRunServiceImpl;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = "ETag")
 @RestController
 @RequestMapping("/api")
 public class TestRunController {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestRunServiceImpl.class);
     private final TestRunService testRunService;
-    private final RabbitMQProducer rabbitMQProducer;
+    private final JobOutboxRelay jobOutboxRelay;
+    private final TestRunStreamService testRunStreamService;
+    private final RunSummaryService runSummaryService;
 
     @Autowired
-    public TestRunController(TestRunService testRunService, RabbitMQProducer rabbitMQProducer) {
+    public TestRunController(TestRunService testRunService, JobOutboxRelay jobOutboxRelay,
+                             TestRunStreamService testRunStreamService, RunSummaryService runSummaryService) {
         this.testRunService = testRunService;
-        this.rabbitMQProducer = rabbitMQProducer;
+        this.jobOutboxRelay = jobOutboxRelay;
+        this.testRunStreamService = testRunStreamService;
+        this.runSummaryService = runSummaryService;
     }
 
+    // The ETag is the run's version, so a poller whose copy is current gets a 304 straight from the cache
     @GetMapping("/runs/{id}")
-    public ResponseEntity<TestRun> getTestRunById(@PathVariable UUID id){
+    public ResponseEntity<TestRun> getTestRunById(@PathVariable UUID id, WebRequest webRequest){
         Optional<TestRun> testRunOptional= testRunService.findTestRun(id);
         if(testRunOptional.isPresent()){
-            return ResponseEntity.ok(testRunOptional.get());
+            String eTag="\""+testRunOptional.get().getVersion()+"\"";
+            if(webRequest.checkNotModified(eTag)){
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            return ResponseEntity.ok().eTag(eTag).body(testRunOptional.get());
         }else{
             return ResponseEntity.notFound().build();
         }
     }
+    // Error text is kept off the run itself; clients fetch it only when they show a failure
+    @GetMapping("/runs/{id}/failure")
+    public ResponseEntity<TestRunFailureDto> getTestRunFailure(@PathVariable UUID id){
+        return testRunService.findTestRunFailure(id)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @PostMapping("/runs")
     public ResponseEntity<TestRun> createTestRun(@RequestBody CreateTestRunRequestDto testRunRequestDto){
+        // The job is queued by the outbox relay, so broker latency no longer adds to this request
         TestRun savedTestRun= testRunService.createTestRun(testRunRequestDto);
-        rabbitMQProducer.sendTestRunJob(savedTestRun);
 
         return new ResponseEntity<>(savedTestRun,HttpStatus.CREATED);
     }
 
+    // Runs and their outbox rows are inserted in one transaction, then published right away so each
+    // item can report whether its job was confirmed. Jobs that were not confirmed stay in the outbox
+    // and are retried by the relay; jobs a relay pass is already publishing count as accepted.
+    @PostMapping("/runs/batch")
+    public ResponseEntity<BatchTestRunResultDto> createTestRuns(@RequestBody List<CreateTestRunRequestDto> testRunRequestDtos){
+        List<TestRun> savedTestRuns=testRunService.createTestRuns(testRunRequestDtos);
+        Map<UUID, String> failures=jobOutboxRelay.publishNow(savedTestRuns.stream().map(TestRun::getId).toList());
+
+        List<BatchTestRunItemDto> items=new ArrayList<>(savedTestRuns.size());
+        for(int i=0;i<savedTestRuns.size();i++){
+            TestRun testRun=savedTestRuns.get(i);
+            String error=failures.get(testRun.getId());
+            if(error!=null){
+                LOGGER.warn("Job for Run ID {} not confirmed yet, left to the outbox relay: {}", testRun.getId(), error);
+            }
+            items.add(new BatchTestRunItemDto(i,testRun.getId(),testRun.getEnvironment(),testRun.getTags(),error==null,error));
+        }
+
+        BatchTestRunResultDto result=new BatchTestRunResultDto(items.size()-failures.size(),failures.size(),items);
+        return new ResponseEntity<>(result,failures.isEmpty() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS);
+    }
+
     @GetMapping("/runs")
-    public ResponseEntity<List<TestRun>> getAllTestRuns(@RequestParam(required = false) TestRunStatus status,@RequestParam(required = false) String environment){
-        List<TestRun> TestRuns=testRunService.getAllTestsByCriteria(status,environment);
-        return new ResponseEntity<>(TestRuns,HttpStatus.OK);
+    public ResponseEntity<TestRunPageDto> getAllTestRuns(@RequestParam(required = false) TestRunStatus status,
+                                                         @RequestParam(required = false) String environment,
+                                                         @RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer size){
+        TestRunPageDto page=testRunService.getTestRunPage(status,environment,cursor,size);
+        return new ResponseEntity<>(page,HttpStatus.OK);
+    }
+
+    // Served from in-memory counters, so it is cheap enough to call on every dashboard load
+    @GetMapping("/runs/summary")
+    public ResponseEntity<RunSummaryDto> getRunSummary(){
+        return ResponseEntity.ok(runSummaryService.getSummary());
     }
 
+    // Pushes run changes as they happen; browsers resume with the Last-Event-ID header after a reconnect
+    @GetMapping(path = "/runs/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamTestRuns(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId){
+        return testRunStreamService.subscribe(lastEventId);
+    }
+
+    // Bulk variant of PUT /runs/{id}: results for runs that are already finished are rejected, not applied
+    @PutMapping("/runs/results")
+    public ResponseEntity<TestRunResultsDto> applyTestRunResults(@RequestBody Map<UUID, TestRunUpdateDto> results){
+        return ResponseEntity.ok(testRunService.applyTestRunResults(results));
+    }
+
+    // Sent by the worker while a run executes; 409 once the run already has its final result
+    @PutMapping("/runs/{id}/progress")
+    public ResponseEntity<Void> updateTestRunProgress(@PathVariable UUID id,@RequestBody TestRunProgressDto testRunProgressDto){
+        boolean applied=testRunService.updateTestRunProgress(id,testRunProgressDto);
+        return applied ? ResponseEntity.noContent().build() : ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    // The worker's final result; 409 if the run already has one, so a duplicate cannot overwrite it
     @PutMapping("/runs/{id}")
     public ResponseEntity<TestRun> updateTestRun(@PathVariable UUID id,@RequestBody TestRunUpdateDto testRunUpdateDto){
-        TestRun updatedTestRun=testRunService.updateTestRunStatus(id,testRunUpdateDto);
-        return ResponseEntity.ok(updatedTestRun);
+        return testRunService.updateTestRunStatus(id,testRunUpdateDto)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> handleBadRequest(IllegalArgumentException e){
+        return ResponseEntity.badRequest().body(e.getMessage());
     }
 }
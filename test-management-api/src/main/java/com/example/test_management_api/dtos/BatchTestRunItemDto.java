@@ -0,0 +1,30 @@
+package com.example.test_management_api.dtos;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * Outcome of one entry of a POST /api/runs/batch request, in request order.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTestRunItemDto {
+    private int index;
+
+    @JsonProperty("runId")
+    private UUID id;
+
+    private String environment;
+
+    private String tags;
+
+    // True once the broker confirmed the job message
+    private boolean queued;
+
+    private String error;
+}
@@ -0,0 +1,16 @@
+package com.example.test_management_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTestRunResultDto {
+    private int queued;
+    private int failed;
+    private List<BatchTestRunItemDto> items;
+}
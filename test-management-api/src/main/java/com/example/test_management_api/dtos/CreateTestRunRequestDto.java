@@ -14,4 +14,10 @@ public class CreateTestRunRequestDto {
 
     private String tags;
 
+    // Optional limit on the whole run, counted from its creation
+    private Integer timeoutMinutes;
+
+    public CreateTestRunRequestDto(String environment, String tags) {
+        this(environment, tags, null);
+    }
 }
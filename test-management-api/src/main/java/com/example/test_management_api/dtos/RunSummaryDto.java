@@ -0,0 +1,20 @@
+package com.example.test_management_api.dtos;
+
+import com.example.test_management_api.model.enums.TestRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Run counts for the dashboard summary cards, overall and per environment.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RunSummaryDto {
+    private long total;
+    private Map<TestRunStatus, Long> byStatus;
+    private Map<String, Map<TestRunStatus, Long>> byEnvironment;
+}
@@ -0,0 +1,17 @@
+package com.example.test_management_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of POST /api/runs/{id}/tests.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseBatchResultDto {
+    private int stored;
+    // Results the run already had (e.g. a batch sent again after a timeout); they were not stored again
+    private int duplicates;
+}
@@ -0,0 +1,24 @@
+package com.example.test_management_api.dtos;
+
+import com.example.test_management_api.model.enums.TestRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The result of one test of a run, sent by the worker in batches as the run's tests finish.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseResultDto {
+    private String testName;
+    private TestRunStatus status;
+    private String testType;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long durationMs;
+    private String errorMessage;
+}
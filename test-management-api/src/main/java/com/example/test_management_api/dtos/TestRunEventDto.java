@@ -0,0 +1,19 @@
+package com.example.test_management_api.dtos;
+
+import com.example.test_management_api.model.enums.TestRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A single change pushed to dashboard subscribers over GET /api/runs/stream.
+ * It carries only the run that changed, in the same shape as a run list row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunEventDto {
+    private String type; // CREATED or UPDATED
+    private TestRunStatus previousStatus;
+    private TestRunListItemDto run;
+}
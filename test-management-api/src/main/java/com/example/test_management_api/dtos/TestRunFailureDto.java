@@ -0,0 +1,16 @@
+package com.example.test_management_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunFailureDto {
+    private UUID runId;
+    private String errorMessage;
+    private String errorDetails;
+}
@@ -0,0 +1,33 @@
+package com.example.test_management_api.dtos;
+
+import com.example.test_management_api.model.enums.TestRunStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lightweight row for the run list. It leaves out the run's deadline and
+ * version, which only the API itself uses; use GET /api/runs/{id} for the
+ * full run and GET /api/runs/{id}/failure for a failed run's error text.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunListItemDto {
+    @JsonProperty("runId")
+    private UUID id;
+    private TestRunStatus status;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private String reportUrl;
+    private String environment;
+    private String tags;
+    private Integer failedTestCount;
+    private String screenshotPath;
+    private Integer testsTotal;
+    private Integer testsDone;
+}
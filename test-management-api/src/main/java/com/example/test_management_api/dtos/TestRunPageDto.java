@@ -0,0 +1,19 @@
+package com.example.test_management_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the run list, newest first.
+ * nextCursor is opaque to clients and is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunPageDto {
+    private List<TestRunListItemDto> items;
+    private String nextCursor;
+}
@@ -0,0 +1,17 @@
+package com.example.test_management_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Intermediate state of a run, sent by the worker while the run executes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunProgressDto {
+    private Integer testsTotal;
+    private Integer testsDone;
+    private Integer failedTestCount;
+}
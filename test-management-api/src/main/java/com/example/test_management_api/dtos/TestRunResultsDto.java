@@ -0,0 +1,21 @@
+package com.example.test_management_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of PUT /api/runs/results.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunResultsDto {
+    private List<UUID> applied;
+    // Runs that were already finished or changed concurrently; their result was ignored
+    private List<UUID> rejected;
+    private List<UUID> notFound;
+}
@@ -0,0 +1,24 @@
+package com.example.test_management_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One day of a test's trend. Percentiles are within about 1% of the exact durations.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestTrendDayDto {
+    private LocalDate day;
+    private long results;
+    private long failures;
+    private double passRate;
+    private Long avgDurationMs;
+    private Long maxDurationMs;
+    private Long p50DurationMs;
+    private Long p95DurationMs;
+}
@@ -0,0 +1,24 @@
+package com.example.test_management_api.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * A test's results over the last days, per day and in total. Days without results are left out.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestTrendDto {
+    private String testName;
+    private int days;
+    private long results;
+    private long failures;
+    private double passRate;
+    private Long p50DurationMs;
+    private Long p95DurationMs;
+    private List<TestTrendDayDto> daily;
+}
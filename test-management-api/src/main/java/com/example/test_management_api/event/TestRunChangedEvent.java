@@ -0,0 +1,21 @@
+package com.example.test_management_api.event;
+
+import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published by the service layer whenever a TestRun is created or its status changes.
+ * previousStatus is null for newly created runs.
+ */
+@Getter
+@RequiredArgsConstructor
+public class TestRunChangedEvent {
+    private final TestRun testRun;
+    private final TestRunStatus previousStatus;
+
+    public boolean isCreated() {
+        return previousStatus == null;
+    }
+}
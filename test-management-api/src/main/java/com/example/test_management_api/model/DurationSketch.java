@@ -0,0 +1,196 @@
+package com.example.test_management_api.model;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A mergeable summary of test durations from which percentiles can be read, a few hundred bytes
+ * however many durations it covers.
+ *
+ * Durations are counted in log-linear buckets: below 128 ms exactly, above in buckets 1/64 of their
+ * power of two wide, so a percentile is within about 1% of the exact value. Sketches of different
+ * days or batches merge by adding their counts, which is what lets the daily rollups be kept
+ * incrementally. Instances are immutable; merge() returns a new sketch.
+ *
+ * The bucket layout is the same as the worker's DurationHistogram (test-runner-worker, results),
+ * which the modules cannot share; DurationSketchTest pins it, so change both together.
+ */
+public final class DurationSketch {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT = 2 * SUB_BUCKETS;
+    private static final byte FORMAT = 1;
+
+    public static final DurationSketch EMPTY = new DurationSketch(new long[0], 0);
+
+    private final long[] counts;
+    private final long total;
+
+    private DurationSketch(long[] counts, long total) {
+        this.counts = counts;
+        this.total = total;
+    }
+
+    public static DurationSketch of(Collection<Long> durationsMs) {
+        long[] counts = new long[0];
+        for (long durationMs : durationsMs) {
+            int index = index(Math.max(0, durationMs));
+            if (index >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index + 1, EXACT));
+            }
+            counts[index]++;
+        }
+        return new DurationSketch(counts, durationsMs.size());
+    }
+
+    public DurationSketch merge(DurationSketch other) {
+        if (other.total == 0) {
+            return this;
+        }
+        if (total == 0) {
+            return other;
+        }
+        long[] merged = Arrays.copyOf(counts, Math.max(counts.length, other.counts.length));
+        for (int i = 0; i < other.counts.length; i++) {
+            merged[i] += other.counts[i];
+        }
+        return new DurationSketch(merged, total + other.total);
+    }
+
+    /**
+     * How many durations the sketch covers.
+     */
+    public long count() {
+        return total;
+    }
+
+    /**
+     * The duration that the given fraction of the covered ones do not exceed (nearest rank), or null
+     * if the sketch is empty.
+     */
+    public Long percentile(double fraction) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return value(i);
+            }
+        }
+        return value(counts.length - 1);
+    }
+
+    /**
+     * The format byte, then (bucket index gap, count) pairs of the non-empty buckets as varints.
+     */
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(FORMAT);
+        int previous = -1;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                writeVarint(out, i - previous);
+                writeVarint(out, counts[i]);
+                previous = i;
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static DurationSketch fromBytes(byte[] bytes) {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        if (!in.hasRemaining() || in.get() != FORMAT) {
+            throw new IllegalStateException("Unknown duration sketch format");
+        }
+        long[] counts = new long[EXACT];
+        long total = 0;
+        int index = -1;
+        while (in.hasRemaining()) {
+            index += (int) readVarint(in);
+            long count = readVarint(in);
+            if (index >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+            }
+            counts[index] = count;
+            total += count;
+        }
+        return new DurationSketch(counts, total);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DurationSketch other) || total != other.total) {
+            return false;
+        }
+        int length = Math.max(counts.length, other.counts.length);
+        for (int i = 0; i < length; i++) {
+            if ((i < counts.length ? counts[i] : 0) != (i < other.counts.length ? other.counts[i] : 0)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Long.hashCode(total);
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                hash = 31 * hash + i * 17 + Long.hashCode(counts[i]);
+            }
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "DurationSketch[count=" + total + ", p50=" + percentile(0.50) + ", p95=" + percentile(0.95) + "]";
+    }
+
+    private static int index(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // The middle of the bucket
+    private static long value(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long lowest = (long) ((index - EXACT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) / 2;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("Corrupt duration sketch");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.test_management_api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A job that still has to be published to RabbitMQ. Rows are written in the same transaction as
+// the TestRun they belong to and deleted by JobOutboxRelay once the broker confirms the message.
+// A relay claims rows by setting claimedUntil, then publishes them without holding any row lock.
+@Entity
+@Table(name = "job_outbox", indexes = {
+        @Index(name = "idx_job_outbox_created", columnList = "created_at"),
+        @Index(name = "idx_job_outbox_run", columnList = "run_id")
+})
+@NoArgsConstructor
+@Data
+public class JobOutboxEntry {
+    // Generated in memory, so new rows are persisted without a lookup and inserts can be batched
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "run_id", nullable = false)
+    private UUID runId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    private int attempts;
+
+    // Until then a relay is publishing the row; a relay that died leaves it to be claimed again after that
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+
+    public JobOutboxEntry(UUID runId, LocalDateTime createdAt) {
+        this.runId = runId;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.test_management_api.model;
+
+import com.example.test_management_api.model.converter.CompressedTextConverter;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// The result of one test in one run, as sent by the worker in batches. Trends are read from
+// TestDailyRollup instead; the index serves looking up a test's own history.
+@Entity
+@Table(name = "test_case_result", indexes = {
+        @Index(name = "idx_test_case_result_test_start", columnList = "test_name, start_time")
+})
+@IdClass(TestCaseResult.Key.class)
+@NoArgsConstructor
+@Data
+public class TestCaseResult implements Persistable<TestCaseResult.Key> {
+    @Id
+    @Column(name = "run_id")
+    private UUID runId;
+
+    @Id
+    @Column(name = "test_name")
+    private String testName;
+
+    @Enumerated(EnumType.STRING)
+    private TestRunStatus status;
+
+    private String testType;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    private Long durationMs;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "longblob")
+    private String errorMessage;
+
+    // Results are only ever inserted; without this every save() would SELECT before inserting
+    @Transient
+    private boolean newResult = true;
+
+    @Override
+    public Key getId() {
+        return new Key(runId, testName);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newResult;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        newResult = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private UUID runId;
+        private String testName;
+    }
+}
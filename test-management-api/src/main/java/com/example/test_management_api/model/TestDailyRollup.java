@@ -0,0 +1,73 @@
+package com.example.test_management_api.model;
+
+import com.example.test_management_api.model.converter.DurationSketchConverter;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+// One test's results of one day, summed up as they are ingested, so a trend over 90 days reads at
+// most 90 rows however many runs there were. Days are the results' start dates.
+@Entity
+@Table(name = "test_daily_rollup")
+@IdClass(TestDailyRollup.Key.class)
+@NoArgsConstructor
+@Data
+public class TestDailyRollup implements Persistable<TestDailyRollup.Key> {
+    @Id
+    @Column(name = "test_name")
+    private String testName;
+
+    @Id
+    private LocalDate day;
+
+    private long results;
+
+    private long failures;
+
+    // Over the results that have a duration, which the sketch counts
+    private long durationSumMs;
+
+    private long durationMaxMs;
+
+    @Convert(converter = DurationSketchConverter.class)
+    @Column(columnDefinition = "blob")
+    private DurationSketch durationSketch = DurationSketch.EMPTY;
+
+    // Tells the day's first results (insert) from later ones (update) without a SELECT per save()
+    @Transient
+    private boolean newRollup = true;
+
+    public TestDailyRollup(String testName, LocalDate day) {
+        this.testName = testName;
+        this.day = day;
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(testName, day);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newRollup;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        newRollup = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String testName;
+        private LocalDate day;
+    }
+}
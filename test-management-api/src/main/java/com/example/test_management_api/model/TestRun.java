@@ -10,7 +10,16 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// The indexes back the keyset-paginated run list: one per filter combination, each ending in
+// start_time so "ORDER BY start_time DESC, id DESC" is an index range scan (InnoDB appends the
+// primary key to every secondary index, which covers the id tie-breaker).
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_test_run_status_env_start", columnList = "status, environment, start_time"),
+        @Index(name = "idx_test_run_status_start", columnList = "status, start_time"),
+        @Index(name = "idx_test_run_env_start", columnList = "environment, start_time"),
+        @Index(name = "idx_test_run_start", columnList = "start_time")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -31,14 +40,24 @@ public class TestRun {
     private String environment;
 
     private String tags;
-    @Column(columnDefinition = "TEXT")
-    private String errorMessage;
-
-    @Column(columnDefinition = "TEXT")
-    private String errorDetails;
+    // errorMessage/errorDetails live in TestRunFailure so this row stays narrow
 
     @JsonProperty("failedTestCount")
     private Integer failedTestCount;
 
+    // Progress reported by the worker while the run is RUNNING
+    private Integer testsTotal;
+
+    private Integer testsDone;
+
     private String screenshotPath;
+
+    // Sent to the worker with the job; tests still running at this time are cancelled. Null means no deadline.
+    private LocalDateTime deadline;
+
+    // Ids are assigned by the service, so Spring Data tells new rows from existing ones by the null
+    // version; without it every save() is a merge that SELECTs first and defeats JDBC batching.
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
 }
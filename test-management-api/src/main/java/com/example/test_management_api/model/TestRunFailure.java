@@ -0,0 +1,56 @@
+package com.example.test_management_api.model;
+
+import com.example.test_management_api.model.converter.CompressedTextConverter;
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.util.UUID;
+
+// Error text of a run, kept out of test_run so list queries and cached runs stay small. Only loaded
+// by GET /api/runs/{id}/failure.
+@Entity
+@Table(name = "test_run_failure")
+@NoArgsConstructor
+@Data
+public class TestRunFailure implements Persistable<UUID> {
+    @Id
+    @Column(name = "run_id")
+    private UUID runId;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "longblob")
+    private String errorMessage;
+
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(columnDefinition = "longblob")
+    private String errorDetails;
+
+    // The id is the run's id, so Spring Data cannot tell new rows by a null id; without this every
+    // save() would SELECT before inserting
+    @Transient
+    private boolean newFailure = true;
+
+    public TestRunFailure(UUID runId, String errorMessage, String errorDetails) {
+        this.runId = runId;
+        this.errorMessage = errorMessage;
+        this.errorDetails = errorDetails;
+    }
+
+    @Override
+    public UUID getId() {
+        return runId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newFailure;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        newFailure = false;
+    }
+}
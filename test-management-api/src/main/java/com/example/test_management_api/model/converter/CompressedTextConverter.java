@@ -0,0 +1,94 @@
+package com.example.test_management_api.model.converter;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores text as a BLOB, deflating it once it is large enough for compression to pay off.
+ *
+ * The first byte says how the rest is stored (raw UTF-8 or deflated), so small values skip the
+ * compressor entirely and the threshold can change without rewriting existing rows.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    static final int COMPRESSION_THRESHOLD_BYTES = 1024;
+
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) {
+            return null;
+        }
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= COMPRESSION_THRESHOLD_BYTES) {
+            byte[] deflated = deflate(utf8);
+            if (deflated.length < utf8.length) {
+                return withMarker(DEFLATED, deflated);
+            }
+        }
+        return withMarker(RAW, utf8);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] column) {
+        if (column == null || column.length == 0) {
+            return null;
+        }
+        byte[] body = Arrays.copyOfRange(column, 1, column.length);
+        return new String(column[0] == DEFLATED ? inflate(body) : body, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] withMarker(byte marker, byte[] body) {
+        byte[] column = new byte[body.length + 1];
+        column[0] = marker;
+        System.arraycopy(body, 0, column, 1, body.length);
+        return column;
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] input) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(input);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated compressed text column");
+                }
+                out.write(buffer, 0, length);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed text column", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.test_management_api.model.converter;
+
+import com.example.test_management_api.model.DurationSketch;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a DurationSketch as a BLOB in its own compact encoding (see DurationSketch.toBytes()).
+ */
+@Converter
+public class DurationSketchConverter implements AttributeConverter<DurationSketch, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(DurationSketch sketch) {
+        return sketch != null ? sketch.toBytes() : null;
+    }
+
+    @Override
+    public DurationSketch convertToEntityAttribute(byte[] column) {
+        return column != null && column.length > 0 ? DurationSketch.fromBytes(column) : DurationSketch.EMPTY;
+    }
+}
@@ -4,5 +4,7 @@ public enum TestRunStatus {
     SCHEDULED,
     RUNNING,
     COMPLETED,
-    FAILED
+    FAILED,
+    // The worker stopped the run at its deadline
+    TIMED_OUT
 }
@@ -0,0 +1,36 @@
+package com.example.test_management_api.repository;
+
+import com.example.test_management_api.model.JobOutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface JobOutboxRepository extends JpaRepository<JobOutboxEntry, UUID> {
+
+    // Rows are only locked while they are claimed; SKIP LOCKED lets several API instances claim
+    // concurrently, and the claim keeps them from publishing the same row twice
+    @Query(value = "select * from job_outbox where claimed_until is null or claimed_until < :now "
+            + "order by created_at limit :limit for update skip locked",
+            nativeQuery = true)
+    List<JobOutboxEntry> lockOldestUnclaimed(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query(value = "select * from job_outbox where run_id in (:runIds) "
+            + "and (claimed_until is null or claimed_until < :now) for update skip locked",
+            nativeQuery = true)
+    List<JobOutboxEntry> lockUnclaimedByRunIds(@Param("runIds") Collection<UUID> runIds, @Param("now") LocalDateTime now);
+
+    // Gives rows that were not confirmed back for the next pass
+    @Modifying
+    @Query("update JobOutboxEntry e set e.claimedUntil = null, e.attempts = e.attempts + 1 where e.id in :ids")
+    int releaseClaims(@Param("ids") Collection<UUID> ids);
+
+    // Served by idx_job_outbox_created
+    @Query("select min(e.createdAt) from JobOutboxEntry e")
+    LocalDateTime findOldestCreatedAt();
+}
@@ -0,0 +1,88 @@
+package com.example.test_management_api.repository;
+
+import com.example.test_management_api.model.TestRunFailure;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Moves the error text of runs finished before TestRunFailure existed out of the test_run columns
+ * error_message and error_details, which are no longer mapped, into test_run_failure.
+ *
+ * Runs once at startup and only if those columns are still there. Each batch copies its runs' text
+ * and clears the old columns in one transaction, so an interrupted backfill carries on where it
+ * stopped on the next start, and SKIP LOCKED lets several API instances share the work.
+ */
+@Component
+@Slf4j
+public class LegacyFailureBackfill {
+
+    private static final String LEGACY_COLUMNS = "select count(*) from information_schema.columns "
+            + "where table_schema = database() and table_name = 'test_run' and column_name in ('error_message', 'error_details')";
+
+    private static final String LOCK_LEGACY = "select id, error_message, error_details from test_run "
+            + "where error_message is not null or error_details is not null limit ? for update skip locked";
+
+    private static final String CLEAR_LEGACY = "update test_run set error_message = null, error_details = null where id in (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TestRunFailureRepository testRunFailureRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public LegacyFailureBackfill(JdbcTemplate jdbcTemplate, TestRunFailureRepository testRunFailureRepository,
+                                 TransactionTemplate transactionTemplate,
+                                 @Value("${api.runs.failure-backfill.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.testRunFailureRepository = testRunFailureRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillOnStartup() {
+        Integer legacyColumns = jdbcTemplate.queryForObject(LEGACY_COLUMNS, Integer.class);
+        if (legacyColumns == null || legacyColumns < 2) {
+            return;
+        }
+        long moved = 0;
+        int batch;
+        do {
+            batch = transactionTemplate.execute(status -> moveBatch());
+            moved += batch;
+        } while (batch == batchSize);
+        if (moved > 0) {
+            log.info("Moved the error text of {} runs into test_run_failure", moved);
+        }
+    }
+
+    // A run can have a failure row already if it was finished again after the upgrade; that one is newer
+    private int moveBatch() {
+        List<TestRunFailure> failures = new ArrayList<>();
+        List<Object> ids = new ArrayList<>();
+        jdbcTemplate.query(LOCK_LEGACY, rs -> {
+            byte[] id = rs.getBytes("id");
+            ids.add(id);
+            failures.add(new TestRunFailure(TestRunResultWriter.fromBytes(id),
+                    rs.getString("error_message"), rs.getString("error_details")));
+        }, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Set<UUID> existing = testRunFailureRepository.findExistingRunIds(
+                failures.stream().map(TestRunFailure::getRunId).toList());
+        testRunFailureRepository.saveAll(failures.stream().filter(failure -> !existing.contains(failure.getRunId())).toList());
+        jdbcTemplate.update(String.format(CLEAR_LEGACY, String.join(", ", Collections.nCopies(ids.size(), "?"))), ids.toArray());
+        return ids.size();
+    }
+}
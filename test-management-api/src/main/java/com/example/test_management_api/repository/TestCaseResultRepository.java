@@ -0,0 +1,17 @@
+package com.example.test_management_api.repository;
+
+import com.example.test_management_api.model.TestCaseResult;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+public interface TestCaseResultRepository extends JpaRepository<TestCaseResult, TestCaseResult.Key> {
+
+    // Which of these tests of the run already have a result, so a re-sent batch is not counted twice
+    @Query("select r.testName from TestCaseResult r where r.runId = :runId and r.testName in :testNames")
+    List<String> findStoredTestNames(@Param("runId") UUID runId, @Param("testNames") Collection<String> testNames);
+}
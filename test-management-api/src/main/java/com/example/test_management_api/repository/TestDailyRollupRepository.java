@@ -0,0 +1,25 @@
+package com.example.test_management_api.repository;
+
+import com.example.test_management_api.model.TestDailyRollup;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface TestDailyRollupRepository extends JpaRepository<TestDailyRollup, TestDailyRollup.Key> {
+
+    // Locked until the ingesting transaction commits, so concurrent batches of the same tests and days
+    // merge one after the other; always in the same order, so they do not deadlock on existing rows.
+    // Two batches creating the same day's row at once still conflict: one fails and is sent again.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from TestDailyRollup r where r.testName in :testNames and r.day in :days order by r.testName, r.day")
+    List<TestDailyRollup> findForUpdate(@Param("testNames") Collection<String> testNames, @Param("days") Collection<LocalDate> days);
+
+    @Query("select r from TestDailyRollup r where r.testName = :testName and r.day >= :from order by r.day")
+    List<TestDailyRollup> findTrend(@Param("testName") String testName, @Param("from") LocalDate from);
+}
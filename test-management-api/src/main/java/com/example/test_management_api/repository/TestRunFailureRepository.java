@@ -0,0 +1,17 @@
+package com.example.test_management_api.repository;
+
+import com.example.test_management_api.model.TestRunFailure;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+public interface TestRunFailureRepository extends JpaRepository<TestRunFailure, UUID> {
+
+    // Which of the runs have a failure row, without loading their text
+    @Query("select f.runId from TestRunFailure f where f.runId in :runIds")
+    Set<UUID> findExistingRunIds(@Param("runIds") Collection<UUID> runIds);
+}
@@ -1,16 +1,84 @@
 package com.example.test_management_api.repository;
 
+import com.example.test_management_api.dtos.TestRunListItemDto;
 import com.example.test_management_api.model.TestRun;
 import com.example.test_management_api.model.enums.TestRunStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface TestRunRepository extends JpaRepository<TestRun, UUID> {
-    List<TestRun> findByStatusAndEnvironment(TestRunStatus status, String environment);
+    // --- Keyset pagination (newest first) ---
+    // Each query continues strictly after the (startTime, id) of the last row of the previous page.
+    // Only the Pageable's page size is used; the offset is always 0.
 
-    List<TestRun> findByStatus(TestRunStatus status);
+    String LIST_ITEM = "select new com.example.test_management_api.dtos.TestRunListItemDto("
+            + "r.id, r.status, r.startTime, r.endTime, r.reportUrl, r.environment, r.tags, r.failedTestCount, r.screenshotPath, "
+            + "r.testsTotal, r.testsDone) "
+            + "from TestRun r ";
 
-    List<TestRun> findByEnvironment(String environment);
+    String AFTER_CURSOR = "(r.startTime < :startTime or (r.startTime = :startTime and r.id < :id)) ";
+
+    String NEWEST_FIRST = "order by r.startTime desc, r.id desc";
+
+    @Query(LIST_ITEM + "where " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TestRunListItemDto> findPage(@Param("startTime") LocalDateTime startTime, @Param("id") UUID id,
+                                      Pageable pageable);
+
+    @Query(LIST_ITEM + "where r.status = :status and " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TestRunListItemDto> findPageByStatus(@Param("status") TestRunStatus status,
+                                              @Param("startTime") LocalDateTime startTime, @Param("id") UUID id,
+                                              Pageable pageable);
+
+    @Query(LIST_ITEM + "where r.environment = :environment and " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TestRunListItemDto> findPageByEnvironment(@Param("environment") String environment,
+                                                   @Param("startTime") LocalDateTime startTime, @Param("id") UUID id,
+                                                   Pageable pageable);
+
+    @Query(LIST_ITEM + "where r.status = :status and r.environment = :environment and " + AFTER_CURSOR + NEWEST_FIRST)
+    List<TestRunListItemDto> findPageByStatusAndEnvironment(@Param("status") TestRunStatus status,
+                                                            @Param("environment") String environment,
+                                                            @Param("startTime") LocalDateTime startTime, @Param("id") UUID id,
+                                                            Pageable pageable);
+
+    // --- Summary counters ---
+
+    @Query("select r.status as status, r.environment as environment, count(r) as total "
+            + "from TestRun r group by r.status, r.environment")
+    List<StatusEnvironmentCount> countByStatusAndEnvironment();
+
+    interface StatusEnvironmentCount {
+        TestRunStatus getStatus();
+
+        String getEnvironment();
+
+        Long getTotal();
+    }
+
+    // --- Bulk result ingestion ---
+
+    // Everything needed to apply a result and describe the change, without loading managed entities
+    @Query("select r.id as id, r.status as status, r.version as version, r.startTime as startTime, "
+            + "r.environment as environment, r.tags as tags from TestRun r where r.id in :ids")
+    List<RunState> findStatesByIdIn(@Param("ids") Collection<UUID> ids);
+
+    interface RunState {
+        UUID getId();
+
+        TestRunStatus getStatus();
+
+        Long getVersion();
+
+        LocalDateTime getStartTime();
+
+        String getEnvironment();
+
+        String getTags();
+    }
 }
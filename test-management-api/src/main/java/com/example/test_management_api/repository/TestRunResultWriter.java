@@ -0,0 +1,113 @@
+package com.example.test_management_api.repository;
+
+import com.example.test_management_api.dtos.TestRunUpdateDto;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.nio.ByteBuffer;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Applies worker results with plain batched UPDATEs, without reading the runs first.
+ *
+ * Each UPDATE only matches while the run still has the expected open status, and bumps its version,
+ * so a late or duplicate result cannot overwrite a COMPLETED/FAILED run, and a concurrent find + save
+ * of the run fails its version check instead of undoing the result.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TestRunResultWriter {
+
+    private static final String APPLY_RESULT = "update test_run set status = ?, end_time = ?, report_url = ?, "
+            + "failed_test_count = ?, screenshot_path = ?, version = version + 1 "
+            + "where id = ? and status = ?";
+
+    private static final String READ_BACK = "select id, status, end_time from test_run where id in (%s)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record RunResult(UUID id, TestRunUpdateDto result) {
+    }
+
+    /**
+     * Applies the results to those of the runs that still have the expected status.
+     *
+     * @param endTime stored as is, so it must already be cut to the column's microseconds
+     * @return in input order, whether each result was applied
+     */
+    public boolean[] applyResults(List<RunResult> results, TestRunStatus expectedStatus, LocalDateTime endTime) {
+        Timestamp endTimestamp = Timestamp.valueOf(endTime);
+        int[][] updateCounts = jdbcTemplate.batchUpdate(APPLY_RESULT, results, results.size(), (ps, runResult) -> {
+            TestRunUpdateDto result = runResult.result();
+            ps.setString(1, result.getStatus().name());
+            ps.setTimestamp(2, endTimestamp);
+            ps.setString(3, result.getReportUrl());
+            if (result.getFailedTestCount() == null) {
+                ps.setNull(4, Types.INTEGER);
+            } else {
+                ps.setInt(4, result.getFailedTestCount());
+            }
+            ps.setString(5, result.getScreenshotPath());
+            ps.setBytes(6, toBytes(runResult.id()));
+            ps.setString(7, expectedStatus.name());
+        });
+
+        boolean[] applied = new boolean[results.size()];
+        List<Integer> unknown = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : updateCounts) {
+            for (int count : batch) {
+                if (count == Statement.SUCCESS_NO_INFO) {
+                    unknown.add(i);
+                }
+                applied[i++] = count > 0;
+            }
+        }
+        if (!unknown.isEmpty()) {
+            readBack(results, unknown, endTime, applied);
+        }
+        return applied;
+    }
+
+    // A rewritten batch may not say which statements matched (SUCCESS_NO_INFO). A run this batch
+    // finished now has the result's status and exactly this batch's end time.
+    private void readBack(List<RunResult> results, List<Integer> unknown, LocalDateTime endTime, boolean[] applied) {
+        List<Object> ids = new ArrayList<>(unknown.size());
+        unknown.forEach(index -> ids.add(toBytes(results.get(index).id())));
+        Map<UUID, Boolean> finishedByThisBatch = new HashMap<>();
+        Map<UUID, TestRunStatus> expected = new HashMap<>();
+        unknown.forEach(index -> expected.put(results.get(index).id(), results.get(index).result().getStatus()));
+        jdbcTemplate.query(String.format(READ_BACK, String.join(", ", Collections.nCopies(ids.size(), "?"))), rs -> {
+            UUID id = fromBytes(rs.getBytes("id"));
+            finishedByThisBatch.put(id, expected.get(id).name().equals(rs.getString("status"))
+                    && endTime.equals(rs.getObject("end_time", LocalDateTime.class)));
+        }, ids.toArray());
+        for (int index : unknown) {
+            applied[index] = finishedByThisBatch.getOrDefault(results.get(index).id(), false);
+        }
+    }
+
+    // Hibernate stores UUIDs in MySQL as binary(16): most significant bits first
+    static byte[] toBytes(UUID id) {
+        return ByteBuffer.allocate(16)
+                .putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits())
+                .array();
+    }
+
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
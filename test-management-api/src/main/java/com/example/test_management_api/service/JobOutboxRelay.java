@@ -0,0 +1,154 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.model.JobOutboxEntry;
+import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.repository.JobOutboxRepository;
+import com.example.test_management_api.repository.TestRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Publishes the jobs recorded in the job_outbox table.
+ *
+ * Every linger interval the relay claims the oldest batch of rows in a short transaction, which only
+ * stamps them with a lease (claimed_until). The matching runs are then published in one burst with
+ * publisher confirms, outside any transaction, and a second short transaction deletes the rows the
+ * broker acknowledged and gives the rest back. So waiting for confirms never holds row locks or a
+ * connection. Rows that were not confirmed are retried on the next pass, and rows of a relay that died
+ * are claimed again once their lease runs out, so a broker outage or a crash delays jobs instead of
+ * losing them. Delivery is at-least-once: a crash between the confirm and the delete republishes the batch.
+ */
+@Service
+@Slf4j
+public class JobOutboxRelay {
+
+    private final JobOutboxRepository jobOutboxRepository;
+    private final TestRunRepository testRunRepository;
+    private final RabbitMQProducer rabbitMQProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    // Must outlast publishing a batch, confirm timeout included
+    private final Duration lease;
+
+    private final Counter publishedCounter;
+    private final Counter failedCounter;
+
+    public JobOutboxRelay(JobOutboxRepository jobOutboxRepository, TestRunRepository testRunRepository,
+                          RabbitMQProducer rabbitMQProducer, TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${outbox.relay.batch-size:100}") int batchSize,
+                          @Value("${outbox.relay.lease-ms:60000}") long leaseMs) {
+        this.jobOutboxRepository = jobOutboxRepository;
+        this.testRunRepository = testRunRepository;
+        this.rabbitMQProducer = rabbitMQProducer;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.lease = Duration.ofMillis(leaseMs);
+        this.publishedCounter = meterRegistry.counter("outbox.relay.published");
+        this.failedCounter = meterRegistry.counter("outbox.relay.failed");
+        // Read from the table when scraped, so it keeps growing while the relay is stuck or failing
+        Gauge.builder("outbox.relay.lag", this, JobOutboxRelay::lagSeconds)
+                .description("Age of the oldest job that has not been published yet")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    // The fixed delay is the linger time: how long a new job waits at most before a pass picks it up
+    @Scheduled(fixedDelayString = "${outbox.relay.linger-ms:200}")
+    public void relay() {
+        RelayResult result;
+        do {
+            result = relayBatch(claim(now -> jobOutboxRepository.lockOldestUnclaimed(now, batchSize)));
+        } while (result.failures().isEmpty() && result.claimed() == batchSize);
+    }
+
+    /**
+     * Publishes the outbox rows of the given runs right away instead of waiting for the next pass.
+     * Returns the runs that were not confirmed, mapped to the reason; their rows stay in the outbox.
+     * Rows a relay pass has already claimed are being published by it and are not failures.
+     */
+    public Map<UUID, String> publishNow(Collection<UUID> runIds) {
+        return relayBatch(claim(now -> jobOutboxRepository.lockUnclaimedByRunIds(runIds, now))).failures();
+    }
+
+    // Row locks are held only for this short transaction; the lease keeps other relays off the rows afterwards
+    private List<JobOutboxEntry> claim(Function<LocalDateTime, List<JobOutboxEntry>> lock) {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<JobOutboxEntry> entries = lock.apply(now);
+            entries.forEach(entry -> entry.setClaimedUntil(now.plus(lease)));
+            return entries;
+        });
+    }
+
+    private RelayResult relayBatch(List<JobOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return new RelayResult(0, Map.of());
+        }
+
+        Map<UUID, JobOutboxEntry> entriesByRunId = new LinkedHashMap<>();
+        entries.forEach(entry -> entriesByRunId.put(entry.getRunId(), entry));
+        Map<UUID, TestRun> runsById = new LinkedHashMap<>();
+        testRunRepository.findAllById(entriesByRunId.keySet()).forEach(run -> runsById.put(run.getId(), run));
+
+        List<TestRun> runs = new ArrayList<>(runsById.values());
+        Map<UUID, String> failures = runs.isEmpty() ? Map.of() : rabbitMQProducer.sendTestRunJobs(runs);
+
+        List<JobOutboxEntry> done = new ArrayList<>();
+        List<UUID> released = new ArrayList<>();
+        for (JobOutboxEntry entry : entries) {
+            if (!runsById.containsKey(entry.getRunId())) {
+                log.warn("Dropping outbox entry {}: run {} no longer exists", entry.getId(), entry.getRunId());
+                done.add(entry);
+            } else if (failures.containsKey(entry.getRunId())) {
+                released.add(entry.getId());
+            } else {
+                done.add(entry);
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jobOutboxRepository.deleteAllInBatch(done);
+            if (!released.isEmpty()) {
+                jobOutboxRepository.releaseClaims(released);
+            }
+        });
+
+        publishedCounter.increment(runs.size() - failures.size());
+        failedCounter.increment(failures.size());
+        if (!failures.isEmpty()) {
+            log.warn("Outbox relay: {} of {} jobs not confirmed, will retry: {}", failures.size(), runs.size(), failures);
+        }
+        return new RelayResult(entries.size(), failures);
+    }
+
+    private double lagSeconds() {
+        try {
+            LocalDateTime oldest = jobOutboxRepository.findOldestCreatedAt();
+            return oldest == null ? 0
+                    : Math.max(0, System.currentTimeMillis() - oldest.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()) / 1000.0;
+        } catch (RuntimeException e) {
+            // Unknown rather than stale while the database cannot be read
+            return Double.NaN;
+        }
+    }
+
+    private record RelayResult(int claimed, Map<UUID, String> failures) {
+    }
+}
@@ -3,10 +3,20 @@ package com.example.test_management_api.service;
 import com.example.test_management_api.model.TestRun;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 @Service
 @Slf4j // Creates the 'log' variable
 @RequiredArgsConstructor // Creates a constructor for all 'final' fields
@@ -21,6 +31,9 @@ public class RabbitMQProducer {
     @Value("${rabbitmq.routing.key}")
     private String routingKey;
 
+    @Value("${rabbitmq.confirm.timeout-ms:10000}")
+    private long confirmTimeoutMs;
+
     // The @Autowired constructor is no longer needed
 
     public void sendTestRunJob(TestRun testRun) {
@@ -35,4 +48,51 @@ public class RabbitMQProducer {
 
         log.info("Job sent successfully for Run ID {}", testRun.getId());
     }
-}
\ No newline at end of file
+
+    /**
+     * Publishes all jobs on one channel without waiting in between, then waits for the publisher
+     * confirms (spring.rabbitmq.publisher-confirm-type=correlated). Returns the runs whose job was
+     * not confirmed, mapped to the reason; an empty map means every job reached the broker.
+     */
+    public Map<UUID, String> sendTestRunJobs(List<TestRun> testRuns) {
+        log.info("Sending {} jobs to RabbitMQ", testRuns.size());
+        Map<UUID, String> failures = new LinkedHashMap<>();
+        Map<UUID, CorrelationData> pending = new LinkedHashMap<>();
+
+        // invoke() pins a single channel to this thread for the whole burst
+        rabbitTemplate.invoke(operations -> {
+            for (TestRun testRun : testRuns) {
+                CorrelationData correlationData = new CorrelationData(testRun.getId().toString());
+                try {
+                    operations.convertAndSend(exchangeName, routingKey, testRun, correlationData);
+                    pending.put(testRun.getId(), correlationData);
+                } catch (AmqpException e) {
+                    failures.put(testRun.getId(), "Publish failed: " + e.getMessage());
+                }
+            }
+            return null;
+        });
+
+        // All confirms share one deadline, so a slow broker costs the timeout once, not per message
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(confirmTimeoutMs);
+        for (Map.Entry<UUID, CorrelationData> entry : pending.entrySet()) {
+            try {
+                CorrelationData.Confirm confirm = entry.getValue().getFuture()
+                        .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (!confirm.isAck()) {
+                    failures.put(entry.getKey(), "Broker rejected job: " + confirm.getReason());
+                }
+            } catch (TimeoutException e) {
+                failures.put(entry.getKey(), "No publisher confirm within " + confirmTimeoutMs + " ms");
+            } catch (ExecutionException e) {
+                failures.put(entry.getKey(), "Publish failed: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failures.put(entry.getKey(), "Interrupted while waiting for publisher confirm");
+            }
+        }
+
+        log.info("Batch sent: {} confirmed, {} failed", testRuns.size() - failures.size(), failures.size());
+        return failures;
+    }
+}
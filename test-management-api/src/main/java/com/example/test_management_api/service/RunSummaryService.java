@@ -0,0 +1,166 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.dtos.RunSummaryDto;
+import com.example.test_management_api.event.TestRunChangedEvent;
+import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import com.example.test_management_api.repository.TestRunRepository;
+import com.example.test_management_api.repository.TestRunRepository.StatusEnvironmentCount;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keeps run counts per status and per environment in memory so the summary never scans the table.
+ *
+ * Counters are seeded from a single GROUP BY at startup, moved by every create/status change, and
+ * periodically rebuilt from the database. A rebuild replaces the counters wholesale, which also
+ * corrects any drift (e.g. from changes made by another API instance). Changes that arrive while the
+ * GROUP BY runs are recorded and replayed onto the rebuilt counters before they replace the old ones,
+ * so they are not lost with the old counters.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RunSummaryService {
+
+    // Runs without an environment are counted under this key
+    static final String UNKNOWN_ENVIRONMENT = "unknown";
+
+    private final TestRunRepository testRunRepository;
+
+    private volatile Counters counters = new Counters();
+    // Non-null while a rebuild runs; collects the changes the rebuilt counters may not have seen
+    private volatile Queue<Change> recording;
+    // Changes hold the read lock, so a rebuild can replay the recording and swap the counters in between
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public RunSummaryDto getSummary() {
+        return counters.snapshot();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTestRunChanged(TestRunChangedEvent event) {
+        TestRun testRun = event.getTestRun();
+        TestRunStatus previousStatus = event.getPreviousStatus();
+        if (previousStatus == testRun.getStatus()) {
+            return;
+        }
+        Change change = new Change(previousStatus, testRun.getStatus(), testRun.getEnvironment());
+        swapLock.readLock().lock();
+        try {
+            change.applyTo(counters);
+            Queue<Change> changes = recording;
+            if (changes != null) {
+                changes.add(change);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${api.runs.summary.reconcile-ms:300000}",
+            initialDelayString = "${api.runs.summary.reconcile-ms:300000}")
+    public void reconcile() {
+        rebuild();
+    }
+
+    // Recording starts before the GROUP BY, so a change committed just before it may be counted twice
+    // until the next rebuild; that is rarer and smaller than losing every change made while it ran.
+    synchronized void rebuild() {
+        Queue<Change> changes = new ConcurrentLinkedQueue<>();
+        recording = changes;
+        Counters rebuilt = new Counters();
+        try {
+            for (StatusEnvironmentCount row : testRunRepository.countByStatusAndEnvironment()) {
+                if (row.getStatus() != null) {
+                    rebuilt.add(row.getStatus(), row.getEnvironment(), row.getTotal());
+                }
+            }
+        } catch (RuntimeException e) {
+            recording = null;
+            throw e;
+        }
+
+        long drift;
+        swapLock.writeLock().lock();
+        try {
+            changes.forEach(change -> change.applyTo(rebuilt));
+            drift = rebuilt.total() - counters.total();
+            counters = rebuilt;
+            recording = null;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        log.info("Rebuilt run summary counters: {} runs, {} changes replayed (drift {})",
+                rebuilt.total(), changes.size(), drift);
+    }
+
+    private record Change(TestRunStatus previousStatus, TestRunStatus status, String environment) {
+        void applyTo(Counters target) {
+            if (previousStatus != null) {
+                target.add(previousStatus, environment, -1);
+            }
+            target.add(status, environment, 1);
+        }
+    }
+
+    private static final class Counters {
+        private final Map<TestRunStatus, LongAdder> byStatus = newStatusCounters();
+        private final ConcurrentMap<String, Map<TestRunStatus, LongAdder>> byEnvironment = new ConcurrentHashMap<>();
+
+        void add(TestRunStatus status, String environment, long delta) {
+            if (status == null) {
+                return;
+            }
+            String key = environment != null ? environment : UNKNOWN_ENVIRONMENT;
+            byStatus.get(status).add(delta);
+            byEnvironment.computeIfAbsent(key, k -> newStatusCounters()).get(status).add(delta);
+        }
+
+        long total() {
+            return byStatus.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        RunSummaryDto snapshot() {
+            Map<String, Map<TestRunStatus, Long>> environments = new TreeMap<>();
+            byEnvironment.forEach((environment, statusCounters) -> environments.put(environment, sum(statusCounters)));
+            return new RunSummaryDto(total(), sum(byStatus), environments);
+        }
+
+        // The maps are filled once and never resized, so concurrent readers only ever touch the LongAdders
+        private static Map<TestRunStatus, LongAdder> newStatusCounters() {
+            Map<TestRunStatus, LongAdder> statusCounters = new EnumMap<>(TestRunStatus.class);
+            for (TestRunStatus status : TestRunStatus.values()) {
+                statusCounters.put(status, new LongAdder());
+            }
+            return statusCounters;
+        }
+
+        private static Map<TestRunStatus, Long> sum(Map<TestRunStatus, LongAdder> statusCounters) {
+            Map<TestRunStatus, Long> sums = new EnumMap<>(TestRunStatus.class);
+            statusCounters.forEach((status, adder) -> sums.put(status, adder.sum()));
+            return sums;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.dtos.TestCaseBatchResultDto;
+import com.example.test_management_api.dtos.TestCaseResultDto;
+import com.example.test_management_api.dtos.TestTrendDayDto;
+import com.example.test_management_api.dtos.TestTrendDto;
+import com.example.test_management_api.model.DurationSketch;
+import com.example.test_management_api.model.TestCaseResult;
+import com.example.test_management_api.model.TestDailyRollup;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import com.example.test_management_api.repository.TestCaseResultRepository;
+import com.example.test_management_api.repository.TestDailyRollupRepository;
+import com.example.test_management_api.repository.TestRunRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stores the per-test results of runs and keeps the daily rollups that trend queries read.
+ *
+ * Each ingested batch is inserted with one narrow read (which of its tests the run already has) and
+ * batched inserts. In the same transaction its results are summed up per test and day and merged into
+ * those days' TestDailyRollup rows, so the rollups always match the stored results and a trend never
+ * scans raw history.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TestCaseResultService {
+
+    // The test_name column's length
+    private static final int MAX_TEST_NAME_LENGTH = 255;
+
+    private final TestRunRepository testRunRepository;
+    private final TestCaseResultRepository testCaseResultRepository;
+    private final TestDailyRollupRepository testDailyRollupRepository;
+
+    @Value("${api.tests.batch.max-size:1000}")
+    private int maxBatchSize;
+
+    @Value("${api.tests.trend.max-days:365}")
+    private int maxTrendDays;
+
+    /**
+     * Stores a batch of a run's test results. Results for tests the run already has a result for are
+     * skipped, so a batch can safely be sent again.
+     *
+     * @return what was stored, or empty if there is no such run
+     */
+    @Transactional
+    public Optional<TestCaseBatchResultDto> ingest(UUID runId, List<TestCaseResultDto> results) {
+        if (results == null || results.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one test result");
+        }
+        if (results.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch of " + results.size() + " test results exceeds the maximum of " + maxBatchSize);
+        }
+        for (TestCaseResultDto result : results) {
+            if (result == null || result.getTestName() == null || result.getTestName().isBlank() || result.getStatus() == null) {
+                throw new IllegalArgumentException("Every test result needs a testName and a status");
+            }
+            if (result.getTestName().length() > MAX_TEST_NAME_LENGTH) {
+                throw new IllegalArgumentException("Test name longer than " + MAX_TEST_NAME_LENGTH + " characters: " + result.getTestName());
+            }
+        }
+        if (!testRunRepository.existsById(runId)) {
+            return Optional.empty();
+        }
+
+        // The first result per test counts; later ones in the same batch are duplicates too
+        Map<String, TestCaseResultDto> byTest = new LinkedHashMap<>();
+        results.forEach(result -> byTest.putIfAbsent(result.getTestName(), result));
+        testCaseResultRepository.findStoredTestNames(runId, byTest.keySet()).forEach(byTest::remove);
+
+        List<TestCaseResult> newResults = byTest.values().stream().map(result -> toEntity(runId, result)).toList();
+        testCaseResultRepository.saveAll(newResults);
+        rollUp(newResults);
+
+        int duplicates = results.size() - newResults.size();
+        log.info("Stored {} test results of run {} ({} duplicates)", newResults.size(), runId, duplicates);
+        return Optional.of(new TestCaseBatchResultDto(newResults.size(), duplicates));
+    }
+
+    /**
+     * A test's results per day over the last days, today included.
+     */
+    @Transactional(readOnly = true)
+    public TestTrendDto getTrend(String testName, int days) {
+        if (days <= 0 || days > maxTrendDays) {
+            throw new IllegalArgumentException("days must be between 1 and " + maxTrendDays);
+        }
+        LocalDate from = LocalDate.now().minusDays(days - 1L);
+        List<TestDailyRollup> rollups = testDailyRollupRepository.findTrend(testName, from);
+
+        long results = 0;
+        long failures = 0;
+        DurationSketch durations = DurationSketch.EMPTY;
+        List<TestTrendDayDto> daily = new ArrayList<>(rollups.size());
+        for (TestDailyRollup rollup : rollups) {
+            results += rollup.getResults();
+            failures += rollup.getFailures();
+            DurationSketch sketch = rollup.getDurationSketch();
+            durations = durations.merge(sketch);
+            daily.add(new TestTrendDayDto(rollup.getDay(), rollup.getResults(), rollup.getFailures(),
+                    passRate(rollup.getResults(), rollup.getFailures()),
+                    sketch.count() > 0 ? rollup.getDurationSumMs() / sketch.count() : null,
+                    sketch.count() > 0 ? rollup.getDurationMaxMs() : null,
+                    sketch.percentile(0.50), sketch.percentile(0.95)));
+        }
+        return new TestTrendDto(testName, days, results, failures, passRate(results, failures),
+                durations.percentile(0.50), durations.percentile(0.95), daily);
+    }
+
+    // Sums the new results up per test and day and merges them into the (locked) rollup rows
+    private void rollUp(List<TestCaseResult> newResults) {
+        if (newResults.isEmpty()) {
+            return;
+        }
+        Map<TestDailyRollup.Key, List<TestCaseResult>> byDay = new HashMap<>();
+        for (TestCaseResult result : newResults) {
+            byDay.computeIfAbsent(new TestDailyRollup.Key(result.getTestName(), day(result)), key -> new ArrayList<>()).add(result);
+        }
+
+        Set<String> testNames = new HashSet<>();
+        Set<LocalDate> days = new HashSet<>();
+        byDay.keySet().forEach(key -> {
+            testNames.add(key.getTestName());
+            days.add(key.getDay());
+        });
+        Map<TestDailyRollup.Key, TestDailyRollup> rollups = new HashMap<>();
+        // Locks a few rows beyond the batch's (test, day) pairs at most: every test on every day
+        for (TestDailyRollup rollup : testDailyRollupRepository.findForUpdate(testNames, days)) {
+            rollups.put(rollup.getId(), rollup);
+        }
+
+        List<TestDailyRollup> changed = new ArrayList<>(byDay.size());
+        byDay.forEach((key, dayResults) -> {
+            TestDailyRollup rollup = rollups.getOrDefault(key, new TestDailyRollup(key.getTestName(), key.getDay()));
+            List<Long> durations = new ArrayList<>(dayResults.size());
+            for (TestCaseResult result : dayResults) {
+                rollup.setResults(rollup.getResults() + 1);
+                if (result.getStatus() != TestRunStatus.COMPLETED) {
+                    rollup.setFailures(rollup.getFailures() + 1);
+                }
+                if (result.getDurationMs() != null) {
+                    durations.add(result.getDurationMs());
+                    rollup.setDurationSumMs(rollup.getDurationSumMs() + result.getDurationMs());
+                    rollup.setDurationMaxMs(Math.max(rollup.getDurationMaxMs(), result.getDurationMs()));
+                }
+            }
+            // A new sketch, so the change is seen by dirty checking
+            rollup.setDurationSketch(rollup.getDurationSketch().merge(DurationSketch.of(durations)));
+            changed.add(rollup);
+        });
+        testDailyRollupRepository.saveAll(changed);
+    }
+
+    private LocalDate day(TestCaseResult result) {
+        LocalDateTime time = result.getStartTime() != null ? result.getStartTime() : result.getEndTime();
+        return time != null ? time.toLocalDate() : LocalDate.now();
+    }
+
+    private static TestCaseResult toEntity(UUID runId, TestCaseResultDto result) {
+        TestCaseResult testCaseResult = new TestCaseResult();
+        testCaseResult.setRunId(runId);
+        testCaseResult.setTestName(result.getTestName());
+        testCaseResult.setStatus(result.getStatus());
+        testCaseResult.setTestType(result.getTestType());
+        testCaseResult.setStartTime(result.getStartTime());
+        testCaseResult.setEndTime(result.getEndTime());
+        testCaseResult.setDurationMs(result.getDurationMs());
+        testCaseResult.setErrorMessage(result.getErrorMessage());
+        return testCaseResult;
+    }
+
+    private static double passRate(long results, long failures) {
+        return results > 0 ? (double) (results - failures) / results : 0;
+    }
+}
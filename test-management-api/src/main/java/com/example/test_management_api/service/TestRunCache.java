@@ -0,0 +1,51 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.event.TestRunChangedEvent;
+import com.example.test_management_api.model.TestRun;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded read-through cache for single runs, so CI pollers waiting on a run do not hit MySQL.
+ *
+ * Entries are dropped after every committed change to the run. The TTL bounds how long a change made
+ * through another API instance can stay invisible here. Missing runs are not cached, so a run is
+ * visible as soon as it is created.
+ */
+@Component
+public class TestRunCache {
+
+    private final Cache<UUID, TestRun> cache;
+
+    public TestRunCache(@Value("${api.runs.cache.max-size:10000}") long maxSize,
+                        @Value("${api.runs.cache.ttl-ms:30000}") long ttlMs,
+                        MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "testRuns");
+    }
+
+    public Optional<TestRun> get(UUID id, Function<UUID, Optional<TestRun>> loader) {
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    // Runs after commit, so a concurrent read cannot put the old row back: Caffeine makes the
+    // invalidation wait for an in-flight load of the same key
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTestRunChanged(TestRunChangedEvent event) {
+        cache.invalidate(event.getTestRun().getId());
+    }
+}
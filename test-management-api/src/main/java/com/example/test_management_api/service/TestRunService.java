@@ -2,19 +2,27 @@ package com.example.test_management_api.service;
 
 
 import com.example.test_management_api.dtos.CreateTestRunRequestDto;
+import com.example.test_management_api.dtos.TestRunFailureDto;
+import com.example.test_management_api.dtos.TestRunPageDto;
+import com.example.test_management_api.dtos.TestRunProgressDto;
+import com.example.test_management_api.dtos.TestRunResultsDto;
 import com.example.test_management_api.dtos.TestRunUpdateDto;
 import com.example.test_management_api.model.TestRun;
 import com.example.test_management_api.model.enums.TestRunStatus;
-import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface TestRunService {
 //    TestRun saveTestRun(TestRun testRun);
     TestRun createTestRun(CreateTestRunRequestDto requestDto);
+    List<TestRun> createTestRuns(List<CreateTestRunRequestDto> requestDtos);
     Optional<TestRun> findTestRun(UUID id);
-    TestRun updateTestRunStatus(UUID id, TestRunUpdateDto updateDto);
-    List<TestRun> getAllTestsByCriteria(@RequestParam(required = false) TestRunStatus status, @RequestParam(required = false) String environment);
+    Optional<TestRunFailureDto> findTestRunFailure(UUID id);
+    Optional<TestRun> updateTestRunStatus(UUID id, TestRunUpdateDto updateDto);
+    TestRunResultsDto applyTestRunResults(Map<UUID, TestRunUpdateDto> results);
+    boolean updateTestRunProgress(UUID id, TestRunProgressDto progressDto);
+    TestRunPageDto getTestRunPage(TestRunStatus status, String environment, String cursor, Integer size);
 }
@@ -0,0 +1,223 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.dtos.TestRunEventDto;
+import com.example.test_management_api.dtos.TestRunListItemDto;
+import com.example.test_management_api.event.TestRunChangedEvent;
+import com.example.test_management_api.model.TestRun;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Pushes run changes to dashboards as Server-Sent Events.
+ *
+ * Every change gets a sequence number and is kept in a bounded ring buffer, so a client that
+ * reconnects with Last-Event-ID only receives what it missed. Subscribers are async SseEmitters and
+ * do not hold a request thread while idle. Sequencing and all ring buffer access happen on a single
+ * dispatcher thread, which never writes to a client itself: it only queues each event for every
+ * subscriber. Each subscriber's queue is sent by a sender thread of its own while it has anything
+ * queued, so a stalled client only ever holds up itself. A subscriber whose queue is full has fallen
+ * too far behind and is disconnected; its browser reconnects and catches up from the ring buffer.
+ */
+@Service
+@Slf4j
+public class TestRunStreamService {
+
+    private static final String RUN_EVENT = "run";
+    // Tells the client the requested history is gone and it has to reload the run list
+    private static final String RESET_EVENT = "reset";
+
+    // Event ids are "<epoch>-<sequence>"; the epoch changes on every restart so stale ids are detected
+    private final long epoch = System.currentTimeMillis();
+    private final StreamEvent[] ring;
+    private long sequence = 0;
+
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "run-stream-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Platform threads: SseEmitter sends are synchronized, so a stalled send would pin a virtual thread's carrier
+    private final ExecutorService senders = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "run-stream-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final long emitterTimeoutMs;
+    private final int subscriberQueueCapacity;
+
+    public TestRunStreamService(@Value("${api.runs.stream.buffer-size:1024}") int bufferSize,
+                                @Value("${api.runs.stream.timeout-ms:1800000}") long emitterTimeoutMs,
+                                @Value("${api.runs.stream.subscriber-queue-capacity:256}") int subscriberQueueCapacity) {
+        this.ring = new StreamEvent[bufferSize];
+        this.emitterTimeoutMs = emitterTimeoutMs;
+        this.subscriberQueueCapacity = subscriberQueueCapacity;
+    }
+
+    /**
+     * Registers a new subscriber, first replaying everything after lastEventId that is still buffered.
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(emitterTimeoutMs), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        emitter.onCompletion(() -> subscribers.remove(emitter));
+        emitter.onTimeout(() -> subscribers.remove(emitter));
+        emitter.onError(e -> subscribers.remove(emitter));
+
+        Subscriber subscriber = new Subscriber(emitter);
+        dispatcher.execute(() -> {
+            if (lastEventId != null) {
+                replay(subscriber, lastEventId);
+            }
+            subscribers.put(emitter, subscriber);
+        });
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTestRunChanged(TestRunChangedEvent event) {
+        TestRunEventDto payload = new TestRunEventDto(
+                event.isCreated() ? "CREATED" : "UPDATED",
+                event.getPreviousStatus(),
+                toListItem(event.getTestRun()));
+        dispatcher.execute(() -> {
+            long seq = ++sequence;
+            StreamEvent streamEvent = new StreamEvent(seq, payload);
+            ring[(int) (seq % ring.length)] = streamEvent;
+            broadcast(() -> toSse(streamEvent));
+        });
+    }
+
+    // Periodic comment lines keep proxies from closing idle connections and flush out dead clients
+    @Scheduled(fixedRateString = "${api.runs.stream.heartbeat-ms:30000}")
+    public void heartbeat() {
+        dispatcher.execute(() -> broadcast(() -> SseEmitter.event().comment("heartbeat")));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        senders.shutdownNow();
+        subscribers.keySet().forEach(SseEmitter::complete);
+    }
+
+    // Queues what the client missed; more than fits in its queue is treated like history that is gone
+    private void replay(Subscriber subscriber, String lastEventId) {
+        long lastSeen = parseSequence(lastEventId);
+        long oldestBuffered = Math.max(1, sequence - ring.length + 1);
+        if (lastSeen < 0 || lastSeen > sequence || lastSeen + 1 < oldestBuffered
+                || sequence - lastSeen > subscriberQueueCapacity) {
+            log.info("Last-Event-ID {} is no longer buffered, asking client to reload", lastEventId);
+            subscriber.offer(() -> SseEmitter.event().name(RESET_EVENT).data(""));
+            return;
+        }
+        for (long seq = lastSeen + 1; seq <= sequence; seq++) {
+            StreamEvent streamEvent = ring[(int) (seq % ring.length)];
+            subscriber.offer(() -> toSse(streamEvent));
+        }
+    }
+
+    private void broadcast(Supplier<SseEmitter.SseEventBuilder> event) {
+        for (Subscriber subscriber : subscribers.values()) {
+            if (!subscriber.offer(event)) {
+                log.info("Disconnecting a run stream subscriber that fell {} events behind", subscriberQueueCapacity);
+                subscribers.remove(subscriber.emitter);
+                // Completing waits for a send in progress, which may be stalled, so not on the dispatcher
+                senders.execute(subscriber.emitter::complete);
+            }
+        }
+    }
+
+    private SseEmitter.SseEventBuilder toSse(StreamEvent streamEvent) {
+        return SseEmitter.event()
+                .id(epoch + "-" + streamEvent.sequence())
+                .name(RUN_EVENT)
+                .data(streamEvent.payload());
+    }
+
+    // Returns -1 if the id is malformed or comes from an earlier process
+    private long parseSequence(String lastEventId) {
+        int separator = lastEventId.indexOf('-');
+        try {
+            if (separator > 0 && Long.parseLong(lastEventId.substring(0, separator)) == epoch) {
+                return Long.parseLong(lastEventId.substring(separator + 1));
+            }
+        } catch (NumberFormatException e) {
+            log.debug("Ignoring malformed Last-Event-ID {}", lastEventId);
+        }
+        return -1;
+    }
+
+    private static TestRunListItemDto toListItem(TestRun testRun) {
+        return new TestRunListItemDto(testRun.getId(), testRun.getStatus(), testRun.getStartTime(),
+                testRun.getEndTime(), testRun.getReportUrl(), testRun.getEnvironment(), testRun.getTags(),
+                testRun.getFailedTestCount(), testRun.getScreenshotPath(), testRun.getTestsTotal(),
+                testRun.getTestsDone());
+    }
+
+    private record StreamEvent(long sequence, TestRunEventDto payload) {
+    }
+
+    /**
+     * One client's events waiting to be sent. Events are built when they are sent, as an event builder
+     * can only be sent once.
+     */
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> pending;
+        // Whether a sender is draining the queue; at most one is, which keeps the events in order
+        private final AtomicBoolean sending = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+            this.pending = new ArrayBlockingQueue<>(subscriberQueueCapacity);
+        }
+
+        // Never blocks; false if the queue is full
+        private boolean offer(Supplier<SseEmitter.SseEventBuilder> event) {
+            if (!pending.offer(event)) {
+                return false;
+            }
+            if (sending.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+            return true;
+        }
+
+        private void drain() {
+            do {
+                Supplier<SseEmitter.SseEventBuilder> event;
+                while ((event = pending.poll()) != null) {
+                    try {
+                        emitter.send(event.get());
+                    } catch (IOException | IllegalStateException e) {
+                        // The client went away; nothing more is sent to it
+                        subscribers.remove(emitter);
+                        pending.clear();
+                        emitter.completeWithError(e);
+                        return;
+                    }
+                }
+                sending.set(false);
+                // An event queued after the last poll but before the flag was cleared did not start a sender
+            } while (!pending.isEmpty() && sending.compareAndSet(false, true));
+        }
+    }
+}
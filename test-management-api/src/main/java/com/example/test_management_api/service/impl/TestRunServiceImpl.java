@@ -2,20 +2,42 @@ package com.example.test_management_api.service.impl;
 
 
 import com.example.test_management_api.dtos.CreateTestRunRequestDto;
+import com.example.test_management_api.dtos.TestRunFailureDto;
+import com.example.test_management_api.dtos.TestRunListItemDto;
+import com.example.test_management_api.dtos.TestRunPageDto;
+import com.example.test_management_api.dtos.TestRunProgressDto;
+import com.example.test_management_api.dtos.TestRunResultsDto;
 import com.example.test_management_api.dtos.TestRunUpdateDto;
+import com.example.test_management_api.event.TestRunChangedEvent;
+import com.example.test_management_api.model.JobOutboxEntry;
 import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.model.TestRunFailure;
 import com.example.test_management_api.model.enums.TestRunStatus;
+import com.example.test_management_api.repository.JobOutboxRepository;
+import com.example.test_management_api.repository.TestRunFailureRepository;
 import com.example.test_management_api.repository.TestRunRepository;
+import com.example.test_management_api.repository.TestRunResultWriter;
+import com.example.test_management_api.service.TestRunCache;
 import com.example.test_management_api.service.TestRunService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -23,12 +45,32 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class TestRunServiceImpl implements TestRunService {
     private static final Logger LOGGER = LoggerFactory.getLogger(TestRunServiceImpl.class);
+    // Upper bound for the first page: later than any real startTime, but still a valid MySQL DATETIME
+    private static final LocalDateTime FIRST_PAGE_START_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final UUID FIRST_PAGE_ID = new UUID(0L, 0L);
+
     private final TestRunRepository testRunRepository;
+    private final JobOutboxRepository jobOutboxRepository;
+    private final TestRunCache testRunCache;
+    private final TestRunResultWriter testRunResultWriter;
+    private final TestRunFailureRepository testRunFailureRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${api.runs.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${api.runs.page.max-size:200}")
+    private int maxPageSize;
+
+    @Value("${api.runs.batch.max-size:500}")
+    private int maxBatchSize;
 //
 //    public TestRun saveTestRun(TestRun testRun){
 //        return testRunRepository.save(testRun);
 //    }
 
+    // The outbox row commits together with the run; JobOutboxRelay publishes the job afterwards
+    @Transactional
     @Override
     public TestRun createTestRun(CreateTestRunRequestDto requestDto) {
         TestRun testRun=new TestRun();
@@ -38,54 +80,235 @@ public class TestRunServiceImpl implements TestRunService {
         testRun.setStartTime(LocalDateTime.now());
         testRun.setEnvironment(requestDto.getEnvironment());
         testRun.setTags(requestDto.getTags());
+        testRun.setDeadline(deadline(testRun.getStartTime(), requestDto));
         LOGGER.info("Creating new TestRun for environment: {}", requestDto.getEnvironment());
-        return testRunRepository.save(testRun);
+        TestRun savedTestRun = testRunRepository.save(testRun);
+        jobOutboxRepository.save(new JobOutboxEntry(savedTestRun.getId(), LocalDateTime.now()));
+        eventPublisher.publishEvent(new TestRunChangedEvent(savedTestRun, null));
+        return savedTestRun;
+    }
+
+    // One transaction for the whole batch; with hibernate.jdbc.batch_size set the inserts go out as
+    // JDBC batches instead of one round trip per run
+    @Transactional
+    @Override
+    public List<TestRun> createTestRuns(List<CreateTestRunRequestDto> requestDtos) {
+        if (requestDtos == null || requestDtos.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one run");
+        }
+        if (requestDtos.size() > maxBatchSize) {
+            throw new IllegalArgumentException("Batch of " + requestDtos.size() + " runs exceeds the maximum of " + maxBatchSize);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<TestRun> testRuns = new ArrayList<>(requestDtos.size());
+        for (CreateTestRunRequestDto requestDto : requestDtos) {
+            TestRun testRun = new TestRun();
+            testRun.setId(UUID.randomUUID());
+            testRun.setStatus(TestRunStatus.SCHEDULED);
+            testRun.setStartTime(now);
+            testRun.setEnvironment(requestDto.getEnvironment());
+            testRun.setTags(requestDto.getTags());
+            testRun.setDeadline(deadline(now, requestDto));
+            testRuns.add(testRun);
+        }
+        LOGGER.info("Creating batch of {} TestRuns", testRuns.size());
+        List<TestRun> savedTestRuns = testRunRepository.saveAll(testRuns);
+        jobOutboxRepository.saveAll(savedTestRuns.stream()
+                .map(savedTestRun -> new JobOutboxEntry(savedTestRun.getId(), now))
+                .toList());
+        savedTestRuns.forEach(savedTestRun -> eventPublisher.publishEvent(new TestRunChangedEvent(savedTestRun, null)));
+        return savedTestRuns;
     }
 
     public Optional<TestRun> findTestRun(UUID id){
-        return testRunRepository.findById(id);
+        return testRunCache.get(id, testRunRepository::findById);
     }
 
-    public TestRun updateTestRunStatus(UUID id, TestRunUpdateDto updateDto) {
+    @Transactional(readOnly = true)
+    @Override
+    public Optional<TestRunFailureDto> findTestRunFailure(UUID id) {
+        return testRunFailureRepository.findById(id)
+                .map(failure -> new TestRunFailureDto(failure.getRunId(), failure.getErrorMessage(), failure.getErrorDetails()));
+    }
 
+    // The same guarded UPDATE as the bulk path, so a late or duplicate result cannot reopen or
+    // overwrite a finished run. Empty if the run already has its final result.
+    @Transactional
+    @Override
+    public Optional<TestRun> updateTestRunStatus(UUID id, TestRunUpdateDto updateDto) {
+        TestRunResultsDto outcome = applyTestRunResults(Map.of(id, updateDto));
+        if (!outcome.getNotFound().isEmpty()) {
+            throw new EntityNotFoundException("Test run with ID " + id + " not found to update!");
+        }
+        if (outcome.getApplied().isEmpty()) {
+            LOGGER.info("Ignoring result for run {}, it is already finished", id);
+            return Optional.empty();
+        }
+        return testRunRepository.findById(id);
+    }
+    // Moves a run to RUNNING with its progress. A run that already has its final result is left alone,
+    // so a progress update that arrives late cannot reopen it.
+    @Transactional
+    @Override
+    public boolean updateTestRunProgress(UUID id, TestRunProgressDto progressDto) {
         TestRun existingTestRun = testRunRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Test run with ID " + id + " not found to update!"));
-        existingTestRun.setStatus(updateDto.getStatus());
-        existingTestRun.setEndTime(LocalDateTime.now());
-        existingTestRun.setReportUrl(updateDto.getReportUrl());
-        //for error messages
-        existingTestRun.setErrorMessage(updateDto.getErrorMessage());
-        existingTestRun.setErrorDetails(updateDto.getErrorDetails());
-        existingTestRun.setFailedTestCount(updateDto.getFailedTestCount());
-        existingTestRun.setScreenshotPath(updateDto.getScreenshotPath());
-
-        LOGGER.info("Before saving: FailedTestCount = {}", existingTestRun.getFailedTestCount());
-
-        return testRunRepository.save(existingTestRun);
+        TestRunStatus previousStatus = existingTestRun.getStatus();
+        if (previousStatus != TestRunStatus.SCHEDULED && previousStatus != TestRunStatus.RUNNING) {
+            LOGGER.info("Ignoring progress for run {}, it is already {}", id, previousStatus);
+            return false;
+        }
+        existingTestRun.setStatus(TestRunStatus.RUNNING);
+        existingTestRun.setTestsTotal(progressDto.getTestsTotal());
+        existingTestRun.setTestsDone(progressDto.getTestsDone());
+        existingTestRun.setFailedTestCount(progressDto.getFailedTestCount());
+
+        TestRun savedTestRun = testRunRepository.save(existingTestRun);
+        eventPublisher.publishEvent(new TestRunChangedEvent(savedTestRun, previousStatus));
+        return true;
     }
-    @Transactional // Good practice, can add (readOnly = true) for optimization
+
+    // Guarded UPDATEs without reading the runs first: one batch for the runs that are RUNNING, then one
+    // for the rest that are still SCHEDULED, which also tells each applied run's previous status. Only
+    // afterwards one narrow read tells rejected runs from unknown ones and describes the applied changes.
+    @Transactional
     @Override
-    public List<TestRun> getAllTestsByCriteria(TestRunStatus status, String environment) {
-        // Case 1: Both filters are provided
-        if(status != null && environment != null){
-            LOGGER.info("Fetching TestRuns by status '{}' and environment '{}'", status, environment);
-            return testRunRepository.findByStatusAndEnvironment(status, environment);
-        }
-        // Case 2: Only status is provided
-        else if(status != null){ // No need to check environment == null here
-            LOGGER.info("Fetching TestRuns by status '{}'", status);
-            return testRunRepository.findByStatus(status);
-        }
-        // Case 3: Only environment is provided
-        else if(environment != null){ // No need to check status == null here
-            LOGGER.info("Fetching TestRuns by environment '{}'", environment);
-            return testRunRepository.findByEnvironment(environment);
-        }
-        // Case 4: Neither filter is provided
-        else{
-            LOGGER.info("Fetching all TestRuns (no filters provided)");
-            return testRunRepository.findAll();
+    public TestRunResultsDto applyTestRunResults(Map<UUID, TestRunUpdateDto> results) {
+        if (results == null || results.isEmpty()) {
+            throw new IllegalArgumentException("No results to apply");
+        }
+        results.forEach((id, result) -> {
+            if (result == null || result.getStatus() == null) {
+                throw new IllegalArgumentException("Result for run " + id + " has no status");
+            }
+        });
+
+        // Cut to the column's precision, so the writer can recognise its own end time when reading back
+        LocalDateTime endTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Map<UUID, TestRunStatus> previousStatuses = new LinkedHashMap<>();
+        // Each pass gets a list of its own: the writer may still hold on to the one it was given
+        List<TestRunResultWriter.RunResult> open = new ArrayList<>(results.size());
+        for (Map.Entry<UUID, TestRunUpdateDto> result : results.entrySet()) {
+            open.add(new TestRunResultWriter.RunResult(result.getKey(), result.getValue()));
+        }
+        for (TestRunStatus expectedStatus : List.of(TestRunStatus.RUNNING, TestRunStatus.SCHEDULED)) {
+            if (open.isEmpty()) {
+                break;
+            }
+            boolean[] updated = testRunResultWriter.applyResults(open, expectedStatus, endTime);
+            List<TestRunResultWriter.RunResult> notUpdated = new ArrayList<>(open.size());
+            for (int i = 0; i < open.size(); i++) {
+                if (updated[i]) {
+                    previousStatuses.put(open.get(i).id(), expectedStatus);
+                } else {
+                    notUpdated.add(open.get(i));
+                }
+            }
+            open = notUpdated;
         }
+
+        List<UUID> applied = new ArrayList<>(previousStatuses.keySet());
+        List<UUID> rejected = new ArrayList<>();
+        List<UUID> notFound = new ArrayList<>(results.keySet());
+        List<TestRunFailure> failures = new ArrayList<>();
+        for (TestRunRepository.RunState state : testRunRepository.findStatesByIdIn(results.keySet())) {
+            notFound.remove(state.getId());
+            TestRunStatus previousStatus = previousStatuses.get(state.getId());
+            if (previousStatus == null) {
+                rejected.add(state.getId());
+                continue;
+            }
+            TestRunUpdateDto result = results.get(state.getId());
+            toFailure(state.getId(), result).ifPresent(failures::add);
+            eventPublisher.publishEvent(new TestRunChangedEvent(toUpdatedRun(state, result, endTime), previousStatus));
+        }
+        // Applied runs were still open, so none of them has a failure row yet: plain batched inserts
+        if (!failures.isEmpty()) {
+            testRunFailureRepository.saveAll(failures);
+        }
+
+        LOGGER.info("Applied {} TestRun results ({} rejected, {} not found)", applied.size(), rejected.size(), notFound.size());
+        return new TestRunResultsDto(applied, rejected, notFound);
+    }
+
+    private static LocalDateTime deadline(LocalDateTime startTime, CreateTestRunRequestDto requestDto) {
+        Integer timeoutMinutes = requestDto.getTimeoutMinutes();
+        if (timeoutMinutes == null) {
+            return null;
+        }
+        if (timeoutMinutes <= 0) {
+            throw new IllegalArgumentException("timeoutMinutes must be positive");
+        }
+        return startTime.plusMinutes(timeoutMinutes);
+    }
+
+    private static Optional<TestRunFailure> toFailure(UUID runId, TestRunUpdateDto result) {
+        if (result.getErrorMessage() == null && result.getErrorDetails() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new TestRunFailure(runId, result.getErrorMessage(), result.getErrorDetails()));
+    }
+
+    // The run as it is after the UPDATE, from the read that followed it and the applied result
+    private static TestRun toUpdatedRun(TestRunRepository.RunState state, TestRunUpdateDto result, LocalDateTime endTime) {
+        TestRun testRun = new TestRun();
+        testRun.setId(state.getId());
+        testRun.setStartTime(state.getStartTime());
+        testRun.setEnvironment(state.getEnvironment());
+        testRun.setTags(state.getTags());
+        testRun.setStatus(result.getStatus());
+        testRun.setEndTime(endTime);
+        testRun.setReportUrl(result.getReportUrl());
+        testRun.setFailedTestCount(result.getFailedTestCount());
+        testRun.setScreenshotPath(result.getScreenshotPath());
+        testRun.setVersion(state.getVersion());
+        return testRun;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public TestRunPageDto getTestRunPage(TestRunStatus status, String environment, String cursor, Integer size) {
+        int pageSize = Math.min(size == null || size <= 0 ? defaultPageSize : size, maxPageSize);
+
+        LocalDateTime afterStartTime = FIRST_PAGE_START_TIME;
+        UUID afterId = FIRST_PAGE_ID;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+                afterStartTime = LocalDateTime.parse(position[0]);
+                afterId = UUID.fromString(position[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+
+        // Fetch one extra row to find out whether there is a next page without a COUNT query
+        Pageable limit = PageRequest.ofSize(pageSize + 1);
+        List<TestRunListItemDto> rows;
+        if (status != null && environment != null) {
+            rows = testRunRepository.findPageByStatusAndEnvironment(status, environment, afterStartTime, afterId, limit);
+        } else if (status != null) {
+            rows = testRunRepository.findPageByStatus(status, afterStartTime, afterId, limit);
+        } else if (environment != null) {
+            rows = testRunRepository.findPageByEnvironment(environment, afterStartTime, afterId, limit);
+        } else {
+            rows = testRunRepository.findPage(afterStartTime, afterId, limit);
+        }
+
+        String nextCursor = null;
+        if (rows.size() > pageSize) {
+            rows = rows.subList(0, pageSize);
+            TestRunListItemDto last = rows.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getStartTime(), last.getId());
+        }
+        LOGGER.info("Fetched page of {} TestRuns (status '{}', environment '{}')", rows.size(), status, environment);
+        return new TestRunPageDto(List.copyOf(rows), nextCursor);
+    }
+
+    // The cursor is the (startTime, id) of the last row served, Base64url-encoded so clients treat it as opaque
+    private static String encodeCursor(LocalDateTime startTime, UUID id) {
+        String position = startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
     }
 
 }
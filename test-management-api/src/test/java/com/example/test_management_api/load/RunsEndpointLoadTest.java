@@ -0,0 +1,129 @@
+package com.example.test_management_api.load;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares throughput and latency of the /api/runs endpoints between API instances started in
+ * different thread modes. Not part of the regular build: it only runs when loadtest.urls is set.
+ *
+ * Start one instance with API_VIRTUAL_THREADS=false and one with API_VIRTUAL_THREADS=true against the
+ * same database, then run e.g.
+ * mvn test -Dtest=RunsEndpointLoadTest -Dloadtest.urls=platform=http://localhost:8080,virtual=http://localhost:8082
+ * Optional: -Dloadtest.concurrency=400 -Dloadtest.seconds=30
+ */
+@EnabledIfSystemProperty(named = "loadtest.urls", matches = ".+")
+class RunsEndpointLoadTest {
+
+    private static final Pattern RUN_ID = Pattern.compile("\"runId\"\\s*:\\s*\"([0-9a-f-]{36})\"");
+
+    private final int concurrency = Integer.getInteger("loadtest.concurrency", 400);
+    private final int seconds = Integer.getInteger("loadtest.seconds", 30);
+    private final HttpClient client = HttpClient.newBuilder()
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void compareThreadModes() throws Exception {
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (String target : System.getProperty("loadtest.urls").split(",")) {
+            String[] nameAndUrl = target.split("=", 2);
+            String baseUrl = nameAndUrl[1].replaceAll("/$", "");
+            run(baseUrl, 5); // warm-up: JIT, connection pools, run cache
+            results.put(nameAndUrl[0], run(baseUrl, seconds));
+        }
+
+        System.out.printf("[LOAD] %d concurrent clients, %d s per mode%n", concurrency, seconds);
+        System.out.printf("[LOAD] %-10s %10s %10s %10s %10s %8s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms", "errors");
+        results.forEach((mode, result) -> System.out.printf("[LOAD] %-10s %10.0f %10.1f %10.1f %10.1f %8d%n",
+                mode, result.throughput(), result.percentileMs(50), result.percentileMs(99), result.percentileMs(100),
+                result.errors()));
+        results.forEach((mode, result) -> assertEquals(0, result.errors(), "Failed requests in mode " + mode));
+    }
+
+    // Each client loops over the list, summary and single-run endpoints until the time is up
+    private Result run(String baseUrl, int durationSeconds) throws Exception {
+        List<URI> uris = new ArrayList<>(List.of(URI.create(baseUrl + "/api/runs"),
+                URI.create(baseUrl + "/api/runs/summary")));
+        Matcher matcher = RUN_ID.matcher(send(uris.get(0)).body());
+        while (matcher.find() && uris.size() < 12) {
+            uris.add(URI.create(baseUrl + "/api/runs/" + UUID.fromString(matcher.group(1))));
+        }
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(durationSeconds).toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < concurrency; c++) {
+                int offset = c;
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    for (int i = offset; System.nanoTime() < deadline; i++) {
+                        long sent = System.nanoTime();
+                        try {
+                            if (send(uris.get(i % uris.size())).statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+        }
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+
+        long[] all = new long[0];
+        for (Future<long[]> client : clients) {
+            long[] latencies = client.get();
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length);
+            System.arraycopy(latencies, 0, all, offset, latencies.length);
+        }
+        Arrays.sort(all);
+        return new Result(all, all.length / elapsedSeconds, errors.get());
+    }
+
+    private HttpResponse<String> send(URI uri) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private record Result(long[] sortedLatenciesNs, double throughput, long errors) {
+        double percentileMs(int percentile) {
+            if (sortedLatenciesNs.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatenciesNs.length) - 1;
+            return sortedLatenciesNs[Math.max(0, index)] / 1e6;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.test_management_api.model;
+
+import com.example.test_management_api.model.converter.DurationSketchConverter;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DurationSketchTest {
+
+    // Durations and the value their bucket reports; DurationHistogramTest in the worker pins the same table
+    private static final long[][] BUCKETS = {
+            {0, 0}, {127, 127}, {128, 129}, {255, 255}, {256, 258}, {1_000, 1_004}, {60_000, 60_160}
+    };
+
+    @Test
+    void whenSingleDuration_shouldReportItsBucketsValueLikeTheWorker() {
+        for (long[] bucket : BUCKETS) {
+            assertEquals(bucket[1], DurationSketch.of(List.of(bucket[0])).percentile(0.5), "duration " + bucket[0]);
+        }
+    }
+
+    @Test
+    void whenDurationsSketched_shouldReadPercentilesWithinOnePercent() {
+        List<Long> durations = new ArrayList<>();
+        for (long ms = 1; ms <= 10_000; ms++) {
+            durations.add(ms);
+        }
+
+        DurationSketch sketch = DurationSketch.of(durations);
+
+        assertEquals(10_000, sketch.count());
+        assertEquals(5_000, sketch.percentile(0.50), 5_000 * 0.01);
+        assertEquals(9_500, sketch.percentile(0.95), 9_500 * 0.01);
+        assertEquals(1L, sketch.percentile(0.0001));
+    }
+
+    @Test
+    void whenSketchesMerged_shouldEqualTheSketchOfAllDurations() {
+        Random random = new Random(7);
+        List<Long> monday = new ArrayList<>();
+        List<Long> tuesday = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            monday.add((long) random.nextInt(60_000));
+            tuesday.add((long) random.nextInt(600_000));
+        }
+        List<Long> both = new ArrayList<>(monday);
+        both.addAll(tuesday);
+
+        DurationSketch merged = DurationSketch.of(monday).merge(DurationSketch.of(tuesday));
+
+        assertEquals(DurationSketch.of(both), merged);
+        assertEquals(DurationSketch.of(both).percentile(0.95), merged.percentile(0.95));
+        assertEquals(merged, DurationSketch.EMPTY.merge(merged));
+    }
+
+    @Test
+    void whenStored_shouldRestoreTheSameSketchFromAFewBytes() {
+        DurationSketchConverter converter = new DurationSketchConverter();
+        List<Long> durations = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            durations.add(200L + i % 50);
+        }
+        DurationSketch sketch = DurationSketch.of(durations);
+
+        byte[] column = converter.convertToDatabaseColumn(sketch);
+
+        assertTrue(column.length < 200);
+        assertEquals(sketch, converter.convertToEntityAttribute(column));
+        assertEquals(DurationSketch.EMPTY, converter.convertToEntityAttribute(null));
+        assertNull(DurationSketch.EMPTY.percentile(0.5));
+    }
+}
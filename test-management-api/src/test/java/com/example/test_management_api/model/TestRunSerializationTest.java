@@ -28,8 +28,6 @@ public class TestRunSerializationTest {
         testRun.setStartTime(LocalDateTime.now());
         testRun.setEndTime(LocalDateTime.now());
         testRun.setReportUrl("http://example.com/report");
-        testRun.setErrorMessage("Test error message");
-        testRun.setErrorDetails("Detailed error information");
         testRun.setFailedTestCount(5);
 
         // Serialize to JSON
@@ -40,8 +38,9 @@ public class TestRunSerializationTest {
         
         // Also check other fields to ensure they're serialized correctly
         assertThat(result).extractingJsonPathStringValue("$.status").isEqualTo("COMPLETED");
-        assertThat(result).extractingJsonPathStringValue("$.errorMessage").isEqualTo("Test error message");
-        assertThat(result).extractingJsonPathStringValue("$.errorDetails").isEqualTo("Detailed error information");
+        // Error text is served by GET /api/runs/{id}/failure, not inlined in the run
+        assertThat(result).doesNotHaveJsonPath("$.errorMessage");
+        assertThat(result).doesNotHaveJsonPath("$.errorDetails");
         
         // Print the JSON for debugging
         System.out.println("[DEBUG_LOG] Serialized JSON: " + result.getJson());
@@ -0,0 +1,44 @@
+package com.example.test_management_api.model.converter;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedTextConverterTest {
+
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    @Test
+    void whenTextIsSmall_shouldStoreItUncompressed() {
+        String message = "UI test FAILED: element not found";
+
+        byte[] column = converter.convertToDatabaseColumn(message);
+
+        assertEquals(message.getBytes(StandardCharsets.UTF_8).length + 1, column.length);
+        assertEquals(message, converter.convertToEntityAttribute(column));
+    }
+
+    @Test
+    void whenTextIsLarge_shouldDeflateItAndRestoreItExactly() {
+        StringBuilder stackTrace = new StringBuilder("java.lang.AssertionError: expected 200 but was 500\n");
+        for (int i = 0; i < 500; i++) {
+            stackTrace.append("\tat com.example.test_runner_worker.tests.ApiTests.step").append(i).append("(ApiTests.java:61)\n");
+        }
+        String details = stackTrace.toString();
+
+        byte[] column = converter.convertToDatabaseColumn(details);
+
+        assertTrue(column.length < details.length() / 4);
+        assertEquals(details, converter.convertToEntityAttribute(column));
+    }
+
+    @Test
+    void whenTextIsNull_shouldStoreNull() {
+        assertNull(converter.convertToDatabaseColumn(null));
+        assertNull(converter.convertToEntityAttribute(null));
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.model.JobOutboxEntry;
+import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.repository.JobOutboxRepository;
+import com.example.test_management_api.repository.TestRunRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class JobOutboxRelayTest {
+
+    @Mock
+    private JobOutboxRepository jobOutboxRepository;
+
+    @Mock
+    private TestRunRepository testRunRepository;
+
+    @Mock
+    private RabbitMQProducer rabbitMQProducer;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private JobOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        given(transactionTemplate.execute(any()))
+                .willAnswer(invocation -> ((TransactionCallback<?>) invocation.getArgument(0)).doInTransaction(null));
+        willAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).given(transactionTemplate).executeWithoutResult(any());
+        meterRegistry = new SimpleMeterRegistry();
+        relay = new JobOutboxRelay(jobOutboxRepository, testRunRepository, rabbitMQProducer, transactionTemplate,
+                meterRegistry, 10, 60000);
+    }
+
+    @Test
+    void whenJobNotConfirmed_shouldReleaseItsRowAndDeleteTheRest() {
+        TestRun confirmed = run();
+        TestRun rejected = run();
+        JobOutboxEntry confirmedEntry = entry(confirmed.getId(), LocalDateTime.now().minusMinutes(1));
+        JobOutboxEntry rejectedEntry = entry(rejected.getId(), LocalDateTime.now().minusMinutes(2));
+        given(jobOutboxRepository.lockOldestUnclaimed(any(), eq(10))).willReturn(List.of(rejectedEntry, confirmedEntry));
+        given(testRunRepository.findAllById(any())).willReturn(List.of(rejected, confirmed));
+        given(rabbitMQProducer.sendTestRunJobs(anyList())).willReturn(Map.of(rejected.getId(), "Broker rejected job"));
+
+        given(jobOutboxRepository.findOldestCreatedAt()).willReturn(rejectedEntry.getCreatedAt());
+
+        relay.relay();
+
+        // Both rows were claimed before publishing, without keeping them locked
+        assertNotNull(confirmedEntry.getClaimedUntil());
+        assertNotNull(rejectedEntry.getClaimedUntil());
+        verify(jobOutboxRepository).deleteAllInBatch(
+                argThat((List<JobOutboxEntry> entries) -> entries != null && entries.equals(List.of(confirmedEntry))));
+        verify(jobOutboxRepository).releaseClaims(List.of(rejectedEntry.getId()));
+        assertTrue(meterRegistry.get("outbox.relay.lag").gauge().value() >= 120);
+    }
+
+    @Test
+    void whenPublishingNow_shouldNotReportRowsClaimedByTheRelayAsFailures() {
+        TestRun mine = run();
+        UUID claimedElsewhere = UUID.randomUUID();
+        given(jobOutboxRepository.lockUnclaimedByRunIds(any(), any()))
+                .willReturn(List.of(entry(mine.getId(), LocalDateTime.now())));
+        given(testRunRepository.findAllById(any())).willReturn(List.of(mine));
+        given(rabbitMQProducer.sendTestRunJobs(anyList())).willReturn(Map.of());
+
+        Map<UUID, String> failures = relay.publishNow(List.of(mine.getId(), claimedElsewhere));
+
+        assertTrue(failures.isEmpty());
+    }
+
+    private static JobOutboxEntry entry(UUID runId, LocalDateTime createdAt) {
+        JobOutboxEntry entry = new JobOutboxEntry(runId, createdAt);
+        entry.setId(UUID.randomUUID());
+        return entry;
+    }
+
+    private static TestRun run() {
+        TestRun testRun = new TestRun();
+        testRun.setId(UUID.randomUUID());
+        return testRun;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.dtos.RunSummaryDto;
+import com.example.test_management_api.event.TestRunChangedEvent;
+import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import com.example.test_management_api.repository.TestRunRepository;
+import com.example.test_management_api.repository.TestRunRepository.StatusEnvironmentCount;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class RunSummaryServiceTest {
+
+    @Mock
+    private TestRunRepository testRunRepository;
+
+    @InjectMocks
+    private RunSummaryService runSummaryService;
+
+    @Test
+    void whenRebuilt_shouldSeedCountersFromGroupBy() {
+        given(testRunRepository.countByStatusAndEnvironment()).willReturn(List.of(
+                row(TestRunStatus.COMPLETED, "QA", 5),
+                row(TestRunStatus.FAILED, "QA", 2),
+                row(TestRunStatus.COMPLETED, null, 1)));
+
+        runSummaryService.rebuild();
+        RunSummaryDto summary = runSummaryService.getSummary();
+
+        assertEquals(8, summary.getTotal());
+        assertEquals(6, summary.getByStatus().get(TestRunStatus.COMPLETED));
+        assertEquals(2, summary.getByEnvironment().get("QA").get(TestRunStatus.FAILED));
+        assertEquals(1, summary.getByEnvironment().get(RunSummaryService.UNKNOWN_ENVIRONMENT).get(TestRunStatus.COMPLETED));
+    }
+
+    @Test
+    void whenRunCreatedAndFinished_shouldMoveItBetweenStatuses() {
+        TestRun testRun = new TestRun();
+        testRun.setId(UUID.randomUUID());
+        testRun.setEnvironment("Staging");
+        testRun.setStatus(TestRunStatus.SCHEDULED);
+
+        runSummaryService.onTestRunChanged(new TestRunChangedEvent(testRun, null));
+        testRun.setStatus(TestRunStatus.FAILED);
+        runSummaryService.onTestRunChanged(new TestRunChangedEvent(testRun, TestRunStatus.SCHEDULED));
+        // A repeated update with the same status must not count twice
+        runSummaryService.onTestRunChanged(new TestRunChangedEvent(testRun, TestRunStatus.FAILED));
+
+        RunSummaryDto summary = runSummaryService.getSummary();
+        assertEquals(1, summary.getTotal());
+        assertEquals(0, summary.getByStatus().get(TestRunStatus.SCHEDULED));
+        assertEquals(1, summary.getByStatus().get(TestRunStatus.FAILED));
+        assertEquals(1, summary.getByEnvironment().get("Staging").get(TestRunStatus.FAILED));
+    }
+
+    @Test
+    void whenRunChangesDuringRebuild_shouldKeepTheChange() {
+        TestRun testRun = new TestRun();
+        testRun.setId(UUID.randomUUID());
+        testRun.setEnvironment("QA");
+        testRun.setStatus(TestRunStatus.COMPLETED);
+        // The run finishes after the GROUP BY read its snapshot but before the counters are swapped
+        given(testRunRepository.countByStatusAndEnvironment()).willAnswer(invocation -> {
+            runSummaryService.onTestRunChanged(new TestRunChangedEvent(testRun, TestRunStatus.RUNNING));
+            return List.of(row(TestRunStatus.RUNNING, "QA", 1), row(TestRunStatus.COMPLETED, "QA", 4));
+        });
+
+        runSummaryService.rebuild();
+        RunSummaryDto summary = runSummaryService.getSummary();
+
+        assertEquals(5, summary.getTotal());
+        assertEquals(0, summary.getByStatus().get(TestRunStatus.RUNNING));
+        assertEquals(5, summary.getByEnvironment().get("QA").get(TestRunStatus.COMPLETED));
+    }
+
+    private static StatusEnvironmentCount row(TestRunStatus status, String environment, long total) {
+        return new StatusEnvironmentCount() {
+            @Override
+            public TestRunStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public String getEnvironment() {
+                return environment;
+            }
+
+            @Override
+            public Long getTotal() {
+                return total;
+            }
+        };
+    }
+}
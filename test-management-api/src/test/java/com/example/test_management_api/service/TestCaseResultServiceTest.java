@@ -0,0 +1,143 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.dtos.TestCaseBatchResultDto;
+import com.example.test_management_api.dtos.TestCaseResultDto;
+import com.example.test_management_api.dtos.TestTrendDto;
+import com.example.test_management_api.model.DurationSketch;
+import com.example.test_management_api.model.TestCaseResult;
+import com.example.test_management_api.model.TestDailyRollup;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import com.example.test_management_api.repository.TestCaseResultRepository;
+import com.example.test_management_api.repository.TestDailyRollupRepository;
+import com.example.test_management_api.repository.TestRunRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TestCaseResultServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+
+    @Mock
+    private TestRunRepository testRunRepository;
+
+    @Mock
+    private TestCaseResultRepository testCaseResultRepository;
+
+    @Mock
+    private TestDailyRollupRepository testDailyRollupRepository;
+
+    @InjectMocks
+    private TestCaseResultService testCaseResultService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(testCaseResultService, "maxBatchSize", 10);
+        ReflectionTestUtils.setField(testCaseResultService, "maxTrendDays", 365);
+    }
+
+    @Test
+    void whenBatchIngested_shouldSkipStoredTestsAndMergeTheRestIntoTheDaysRollups() {
+        UUID runId = UUID.randomUUID();
+        TestDailyRollup checkoutSoFar = rollup("checkout", DAY, 3, 0, List.of(300L, 300L, 300L));
+        given(testRunRepository.existsById(runId)).willReturn(true);
+        given(testCaseResultRepository.findStoredTestNames(eq(runId), anyCollection())).willReturn(List.of("login"));
+        given(testDailyRollupRepository.findForUpdate(anyCollection(), anyCollection())).willReturn(List.of(checkoutSoFar));
+
+        Optional<TestCaseBatchResultDto> outcome = testCaseResultService.ingest(runId, List.of(
+                result("login", TestRunStatus.COMPLETED, 100L),
+                result("search", TestRunStatus.COMPLETED, 200L),
+                result("search", TestRunStatus.FAILED, 900L),
+                result("checkout", TestRunStatus.TIMED_OUT, 500L)));
+
+        assertEquals(new TestCaseBatchResultDto(2, 2), outcome.orElseThrow());
+        // The first result of a test counts, and only tests the run did not have yet are stored
+        verify(testCaseResultRepository).saveAll(argThat((List<TestCaseResult> stored) -> stored != null && stored.size() == 2
+                && stored.get(0).getTestName().equals("search") && stored.get(0).getStatus() == TestRunStatus.COMPLETED
+                && stored.get(1).getTestName().equals("checkout")));
+        verify(testDailyRollupRepository).saveAll(argThat((List<TestDailyRollup> rollups) -> rollups != null && rollups.size() == 2
+                && rollups.contains(checkoutSoFar) && rollups.stream().anyMatch(r -> r.getTestName().equals("search") && r.isNew())));
+        assertEquals(4, checkoutSoFar.getResults());
+        assertEquals(1, checkoutSoFar.getFailures());
+        assertEquals(1_400, checkoutSoFar.getDurationSumMs());
+        assertEquals(500, checkoutSoFar.getDurationMaxMs());
+        assertEquals(DurationSketch.of(List.of(300L, 300L, 300L, 500L)), checkoutSoFar.getDurationSketch());
+    }
+
+    @Test
+    void whenRunUnknown_shouldStoreNothing() {
+        UUID runId = UUID.randomUUID();
+        given(testRunRepository.existsById(runId)).willReturn(false);
+
+        assertTrue(testCaseResultService.ingest(runId, List.of(result("login", TestRunStatus.COMPLETED, 100L))).isEmpty());
+        verify(testCaseResultRepository, never()).saveAll(any());
+        verify(testDailyRollupRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void whenResultHasNoTestName_shouldRejectTheBatch() {
+        assertThrows(IllegalArgumentException.class, () -> testCaseResultService.ingest(UUID.randomUUID(),
+                List.of(result(null, TestRunStatus.COMPLETED, 100L))));
+        verify(testCaseResultRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void whenTrendRequested_shouldSumUpTheRollupsOfTheDays() {
+        given(testDailyRollupRepository.findTrend("login", LocalDate.now().minusDays(89))).willReturn(List.of(
+                rollup("login", DAY, 4, 1, List.of(100L, 100L, 100L, 1_000L)),
+                rollup("login", DAY.plusDays(1), 1, 0, List.of(200L))));
+
+        TestTrendDto trend = testCaseResultService.getTrend("login", 90);
+
+        assertEquals(5, trend.getResults());
+        assertEquals(1, trend.getFailures());
+        assertEquals(0.8, trend.getPassRate(), 1e-9);
+        assertEquals(100L, trend.getP50DurationMs());
+        assertEquals(2, trend.getDaily().size());
+        assertEquals(325L, trend.getDaily().get(0).getAvgDurationMs());
+        assertEquals(1_000L, trend.getDaily().get(0).getMaxDurationMs());
+        assertEquals(0.75, trend.getDaily().get(0).getPassRate(), 1e-9);
+    }
+
+    @Test
+    void whenTrendLongerThanMaximum_shouldRejectIt() {
+        assertThrows(IllegalArgumentException.class, () -> testCaseResultService.getTrend("login", 366));
+        verify(testDailyRollupRepository, never()).findTrend(any(), any());
+    }
+
+    private static TestCaseResultDto result(String testName, TestRunStatus status, Long durationMs) {
+        LocalDateTime start = DAY.atTime(12, 0);
+        return new TestCaseResultDto(testName, status, "UI", start, start.plusNanos(durationMs * 1_000_000), durationMs, null);
+    }
+
+    private static TestDailyRollup rollup(String testName, LocalDate day, long results, long failures, List<Long> durations) {
+        TestDailyRollup rollup = new TestDailyRollup(testName, day);
+        rollup.setResults(results);
+        rollup.setFailures(failures);
+        rollup.setDurationSumMs(durations.stream().mapToLong(Long::longValue).sum());
+        rollup.setDurationMaxMs(durations.stream().mapToLong(Long::longValue).max().orElse(0));
+        rollup.setDurationSketch(DurationSketch.of(durations));
+        rollup.setNewRollup(false);
+        return rollup;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.event.TestRunChangedEvent;
+import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestRunCacheTest {
+
+    private final TestRunCache testRunCache = new TestRunCache(100, 60_000, new SimpleMeterRegistry());
+
+    @Test
+    void whenRunCached_shouldLoadOnceUntilItChanges() {
+        TestRun testRun = new TestRun();
+        testRun.setId(UUID.randomUUID());
+        testRun.setStatus(TestRunStatus.RUNNING);
+        AtomicInteger loads = new AtomicInteger();
+
+        testRunCache.get(testRun.getId(), id -> { loads.incrementAndGet(); return Optional.of(testRun); });
+        testRunCache.get(testRun.getId(), id -> { loads.incrementAndGet(); return Optional.of(testRun); });
+        assertEquals(1, loads.get());
+
+        testRunCache.onTestRunChanged(new TestRunChangedEvent(testRun, TestRunStatus.SCHEDULED));
+        testRunCache.get(testRun.getId(), id -> { loads.incrementAndGet(); return Optional.of(testRun); });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void whenRunMissing_shouldNotCacheTheMiss() {
+        UUID id = UUID.randomUUID();
+        AtomicInteger loads = new AtomicInteger();
+
+        assertTrue(testRunCache.get(id, key -> { loads.incrementAndGet(); return Optional.empty(); }).isEmpty());
+        testRunCache.get(id, key -> { loads.incrementAndGet(); return Optional.empty(); });
+
+        assertEquals(2, loads.get());
+    }
+}
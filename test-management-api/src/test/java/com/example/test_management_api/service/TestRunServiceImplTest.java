@@ -1,8 +1,20 @@
 package com.example.test_management_api.service;
+import com.example.test_management_api.dtos.CreateTestRunRequestDto;
+import com.example.test_management_api.dtos.TestRunListItemDto;
+import com.example.test_management_api.event.TestRunChangedEvent;
+import com.example.test_management_api.dtos.TestRunPageDto;
+import com.example.test_management_api.dtos.TestRunProgressDto;
+import com.example.test_management_api.dtos.TestRunResultsDto;
+import com.example.test_management_api.dtos.TestRunUpdateDto;
 import com.example.test_management_api.service.impl.TestRunServiceImpl;
+import com.example.test_management_api.model.JobOutboxEntry;
 import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.model.TestRunFailure;
 import com.example.test_management_api.model.enums.TestRunStatus;
+import com.example.test_management_api.repository.JobOutboxRepository;
+import com.example.test_management_api.repository.TestRunFailureRepository;
 import com.example.test_management_api.repository.TestRunRepository;
+import com.example.test_management_api.repository.TestRunResultWriter;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -10,15 +22,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given; // BDDMockito style for given/when/then
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 @Slf4j
@@ -28,111 +50,262 @@ class TestRunServiceImplTest {
     @Mock
     private TestRunRepository testRunRepository;
 
+    @Mock
+    private JobOutboxRepository jobOutboxRepository;
+
+    @Mock
+    private TestRunCache testRunCache;
+
+    @Mock
+    private TestRunResultWriter testRunResultWriter;
+
+    @Mock
+    private TestRunFailureRepository testRunFailureRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @InjectMocks // Creates a real instance of TestRunServiceImpl and injects the mocks (@Mock) into it
     private TestRunServiceImpl testRunService;
 
 
-    private TestRun run1_failed_qa;
     private TestRun run2_completed_qa;
-    private TestRun run3_completed_staging;
 
     @BeforeEach
     void setUp() {
-        // Create some sample TestRun objects for different scenarios
-        run1_failed_qa = new TestRun();
-        run1_failed_qa.setId(UUID.randomUUID());
-        run1_failed_qa.setStatus(TestRunStatus.FAILED);
-        run1_failed_qa.setEnvironment("QA");
-
+        // Create a sample TestRun for the scenarios below
         run2_completed_qa = new TestRun();
         run2_completed_qa.setId(UUID.randomUUID());
         run2_completed_qa.setStatus(TestRunStatus.COMPLETED);
         run2_completed_qa.setEnvironment("QA");
 
-        run3_completed_staging = new TestRun();
-        run3_completed_staging.setId(UUID.randomUUID());
-        run3_completed_staging.setStatus(TestRunStatus.COMPLETED);
-        run3_completed_staging.setEnvironment("Staging");
+        // @Value fields are not populated outside a Spring context
+        ReflectionTestUtils.setField(testRunService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(testRunService, "maxPageSize", 5);
+        ReflectionTestUtils.setField(testRunService, "maxBatchSize", 3);
     }
 
 
     @Test
-    void whenFindByStatusOnly_shouldCallRepositoryFindByStatus() {
-        TestRunStatus filterStatus = TestRunStatus.FAILED;
-        String filterEnvironment = null;
-        List<TestRun> expectedRuns = List.of(run1_failed_qa);
+    void whenMoreRowsThanPageSize_shouldReturnCursorThatContinuesAfterLastRow() {
+        LocalDateTime now = LocalDateTime.now();
+        TestRunListItemDto newest = listItem(now);
+        TestRunListItemDto middle = listItem(now.minusMinutes(1));
+        TestRunListItemDto oldest = listItem(now.minusMinutes(2));
+
+        // The service asks for one row more than the page size to detect the next page
+        given(testRunRepository.findPage(any(), any(), argThat(p -> p != null && p.getPageSize() == 3)))
+                .willReturn(List.of(newest, middle, oldest));
+
+        TestRunPageDto firstPage = testRunService.getTestRunPage(null, null, null, null);
+
+        assertEquals(2, firstPage.getItems().size());
+        assertEquals(newest.getId(), firstPage.getItems().get(0).getId());
+        assertNotNull(firstPage.getNextCursor());
 
-        given(testRunRepository.findByStatus(filterStatus)).willReturn(expectedRuns);
+        given(testRunRepository.findPage(eq(middle.getStartTime()), eq(middle.getId()), any()))
+                .willReturn(List.of(oldest));
 
-        List<TestRun> actualRuns = testRunService.getAllTestsByCriteria(filterStatus, filterEnvironment);
+        TestRunPageDto secondPage = testRunService.getTestRunPage(null, null, firstPage.getNextCursor(), null);
 
-        assertNotNull(actualRuns);
-        assertEquals(1, actualRuns.size());
-        assertEquals(run1_failed_qa.getId(), actualRuns.get(0).getId());
-        assertEquals(filterStatus, actualRuns.get(0).getStatus());
+        assertEquals(1, secondPage.getItems().size());
+        assertEquals(oldest.getId(), secondPage.getItems().get(0).getId());
+        assertNull(secondPage.getNextCursor());
+        verify(testRunRepository, never()).findAll();
     }
 
     @Test
-    void whenFindByEnvironmentOnly_shouldCallRepositoryFindByEnvironment(){
-        TestRunStatus status=null;
-        String environment="QA";
-        List<TestRun> expectedRuns=List.of(run1_failed_qa,run2_completed_qa);
-        given(testRunRepository.findByEnvironment(environment)).willReturn(expectedRuns);
-        List<TestRun> actualRuns=testRunService.getAllTestsByCriteria(status,environment);
-        assertNotNull(actualRuns);
-        assertEquals(2,actualRuns.size());
-        assertEquals(run1_failed_qa.getId(),actualRuns.get(0).getId());
-        assertEquals(run2_completed_qa.getId(),actualRuns.get(1).getId());
+    void whenPageSizeAboveMaximum_shouldCapPageSize() {
+        given(testRunRepository.findPageByStatusAndEnvironment(eq(TestRunStatus.FAILED), eq("QA"), any(), any(), any()))
+                .willReturn(List.of());
+
+        testRunService.getTestRunPage(TestRunStatus.FAILED, "QA", null, 10_000);
+
+        verify(testRunRepository).findPageByStatusAndEnvironment(eq(TestRunStatus.FAILED), eq("QA"), any(), any(),
+                argThat((Pageable p) -> p != null && p.getPageSize() == 6));
     }
 
     @Test
-    void whenFindByStatusAndEnvironment_shouldCallRepositoryFindByStatusAndEnvironment(){
-        //step 1
-        TestRunStatus status = TestRunStatus.COMPLETED;
-        String environment="QA";
-        List<TestRun> expectedRuns=List.of(run2_completed_qa);
-
-        given(testRunRepository.findByStatusAndEnvironment(status,environment)).willReturn(expectedRuns);
-        //step 2
-
-        List<TestRun> actualRuns = testRunService.getAllTestsByCriteria(TestRunStatus.COMPLETED, "QA");
-
-        //step 3
-        assertNotNull(actualRuns);
-        assertEquals(1, actualRuns.size());
-        assertEquals(run2_completed_qa.getId(), actualRuns.get(0).getId());
-        verify(testRunRepository).findByStatusAndEnvironment(TestRunStatus.COMPLETED, "QA"); // Check this WAS called
-        verify(testRunRepository, never()).findByStatus(any());
-        verify(testRunRepository, never()).findByEnvironment(any());
-        verify(testRunRepository, never()).findAll();
+    void whenCursorIsMalformed_shouldRejectIt() {
+        assertThrows(IllegalArgumentException.class,
+                () -> testRunService.getTestRunPage(null, null, "not-a-cursor", null));
+    }
+
+    @Test
+    void whenBatchCreated_shouldSaveAllRunsInOneCallAndPublishEachChange() {
+        List<CreateTestRunRequestDto> requests = List.of(
+                new CreateTestRunRequestDto("QA", "smoke"),
+                new CreateTestRunRequestDto("Staging", "regression"));
+        given(testRunRepository.saveAll(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+        List<TestRun> savedRuns = testRunService.createTestRuns(requests);
+
+        assertEquals(2, savedRuns.size());
+        assertEquals("QA", savedRuns.get(0).getEnvironment());
+        assertEquals("regression", savedRuns.get(1).getTags());
+        assertTrue(savedRuns.stream().allMatch(r -> r.getId() != null && r.getStatus() == TestRunStatus.SCHEDULED));
+        verify(testRunRepository).saveAll(any());
+        verify(testRunRepository, never()).save(any());
+        // Every run gets its outbox row in the same transaction
+        verify(jobOutboxRepository).saveAll(argThat((List<JobOutboxEntry> entries) -> entries != null && entries.size() == 2
+                && entries.get(0).getRunId().equals(savedRuns.get(0).getId())));
+        verify(eventPublisher, times(2)).publishEvent(any(TestRunChangedEvent.class));
+    }
+
+    @Test
+    void whenTimeoutRequested_shouldSetDeadlineRelativeToStartTime() {
+        given(testRunRepository.saveAll(any())).willAnswer(invocation -> invocation.getArgument(0));
+
+        List<TestRun> savedRuns = testRunService.createTestRuns(List.of(
+                new CreateTestRunRequestDto("QA", "smoke", 30), new CreateTestRunRequestDto("QA", "smoke")));
+
+        assertEquals(savedRuns.get(0).getStartTime().plusMinutes(30), savedRuns.get(0).getDeadline());
+        assertNull(savedRuns.get(1).getDeadline());
     }
 
+    @Test
+    void whenProgressReported_shouldMarkRunRunningAndPublishTheChange() {
+        TestRun scheduled = new TestRun();
+        scheduled.setId(UUID.randomUUID());
+        scheduled.setStatus(TestRunStatus.SCHEDULED);
+        given(testRunRepository.findById(scheduled.getId())).willReturn(Optional.of(scheduled));
+        given(testRunRepository.save(any(TestRun.class))).willAnswer(invocation -> invocation.getArgument(0));
+
+        boolean applied = testRunService.updateTestRunProgress(scheduled.getId(), new TestRunProgressDto(10, 4, 1));
+
+        assertTrue(applied);
+        assertEquals(TestRunStatus.RUNNING, scheduled.getStatus());
+        assertEquals(4, scheduled.getTestsDone());
+        verify(eventPublisher).publishEvent(argThat((TestRunChangedEvent event) -> event != null
+                && event.getPreviousStatus() == TestRunStatus.SCHEDULED));
+    }
 
     @Test
-    void whenNoFilters_shouldCallRepositoryFindAll() { // Renamed for clarity
-        TestRunStatus filterStatus = null; // No status filter
-        String filterEnvironment = null;   // No environment filter
+    void whenProgressArrivesAfterFinalResult_shouldLeaveRunFinished() {
+        given(testRunRepository.findById(run2_completed_qa.getId())).willReturn(Optional.of(run2_completed_qa));
+
+        boolean applied = testRunService.updateTestRunProgress(run2_completed_qa.getId(), new TestRunProgressDto(10, 9, 0));
+
+        assertFalse(applied);
+        assertEquals(TestRunStatus.COMPLETED, run2_completed_qa.getStatus());
+        verify(testRunRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
 
-        List<TestRun> expectedRuns = List.of(run1_failed_qa, run2_completed_qa, run3_completed_staging);
+    @Test
+    void whenBatchLargerThanMaximum_shouldRejectIt() {
+        List<CreateTestRunRequestDto> requests = List.of(new CreateTestRunRequestDto("QA", null),
+                new CreateTestRunRequestDto("QA", null), new CreateTestRunRequestDto("QA", null),
+                new CreateTestRunRequestDto("QA", null));
 
-        given(testRunRepository.findAll()).willReturn(expectedRuns);
+        assertThrows(IllegalArgumentException.class, () -> testRunService.createTestRuns(requests));
+        verify(testRunRepository, never()).saveAll(any());
+    }
 
+    @Test
+    void whenResultsApplied_shouldReportRejectedAndMissingRunsAndPublishOnlyAppliedChanges() {
+        UUID running = UUID.randomUUID();
+        UUID scheduled = UUID.randomUUID();
+        UUID finished = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        Map<UUID, TestRunUpdateDto> results = new LinkedHashMap<>();
+        results.put(running, result(TestRunStatus.FAILED));
+        results.get(running).setErrorMessage("1 test failed");
+        results.put(scheduled, result(TestRunStatus.COMPLETED));
+        results.put(finished, result(TestRunStatus.FAILED));
+        results.put(missing, result(TestRunStatus.COMPLETED));
+        given(testRunResultWriter.applyResults(anyList(), eq(TestRunStatus.RUNNING), any()))
+                .willReturn(new boolean[]{true, false, false, false});
+        given(testRunResultWriter.applyResults(anyList(), eq(TestRunStatus.SCHEDULED), any()))
+                .willReturn(new boolean[]{true, false, false});
+        given(testRunRepository.findStatesByIdIn(results.keySet())).willReturn(List.of(
+                runState(running, TestRunStatus.FAILED, 4L), runState(scheduled, TestRunStatus.COMPLETED, 2L),
+                runState(finished, TestRunStatus.COMPLETED, 5L)));
 
-        List<TestRun> actualRuns = testRunService.getAllTestsByCriteria(filterStatus, filterEnvironment);
+        TestRunResultsDto outcome = testRunService.applyTestRunResults(results);
 
-        assertNotNull(actualRuns);
-        assertEquals(3, actualRuns.size());
-        // Check if the IDs match (order doesn't matter)
-        List<UUID> actualIds = actualRuns.stream().map(TestRun::getId).collect(Collectors.toList());
-        assertTrue(actualIds.contains(run1_failed_qa.getId()));
-        assertTrue(actualIds.contains(run2_completed_qa.getId()));
-        assertTrue(actualIds.contains(run3_completed_staging.getId()));
+        assertEquals(List.of(running, scheduled), outcome.getApplied());
+        assertEquals(List.of(finished), outcome.getRejected());
+        assertEquals(List.of(missing), outcome.getNotFound());
+        // Nothing is read before the UPDATEs; the SCHEDULED pass only gets what the RUNNING pass did not apply
+        verify(testRunResultWriter).applyResults(argThat((List<TestRunResultWriter.RunResult> updates) -> updates != null
+                && updates.size() == 3 && updates.get(0).id().equals(scheduled)), eq(TestRunStatus.SCHEDULED), any());
+        verify(eventPublisher).publishEvent(argThat((TestRunChangedEvent e) -> e != null && e.getTestRun().getId().equals(running)
+                && e.getPreviousStatus() == TestRunStatus.RUNNING && e.getTestRun().getStatus() == TestRunStatus.FAILED));
+        verify(eventPublisher).publishEvent(argThat((TestRunChangedEvent e) -> e != null && e.getTestRun().getId().equals(scheduled)
+                && e.getPreviousStatus() == TestRunStatus.SCHEDULED && e.getTestRun().getStatus() == TestRunStatus.COMPLETED));
+        verify(testRunRepository, never()).save(any());
+        // Only the applied result's error text is stored, in its own table
+        verify(testRunFailureRepository).saveAll(argThat((List<TestRunFailure> failures) -> failures != null
+                && failures.size() == 1 && failures.get(0).getRunId().equals(running)
+                && failures.get(0).getErrorMessage().equals("1 test failed")));
+    }
 
+    @Test
+    void whenResultHasNoStatus_shouldRejectTheRequest() {
+        assertThrows(IllegalArgumentException.class,
+                () -> testRunService.applyTestRunResults(Map.of(UUID.randomUUID(), new TestRunUpdateDto())));
+        verify(testRunResultWriter, never()).applyResults(any(), any(), any());
+    }
+
+    @Test
+    void whenResultArrivesAfterFinalResult_shouldNotOverwriteIt() {
+        UUID id = run2_completed_qa.getId();
+        given(testRunResultWriter.applyResults(anyList(), any(), any())).willReturn(new boolean[]{false});
+        given(testRunRepository.findStatesByIdIn(any())).willReturn(List.of(runState(id, TestRunStatus.COMPLETED, 3L)));
+
+        assertTrue(testRunService.updateTestRunStatus(id, result(TestRunStatus.FAILED)).isEmpty());
+        verify(testRunRepository, never()).save(any());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    private static TestRunUpdateDto result(TestRunStatus status) {
+        TestRunUpdateDto result = new TestRunUpdateDto();
+        result.setStatus(status);
+        return result;
+    }
+
+    private static TestRunRepository.RunState runState(UUID id, TestRunStatus status, Long version) {
+        return new TestRunRepository.RunState() {
+            @Override
+            public UUID getId() {
+                return id;
+            }
+
+            @Override
+            public TestRunStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+
+            @Override
+            public LocalDateTime getStartTime() {
+                return null;
+            }
+
+            @Override
+            public String getEnvironment() {
+                return "QA";
+            }
+
+            @Override
+            public String getTags() {
+                return null;
+            }
+        };
+    }
 
-        verify(testRunRepository).findAll();
-        verify(testRunRepository, never()).findByStatus(any());
-        verify(testRunRepository, never()).findByEnvironment(any());
-        verify(testRunRepository, never()).findByStatusAndEnvironment(any(), any());
+    private TestRunListItemDto listItem(LocalDateTime startTime) {
+        TestRunListItemDto item = new TestRunListItemDto();
+        item.setId(UUID.randomUUID());
+        item.setStatus(TestRunStatus.COMPLETED);
+        item.setStartTime(startTime);
+        item.setEnvironment("QA");
+        return item;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,128 @@
+package com.example.test_management_api.service;
+
+import com.example.test_management_api.event.TestRunChangedEvent;
+import com.example.test_management_api.model.TestRun;
+import com.example.test_management_api.model.enums.TestRunStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestRunStreamServiceTest {
+
+    private final TestRunStreamService streamService = new TestRunStreamService(16, 60_000, 4);
+
+    @AfterEach
+    void shutdown() {
+        streamService.shutdown();
+    }
+
+    @Test
+    void whenOneSubscriberStalls_shouldKeepSendingToTheOthers() throws Exception {
+        CountDownLatch unstall = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(unstall);
+        RecordingEmitter healthy = new RecordingEmitter(null);
+        streamService.subscribe(stalled, null);
+        streamService.subscribe(healthy, null);
+
+        for (int i = 0; i < 3; i++) {
+            streamService.onTestRunChanged(changed());
+        }
+
+        assertTrue(healthy.awaitSent(3));
+        unstall.countDown();
+        assertTrue(stalled.awaitSent(3));
+    }
+
+    @Test
+    void whenSubscriberFallsTooFarBehind_shouldDisconnectIt() throws Exception {
+        CountDownLatch unstall = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(unstall);
+        streamService.subscribe(stalled, null);
+
+        // One event is being sent and four fill the queue, so the sixth finds no room
+        for (int i = 0; i < 6; i++) {
+            streamService.onTestRunChanged(changed());
+        }
+
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        unstall.countDown();
+        assertFalse(stalled.awaitSent(6));
+    }
+
+    @Test
+    void whenSubscriberResumes_shouldReplayOnlyWhatItMissed() throws Exception {
+        RecordingEmitter first = new RecordingEmitter(null);
+        streamService.subscribe(first, null);
+        for (int i = 0; i < 3; i++) {
+            streamService.onTestRunChanged(changed());
+        }
+        assertTrue(first.awaitSent(3));
+
+        RecordingEmitter resumed = new RecordingEmitter(null);
+        streamService.subscribe(resumed, first.lastId.substring(0, first.lastId.lastIndexOf('-')) + "-1");
+
+        assertTrue(resumed.awaitSent(2));
+        assertEquals(first.lastId, resumed.lastId);
+    }
+
+    private static TestRunChangedEvent changed() {
+        TestRun testRun = new TestRun();
+        testRun.setId(UUID.randomUUID());
+        testRun.setStatus(TestRunStatus.RUNNING);
+        return new TestRunChangedEvent(testRun, TestRunStatus.SCHEDULED);
+    }
+
+    // Records what would go out to the client; the first send blocks until the latch opens
+    private static class RecordingEmitter extends SseEmitter {
+        private final CountDownLatch stall;
+        private final AtomicInteger sent = new AtomicInteger();
+        private final AtomicBoolean stalledOnce = new AtomicBoolean();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile String lastId;
+
+        RecordingEmitter(CountDownLatch stall) {
+            this.stall = stall;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (stall != null && stalledOnce.compareAndSet(false, true)) {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            builder.build().stream()
+                    .map(data -> data.getData().toString())
+                    .filter(line -> line.startsWith("id:"))
+                    .forEach(line -> lastId = line.substring(3, line.indexOf('\n')));
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        boolean awaitSent(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.get() < count && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            return sent.get() == count;
+        }
+    }
+}
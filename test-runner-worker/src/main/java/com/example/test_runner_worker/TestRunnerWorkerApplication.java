@@ -1,11 +1,11 @@
 package com.example.test_runner_worker;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
-import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
 public class TestRunnerWorkerApplication {
@@ -14,18 +14,13 @@ public class TestRunnerWorkerApplication {
 		SpringApplication.run(TestRunnerWorkerApplication.class, args);
 	}
 
-    @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
-    }
-
     @Bean("testExecutor")
-    public TaskExecutor testExecutor() {
+    public TaskExecutor testExecutor(@Value("${test.parallel-threads:5}") int parallelThreads) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        // The number of concurrent tests will be limited by this pool
-        executor.setCorePoolSize(5);
-        executor.setMaxPoolSize(10);
-        executor.setQueueCapacity(25);
+        // In the "pool" execution mode the number of concurrent tests, across all runs, is limited by this pool.
+        // The queue is unbounded so a large run is queued rather than rejected.
+        executor.setCorePoolSize(parallelThreads);
+        executor.setMaxPoolSize(parallelThreads);
         executor.setThreadNamePrefix("TestExecutor-");
         executor.initialize();
         return executor;
@@ -14,4 +14,14 @@ public @interface Test {
     String name();
     String description() default "";
     String[] tags() default {};
+    // Resource classes the test uses, e.g. "browser" or "http"; it is only started once a permit of each is free
+    String[] resources() default {};
+    // Longest a single attempt may run before it is cancelled and reported TIMED_OUT; 0 uses test.default-timeout-seconds
+    long timeoutSeconds() default 0;
+    // Attempts including the first; 0 uses test.max-retries
+    int maxAttempts() default 0;
+    // Wait before the first retry, doubled for every further one and jittered; -1 uses test.retry.backoff-ms
+    long retryBackoffMs() default -1;
+    // Failures worth retrying, matched anywhere in the cause chain; empty retries all but failed assertions
+    Class<? extends Throwable>[] retryOn() default {};
 }
\ No newline at end of file
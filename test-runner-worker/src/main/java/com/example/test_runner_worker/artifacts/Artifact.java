@@ -0,0 +1,29 @@
+package com.example.test_runner_worker.artifacts;
+
+import java.nio.file.Path;
+
+/**
+ * A stored artifact. Its path is the file on disk (ending in .gz if it is compressed); its URL is the
+ * stable address the reports and the dashboard link to, which never changes for the same content.
+ */
+public record Artifact(String hash, String extension, Path path, String url, boolean compressed) {
+
+    /**
+     * A file derived from this artifact and stored next to it, e.g. a thumbnail (".thumb.png").
+     */
+    public Path derived(String suffix) {
+        return path.resolveSibling(hash + suffix);
+    }
+
+    /**
+     * A relative link to this artifact, or to one of its derived files, from another stored artifact
+     * (every artifact sits two shard directories deep).
+     */
+    public String link(String suffix) {
+        return "../../" + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + suffix;
+    }
+
+    public String link() {
+        return link("." + extension);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.test_runner_worker.artifacts;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Content-addressed storage for screenshots and reports on the shared reports volume.
+ *
+ * An artifact is named by the SHA-256 of its content and stored once, however often it is put:
+ * identical failure screenshots share one file. Files are sharded by the first two bytes of their
+ * hash (artifacts/3f/7a/3f7a...c1.png), so no directory grows past a few hundred entries. Text
+ * artifacts (test.artifacts.compress) are stored gzipped; the dashboard's nginx serves them under
+ * their plain name (gzip_static).
+ *
+ * Artifacts are kept like the reports always were; nothing deletes them. An artifact's URL depends
+ * only on its content, so the report URLs saved with the runs stay valid. Workers sharing the store
+ * need no lock: an artifact is written beside its place and moved in atomically, and two workers
+ * putting the same content at once move identical files there.
+ */
+@Component
+@Slf4j
+public class ArtifactStore {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path root;
+    private final Path staging;
+    private final String urlPrefix;
+    private final Set<String> compressedExtensions;
+
+    public ArtifactStore(@Value("${test.artifacts.directory:reports/artifacts}") String directory,
+                         @Value("${test.artifacts.compress:html,csv,xml,txt,log,json}") String compress) {
+        this.root = Paths.get(directory).toAbsolutePath().normalize();
+        this.staging = root.resolve("staging");
+        // Relative to the working directory, like the report paths the dashboard has always been given
+        this.urlPrefix = directory.replace('\\', '/').replaceAll("/+$", "");
+        this.compressedExtensions = Arrays.stream(compress.split(","))
+                .map(String::trim).filter(extension -> !extension.isEmpty())
+                .map(extension -> extension.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+        try {
+            Files.createDirectories(staging);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the artifact store in " + root, e);
+        }
+        log.info("Artifact store in {}, compressing {}", root, compressedExtensions);
+    }
+
+    /**
+     * A new file to write an artifact into before it is put; on the store's volume, so putting it is a move.
+     */
+    public Path newStagingFile(String extension) {
+        return staging.resolve(UUID.randomUUID() + "." + extension);
+    }
+
+    /**
+     * Stores the content of a file. The file itself is moved into the store or, if the content is
+     * already there, deleted.
+     */
+    public Artifact put(Path source, String extension) throws IOException {
+        String hash = sha256(source);
+        Artifact artifact = artifact(hash, extension.toLowerCase(Locale.ROOT));
+        if (!Files.exists(artifact.path())) {
+            Files.createDirectories(artifact.path().getParent());
+            write(source, artifact);
+        }
+        Files.deleteIfExists(source);
+        return artifact;
+    }
+
+    /**
+     * The stored artifact at a path or URL (with or without its .gz), or null if it is not in the store.
+     */
+    public Artifact find(Path path) {
+        Path file = path.toAbsolutePath().normalize();
+        if (!file.startsWith(root) || file.getParent().startsWith(staging)) {
+            return null;
+        }
+        String name = file.getFileName().toString().replaceAll("\\.gz$", "");
+        int dot = name.indexOf('.');
+        if (dot != 64) {
+            return null;
+        }
+        return artifact(name.substring(0, dot), name.substring(dot + 1));
+    }
+
+    /**
+     * The content of an artifact, uncompressed.
+     */
+    public InputStream open(Artifact artifact) throws IOException {
+        InputStream in = Files.newInputStream(artifact.path());
+        return artifact.compressed() ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+
+    private Artifact artifact(String hash, String extension) {
+        String shard = hash.substring(0, 2) + "/" + hash.substring(2, 4);
+        boolean compressed = compressedExtensions.contains(extension);
+        String name = hash + "." + extension;
+        Path path = root.resolve(shard).resolve(compressed ? name + ".gz" : name);
+        return new Artifact(hash, extension, path, urlPrefix + "/" + shard + "/" + name, compressed);
+    }
+
+    // Written (and compressed) beside the target and moved into place, so no one ever sees half an artifact
+    private void write(Path source, Artifact artifact) throws IOException {
+        Path temporary = artifact.path().resolveSibling(UUID.randomUUID() + ".tmp");
+        try {
+            if (artifact.compressed()) {
+                try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(temporary), BUFFER_SIZE)) {
+                    Files.copy(source, out);
+                }
+            } else {
+                // A rename on the same volume, a copy otherwise
+                Files.move(source, temporary);
+            }
+            try {
+                Files.move(temporary, artifact.path(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, artifact.path(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        try (FileChannel channel = FileChannel.open(file)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.test_runner_worker.config;
+
+import com.example.test_runner_worker.http.RouteLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class HttpClientConfig {
+
+    // The one HTTP client of the worker: results and progress sent to the API, grid status and the API tests
+    // all share its keep-alive connections. The JDK client pools connections per route by itself; the
+    // RouteLimiter bounds how many of them a route may use at once.
+    @Bean
+    public RestTemplate restTemplate(@Value("${http.client.max-per-route:20}") int maxPerRoute,
+                                     @Value("${http.client.connect-timeout-ms:5000}") long connectTimeoutMs,
+                                     @Value("${http.client.read-timeout-ms:30000}") long readTimeoutMs,
+                                     @Value("${http.client.acquire-timeout-ms:10000}") long acquireTimeoutMs,
+                                     MeterRegistry meterRegistry) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+
+        RestTemplate restTemplate = new RestTemplate(requestFactory);
+        restTemplate.getInterceptors().add(
+                new RouteLimiter(maxPerRoute, Duration.ofMillis(acquireTimeoutMs), meterRegistry));
+        return restTemplate;
+    }
+}
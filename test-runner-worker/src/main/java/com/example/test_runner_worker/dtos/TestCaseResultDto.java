@@ -0,0 +1,22 @@
+package com.example.test_runner_worker.dtos;
+
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// This DTO carries one test's result to the API, in batches of a run's results.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseResultDto {
+    private String testName;
+    private TestRunStatus status;
+    private String testType;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long durationMs;
+    private String errorMessage;
+}
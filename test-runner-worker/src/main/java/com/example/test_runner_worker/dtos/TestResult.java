@@ -19,4 +19,6 @@ public class TestResult {
     private LocalDateTime startTime;
     private LocalDateTime endTime;
     private Long durationMs;
+    // What made the test fail, if it caught one; decides whether a retry can help. Never reported.
+    private Throwable failure;
 }
\ No newline at end of file
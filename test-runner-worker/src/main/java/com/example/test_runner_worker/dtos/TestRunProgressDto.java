@@ -0,0 +1,15 @@
+package com.example.test_runner_worker.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// This DTO is sent to the API while a run executes; the API marks the run RUNNING.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestRunProgressDto {
+    private Integer testsTotal;
+    private Integer testsDone;
+    private Integer failedTestCount;
+}
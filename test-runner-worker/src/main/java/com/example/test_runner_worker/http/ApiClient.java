@@ -0,0 +1,116 @@
+package com.example.test_runner_worker.http;
+
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * A small assertion DSL for API tests on the worker's shared HTTP client:
+ * {@code apiClient.get(url).expectStatus(200).expectBody("userId", 1)}.
+ *
+ * A failed expectation throws an AssertionError, so the test reports a failure that is not retried.
+ */
+@Component
+public class ApiClient {
+
+    private final RestClient restClient;
+    private final ObjectMapper objectMapper;
+
+    public ApiClient(RestTemplate restTemplate, ObjectMapper objectMapper) {
+        // Same request factory and RouteLimiter as the RestTemplate, so the same connections
+        this.restClient = RestClient.builder(restTemplate).build();
+        this.objectMapper = objectMapper;
+    }
+
+    public Response get(String url) {
+        return send(HttpMethod.GET, url, null);
+    }
+
+    public Response post(String url, Object body) {
+        return send(HttpMethod.POST, url, body);
+    }
+
+    public Response put(String url, Object body) {
+        return send(HttpMethod.PUT, url, body);
+    }
+
+    public Response patch(String url, Object body) {
+        return send(HttpMethod.PATCH, url, body);
+    }
+
+    public Response delete(String url) {
+        return send(HttpMethod.DELETE, url, null);
+    }
+
+    // Any status is a response to check, not an exception
+    private Response send(HttpMethod method, String url, Object body) {
+        RestClient.RequestBodySpec request = restClient.method(method).uri(url);
+        if (body != null) {
+            request.contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+        return request.exchange((req, res) -> new Response(method + " " + url, res.getStatusCode().value(),
+                new String(res.getBody().readAllBytes(), StandardCharsets.UTF_8)));
+    }
+
+    public final class Response {
+        private final String request;
+        private final int status;
+        private final String body;
+        private JsonNode json;
+
+        private Response(String request, int status, String body) {
+            this.request = request;
+            this.status = status;
+            this.body = body;
+        }
+
+        public int status() {
+            return status;
+        }
+
+        public String body() {
+            return body;
+        }
+
+        public JsonNode json() {
+            if (json == null) {
+                try {
+                    json = objectMapper.readTree(body);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Response of " + request + " is not JSON", e);
+                }
+            }
+            return json;
+        }
+
+        public Response expectStatus(int expected) {
+            if (status != expected) {
+                throw new AssertionError(request + " returned status " + status + ", expected " + expected);
+            }
+            return this;
+        }
+
+        /**
+         * Checks a JSON field by its dotted path, e.g. "userId" or "items.0.name".
+         */
+        public Response expectBody(String path, Object expected) {
+            JsonNode node = json().at(JsonPointer.compile("/" + path.replace('.', '/')));
+            Class<?> type = expected == null ? Object.class : expected.getClass();
+            Object actual = node.isMissingNode() ? null : objectMapper.convertValue(node, type);
+            if (!Objects.equals(actual, expected)) {
+                throw new AssertionError(request + " returned " + path + " = " + node + ", expected " + expected);
+            }
+            return this;
+        }
+    }
+}
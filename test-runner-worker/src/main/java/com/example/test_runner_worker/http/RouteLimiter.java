@@ -0,0 +1,144 @@
+package com.example.test_runner_worker.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps the requests in flight per route (scheme, host and port) of the shared HTTP client.
+ *
+ * The client speaks HTTP/1.1, so every request in flight holds one pooled keep-alive connection and
+ * this is the per-route connection limit. A request waits up to the acquire timeout for a slot; the
+ * slot is held until its response is closed, i.e. until the body has been read.
+ *
+ * Metrics per route: http.client.pool.acquire (time waiting for a slot), http.client.pool.leased and
+ * http.client.pool.utilization (leased / max), and http.client.pool.acquire.timeouts.
+ */
+public class RouteLimiter implements ClientHttpRequestInterceptor {
+
+    private final int maxPerRoute;
+    private final Duration acquireTimeout;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    public RouteLimiter(int maxPerRoute, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        this.maxPerRoute = maxPerRoute;
+        this.acquireTimeout = acquireTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Route route = routes.computeIfAbsent(routeOf(request.getURI()), Route::new);
+        route.acquire();
+        try {
+            return new ReleasingResponse(execution.execute(request, body), route);
+        } catch (IOException | RuntimeException e) {
+            route.slots.release();
+            throw e;
+        }
+    }
+
+    static String routeOf(URI uri) {
+        int port = uri.getPort();
+        if (port < 0) {
+            port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+        }
+        return uri.getScheme() + "://" + uri.getHost() + ":" + port;
+    }
+
+    private final class Route {
+        private final Semaphore slots = new Semaphore(maxPerRoute, true);
+        private final Timer acquireTimer;
+        private final Counter timeouts;
+
+        private Route(String route) {
+            acquireTimer = Timer.builder("http.client.pool.acquire")
+                    .description("Time spent waiting for a connection of the shared HTTP client")
+                    .tag("route", route)
+                    .register(meterRegistry);
+            timeouts = Counter.builder("http.client.pool.acquire.timeouts").tag("route", route).register(meterRegistry);
+            Gauge.builder("http.client.pool.leased", slots, s -> maxPerRoute - s.availablePermits())
+                    .tag("route", route).register(meterRegistry);
+            Gauge.builder("http.client.pool.utilization", slots, s -> (maxPerRoute - s.availablePermits()) / (double) maxPerRoute)
+                    .tag("route", route).register(meterRegistry);
+        }
+
+        private void acquire() throws IOException {
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = slots.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for a connection", e);
+            } finally {
+                acquireTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (!acquired) {
+                timeouts.increment();
+                throw new IOException("No connection to the route became free within " + acquireTimeout.toMillis() + " ms");
+            }
+        }
+    }
+
+    private static final class ReleasingResponse implements ClientHttpResponse {
+        private final ClientHttpResponse response;
+        private final Route route;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private ReleasingResponse(ClientHttpResponse response, Route route) {
+            this.response = response;
+            this.route = route;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return response.getStatusText();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return response.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return response.getHeaders();
+        }
+
+        @Override
+        public void close() {
+            try {
+                response.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    route.slots.release();
+                }
+            }
+        }
+    }
+}
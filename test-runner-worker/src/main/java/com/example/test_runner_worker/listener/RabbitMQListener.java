@@ -10,6 +10,7 @@ import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
 @Service
@@ -52,9 +53,13 @@ public class RabbitMQListener {
             retryTemplate.execute(context -> {
                 String updateUrl = apiBaseUrl + "/api/runs/" + testRun.getId();
                 log.info("Attempt {} to report results for job {}", context.getRetryCount() + 1, testRun.getId());
-                // We will need to create this PUT endpoint on the API side next
-                restTemplate.put(updateUrl, updateDto);
-                log.info("Successfully reported results for job: {}", testRun.getId());
+                try {
+                    restTemplate.put(updateUrl, updateDto);
+                    log.info("Successfully reported results for job: {}", testRun.getId());
+                } catch (HttpClientErrorException.Conflict e) {
+                    // A redelivered job: the run's first result stands, and there is nothing to retry
+                    log.warn("Run {} already has its result, this one was not applied", testRun.getId());
+                }
                 return null; // Return null to indicate success
             });
         } catch (Exception e) {
@@ -22,4 +22,7 @@ public class TestRun {
     private String errorDetails;
     private Integer failedTestCount;
     private String screenshotPath;
+    private Long version;
+    // Tests still running at this time are cancelled and reported TIMED_OUT; null means no deadline
+    private LocalDateTime deadline;
 }
\ No newline at end of file
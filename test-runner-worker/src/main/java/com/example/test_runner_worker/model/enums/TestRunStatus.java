@@ -4,5 +4,6 @@ public enum TestRunStatus {
     SCHEDULED,
     RUNNING,
     COMPLETED,
-    FAILED
+    FAILED,
+    TIMED_OUT
 }
\ No newline at end of file
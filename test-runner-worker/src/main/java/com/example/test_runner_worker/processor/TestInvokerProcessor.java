@@ -0,0 +1,119 @@
+package com.example.test_runner_worker.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates the GeneratedTestCatalog at compile time: one entry per @Test method, each with a lambda
+ * that calls the method directly on its bean. The worker then needs neither classpath scanning at
+ * startup nor Method.invoke per test, and a new test class only needs to be a Spring bean.
+ *
+ * Compiled in its own compiler execution ahead of the rest of the module (see pom.xml), so it must
+ * not depend on any other class of the worker. It runs for every compilation, not only those with
+ * @Test methods, so the catalog the registry refers to always exists, even if it is empty.
+ */
+@SupportedAnnotationTypes("*")
+public class TestInvokerProcessor extends AbstractProcessor {
+
+    private static final String TEST_ANNOTATION = "com.example.test_runner_worker.annotations.Test";
+    private static final String TEST_RESULT = "com.example.test_runner_worker.dtos.TestResult";
+    private static final String CATALOG_PACKAGE = "com.example.test_runner_worker.registry";
+    private static final String CATALOG_CLASS = "GeneratedTestCatalog";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated) {
+            return false;
+        }
+        TypeElement testAnnotation = processingEnv.getElementUtils().getTypeElement(TEST_ANNOTATION);
+        List<ExecutableElement> testMethods = new ArrayList<>();
+        if (testAnnotation != null) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(testAnnotation)) {
+                if (isInvokable((ExecutableElement) element)) {
+                    testMethods.add((ExecutableElement) element);
+                }
+            }
+        }
+        // Stable order, so test ordinals do not change between builds
+        testMethods.sort(Comparator
+                .comparing((ExecutableElement method) -> owner(method).getQualifiedName().toString())
+                .thenComparing(method -> method.getSimpleName().toString()));
+
+        writeCatalog(testMethods);
+        generated = true;
+        return false;
+    }
+
+    private boolean isInvokable(ExecutableElement method) {
+        Element owner = method.getEnclosingElement();
+        String problem = null;
+        if (!method.getModifiers().contains(Modifier.PUBLIC) || method.getModifiers().contains(Modifier.STATIC)) {
+            problem = "must be a public instance method";
+        } else if (!method.getParameters().isEmpty()) {
+            problem = "must not take parameters";
+        } else if (!method.getReturnType().toString().equals(TEST_RESULT)) {
+            problem = "must return " + TEST_RESULT;
+        } else if (owner.getKind() != ElementKind.CLASS || !owner.getModifiers().contains(Modifier.PUBLIC)
+                || owner.getEnclosingElement().getKind() != ElementKind.PACKAGE) {
+            problem = "must be declared in a public top-level class";
+        }
+        if (problem != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "@Test method " + problem, method);
+            return false;
+        }
+        return true;
+    }
+
+    private void writeCatalog(List<ExecutableElement> testMethods) {
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(CATALOG_PACKAGE + "." + CATALOG_CLASS);
+            try (Writer writer = file.openWriter()) {
+                writer.write("package " + CATALOG_PACKAGE + ";\n\n");
+                writer.write("import java.util.List;\n\n");
+                writer.write("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")\n");
+                writer.write("public final class " + CATALOG_CLASS + " {\n\n");
+                writer.write("    private " + CATALOG_CLASS + "() {\n    }\n\n");
+                writer.write("    public static List<TestDefinition> definitions() {\n");
+                writer.write("        return List.of(");
+                for (int i = 0; i < testMethods.size(); i++) {
+                    ExecutableElement method = testMethods.get(i);
+                    String testClass = owner(method).getQualifiedName().toString();
+                    String methodName = method.getSimpleName().toString();
+                    writer.write(i == 0 ? "\n" : ",\n");
+                    writer.write("                new TestDefinition(" + testClass + ".class, \"" + methodName + "\",\n");
+                    writer.write("                        bean -> ((" + testClass + ") bean)." + methodName + "())");
+                }
+                writer.write(");\n    }\n}\n");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Could not write " + CATALOG_CLASS + ": " + e.getMessage());
+        }
+    }
+
+    private static TypeElement owner(ExecutableElement method) {
+        return (TypeElement) method.getEnclosingElement();
+    }
+}
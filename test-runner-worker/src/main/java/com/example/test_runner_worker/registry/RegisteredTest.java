@@ -0,0 +1,20 @@
+package com.example.test_runner_worker.registry;
+
+import com.example.test_runner_worker.dtos.TestResult;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * A @Test method as known to the TestRegistry. The ordinal is its bit position in the tag index.
+ * The timeout is null when the test does not declare its own. The resources are the resource classes
+ * whose permits (see ResourceLimiter) the test must hold while it runs.
+ */
+public record RegisteredTest(int ordinal, String name, String description, Set<String> tags, Set<String> resources,
+                             Duration timeout, RetrySpec retry, Method method, Object bean, TestInvoker invoker) {
+
+    public TestResult invoke() throws Exception {
+        return invoker.invoke(bean);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.test_runner_worker.registry;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The retry settings a @Test declares. maxAttempts 0 and a null backoff mean the worker defaults apply;
+ * an empty retryOn retries any failure except a failed assertion.
+ */
+public record RetrySpec(int maxAttempts, Duration backoff, List<Class<? extends Throwable>> retryOn) {
+}
@@ -0,0 +1,172 @@
+package com.example.test_runner_worker.registry;
+
+import java.util.BitSet;
+import java.util.Map;
+
+/**
+ * A compiled boolean expression over test tags, evaluated against the registry's inverted index.
+ *
+ * Grammar (lowest precedence first):
+ * <pre>
+ *   or    := and ('|' and)*
+ *   and   := unary (('&amp;' | ',') unary)*
+ *   unary := '!' unary | '(' or ')' | tag
+ * </pre>
+ * A comma means AND, so the existing "ui,smoke" style tag lists keep their meaning. Tags are
+ * case-insensitive and may contain letters, digits, '-', '_' and '.'.
+ */
+public abstract class TagExpression {
+
+    /**
+     * Returns the ordinals of all matching tests as a new BitSet the caller may modify.
+     */
+    public abstract BitSet evaluate(Map<String, BitSet> tagIndex, BitSet allTests);
+
+    public static TagExpression parse(String expression) {
+        Parser parser = new Parser(expression);
+        TagExpression parsed = parser.parseOr();
+        parser.skipWhitespace();
+        if (parser.position < expression.length()) {
+            throw parser.error("Unexpected '" + expression.charAt(parser.position) + "'");
+        }
+        return parsed;
+    }
+
+    private static final class Tag extends TagExpression {
+        private final String tag;
+
+        private Tag(String tag) {
+            this.tag = tag;
+        }
+
+        @Override
+        public BitSet evaluate(Map<String, BitSet> tagIndex, BitSet allTests) {
+            BitSet tests = tagIndex.get(tag);
+            return tests == null ? new BitSet() : (BitSet) tests.clone();
+        }
+    }
+
+    private static final class Not extends TagExpression {
+        private final TagExpression operand;
+
+        private Not(TagExpression operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        public BitSet evaluate(Map<String, BitSet> tagIndex, BitSet allTests) {
+            BitSet tests = (BitSet) allTests.clone();
+            tests.andNot(operand.evaluate(tagIndex, allTests));
+            return tests;
+        }
+    }
+
+    private static final class And extends TagExpression {
+        private final TagExpression left;
+        private final TagExpression right;
+
+        private And(TagExpression left, TagExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public BitSet evaluate(Map<String, BitSet> tagIndex, BitSet allTests) {
+            BitSet tests = left.evaluate(tagIndex, allTests);
+            tests.and(right.evaluate(tagIndex, allTests));
+            return tests;
+        }
+    }
+
+    private static final class Or extends TagExpression {
+        private final TagExpression left;
+        private final TagExpression right;
+
+        private Or(TagExpression left, TagExpression right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public BitSet evaluate(Map<String, BitSet> tagIndex, BitSet allTests) {
+            BitSet tests = left.evaluate(tagIndex, allTests);
+            tests.or(right.evaluate(tagIndex, allTests));
+            return tests;
+        }
+    }
+
+    // Recursive descent over the grammar in the class comment
+    private static final class Parser {
+        private final String input;
+        private int position;
+
+        private Parser(String input) {
+            this.input = input;
+        }
+
+        private TagExpression parseOr() {
+            TagExpression expression = parseAnd();
+            while (consume('|')) {
+                expression = new Or(expression, parseAnd());
+            }
+            return expression;
+        }
+
+        private TagExpression parseAnd() {
+            TagExpression expression = parseUnary();
+            while (consume('&') || consume(',')) {
+                expression = new And(expression, parseUnary());
+            }
+            return expression;
+        }
+
+        private TagExpression parseUnary() {
+            if (consume('!')) {
+                return new Not(parseUnary());
+            }
+            if (consume('(')) {
+                TagExpression expression = parseOr();
+                if (!consume(')')) {
+                    throw error("Missing ')'");
+                }
+                return expression;
+            }
+            return parseTag();
+        }
+
+        private TagExpression parseTag() {
+            skipWhitespace();
+            int start = position;
+            while (position < input.length() && isTagChar(input.charAt(position))) {
+                position++;
+            }
+            if (start == position) {
+                throw error(position < input.length() ? "Unexpected '" + input.charAt(position) + "'" : "Missing tag");
+            }
+            return new Tag(input.substring(start, position).toLowerCase());
+        }
+
+        private boolean consume(char expected) {
+            skipWhitespace();
+            if (position < input.length() && input.charAt(position) == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespace() {
+            while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at position " + position + " in tag expression '" + input + "'");
+        }
+
+        private static boolean isTagChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == '.';
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.test_runner_worker.registry;
+
+/**
+ * A @Test method as found at compile time by the TestInvokerProcessor.
+ */
+public record TestDefinition(Class<?> testClass, String methodName, TestInvoker invoker) {
+}
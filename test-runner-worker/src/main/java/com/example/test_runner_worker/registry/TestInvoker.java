@@ -0,0 +1,12 @@
+package com.example.test_runner_worker.registry;
+
+import com.example.test_runner_worker.dtos.TestResult;
+
+/**
+ * Calls one @Test method on the bean hosting it. Implementations are generated lambdas that make a
+ * plain virtual call, which the JIT can inline, instead of going through Method.invoke.
+ */
+@FunctionalInterface
+public interface TestInvoker {
+    TestResult invoke(Object testBean) throws Exception;
+}
@@ -0,0 +1,119 @@
+package com.example.test_runner_worker.registry;
+
+import com.example.test_runner_worker.annotations.Test;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * All @Test methods, indexed by tag.
+ *
+ * The methods come from the GeneratedTestCatalog written at compile time, so startup does not scan
+ * the classpath; each one is bound to the Spring bean of its class. Each test gets an ordinal, and
+ * every tag maps to a BitSet of the ordinals carrying it, so a tag expression is answered with a few
+ * word-wide bitwise operations. The registry never changes after
+ * startup, so the selected tests are cached per expression string and repeated jobs cost one lookup.
+ */
+@Component
+@Slf4j
+public class TestRegistry {
+
+    // Distinct expressions seen by a worker are few; the cap only guards against unbounded growth
+    private static final int MAX_CACHED_SELECTIONS = 1024;
+
+    private final List<RegisteredTest> tests;
+    private final Map<String, BitSet> tagIndex;
+    private final BitSet allTests;
+    private final Map<String, List<RegisteredTest>> selections = new ConcurrentHashMap<>();
+
+    @Autowired
+    public TestRegistry(BeanFactory beanFactory) {
+        this(GeneratedTestCatalog.definitions(), beanFactory::getBean);
+    }
+
+    TestRegistry(List<TestDefinition> definitions, Function<Class<?>, Object> beanResolver) {
+        List<RegisteredTest> registered = new ArrayList<>();
+        Map<String, BitSet> index = new HashMap<>();
+        Map<Class<?>, Object> beans = new HashMap<>();
+        for (TestDefinition definition : definitions) {
+            // The annotation values are read here rather than generated, so adding an attribute to
+            // @Test does not require touching the processor
+            Method method;
+            try {
+                method = definition.testClass().getMethod(definition.methodName());
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("GeneratedTestCatalog is out of date: " + definition, e);
+            }
+            Test test = method.getAnnotation(Test.class);
+            Set<String> tags = new LinkedHashSet<>();
+            for (String tag : test.tags()) {
+                tags.add(tag.trim().toLowerCase());
+            }
+            Set<String> resources = new LinkedHashSet<>();
+            for (String resource : test.resources()) {
+                resources.add(resource.trim().toLowerCase());
+            }
+            Object bean = beans.computeIfAbsent(definition.testClass(), beanResolver);
+            int ordinal = registered.size();
+            Duration timeout = test.timeoutSeconds() > 0 ? Duration.ofSeconds(test.timeoutSeconds()) : null;
+            RetrySpec retry = new RetrySpec(test.maxAttempts(),
+                    test.retryBackoffMs() >= 0 ? Duration.ofMillis(test.retryBackoffMs()) : null, List.of(test.retryOn()));
+            registered.add(new RegisteredTest(ordinal, test.name(), test.description(),
+                    Collections.unmodifiableSet(tags), Collections.unmodifiableSet(resources), timeout,
+                    retry, method, bean, definition.invoker()));
+            tags.forEach(tag -> index.computeIfAbsent(tag, t -> new BitSet()).set(ordinal));
+        }
+        this.tests = List.copyOf(registered);
+        this.tagIndex = Map.copyOf(index);
+        this.allTests = new BitSet();
+        this.allTests.set(0, tests.size());
+        log.info("Registered {} tests with {} distinct tags", tests.size(), tagIndex.size());
+    }
+
+    /**
+     * Returns the tests matching a tag expression such as "smoke &amp; !ui | (api &amp; regression)".
+     *
+     * @throws IllegalArgumentException if the expression cannot be parsed
+     */
+    public List<RegisteredTest> select(String expression) {
+        if (expression == null || expression.isBlank()) {
+            return List.of();
+        }
+        List<RegisteredTest> selected = selections.get(expression);
+        if (selected == null) {
+            selected = evaluate(TagExpression.parse(expression));
+            if (selections.size() >= MAX_CACHED_SELECTIONS) {
+                selections.clear();
+            }
+            selections.put(expression, selected);
+        }
+        return selected;
+    }
+
+    public List<RegisteredTest> getTests() {
+        return tests;
+    }
+
+    private List<RegisteredTest> evaluate(TagExpression expression) {
+        BitSet matches = expression.evaluate(tagIndex, allTests);
+        List<RegisteredTest> selected = new ArrayList<>(matches.cardinality());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            selected.add(tests.get(ordinal));
+        }
+        return List.copyOf(selected);
+    }
+}
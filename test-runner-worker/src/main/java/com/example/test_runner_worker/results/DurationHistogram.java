@@ -0,0 +1,81 @@
+package com.example.test_runner_worker.results;
+
+import java.util.Arrays;
+
+/**
+ * Counts durations in log-linear buckets, so percentiles of any number of results take a few KB.
+ * Durations below 128 ms are counted exactly; longer ones in buckets 1/64 of their power of two wide,
+ * so a percentile is within about 1% of the exact value.
+ *
+ * The bucket layout is the same as the API's DurationSketch (test-management-api, model), which the
+ * modules cannot share; DurationHistogramTest pins it, so change both together.
+ */
+final class DurationHistogram {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int EXACT = 2 * SUB_BUCKETS;
+
+    private long[] counts = new long[EXACT];
+    private long total;
+
+    void record(long durationMs) {
+        int index = index(Math.max(0, durationMs));
+        if (index >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(index + 1, counts.length * 2));
+        }
+        counts[index]++;
+        total++;
+    }
+
+    void add(DurationHistogram other) {
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int i = 0; i < other.counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+    }
+
+    long count() {
+        return total;
+    }
+
+    /**
+     * The duration that the given fraction of the recorded ones do not exceed (nearest rank), or null
+     * if none were recorded.
+     */
+    Long percentile(double fraction) {
+        if (total == 0) {
+            return null;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return value(i);
+            }
+        }
+        return value(counts.length - 1);
+    }
+
+    private static int index(long value) {
+        if (value < EXACT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    // The middle of the bucket
+    private static long value(int index) {
+        if (index < EXACT) {
+            return index;
+        }
+        int shift = (index - EXACT) / SUB_BUCKETS + 1;
+        long lowest = (long) ((index - EXACT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) / 2;
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.test_runner_worker.results;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import com.example.test_runner_worker.service.ReportGenerator;
+import com.example.test_runner_worker.service.RunReportTotals;
+import com.example.test_runner_worker.service.RunReportWriter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Appends every test result to a compact binary log (see ResultLogFormat) for trend analysis with
+ * the ResultLogReader, instead of leaving it to be parsed back out of the CSV reports.
+ *
+ * Each worker writes its own segments, named after when they were started, the worker and their
+ * number, so workers sharing the reports volume never write to the same file. A segment is closed and
+ * a new one started once it reaches test.results.segment-size-mb. Results arrive through the
+ * ReportPipeline like any report's rows, so the log is written on the report writer threads.
+ */
+@Component
+@Slf4j
+public class ResultLog implements ReportGenerator {
+
+    // Longer strings are cut; at most 3 UTF-8 bytes per char, so a string record always fits the buffer
+    private static final int MAX_STRING_CHARS = 1024;
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final String workerId = UUID.randomUUID().toString().substring(0, 8);
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CRC32C crc = new CRC32C();
+
+    // The segment being written; opened with the first result, so an idle worker leaves no empty segments
+    private FileChannel segment;
+    private long segmentLength;
+    private long headerLength;
+    private int segmentNumber;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+
+    public ResultLog(@Value("${test.results.directory:reports/results}") String directory,
+                     @Value("${test.results.segment-size-mb:64}") long segmentSizeMb) {
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSizeMb * 1024 * 1024;
+    }
+
+    @Override
+    public RunReportWriter open(String runId) {
+        return new RunReportWriter() {
+            @Override
+            public void append(RegisteredTest test, TestResult testResult) throws IOException {
+                ResultLog.this.append(runId, test.name(), testResult);
+            }
+
+            @Override
+            public String finish(RunReportTotals totals) {
+                // Nothing to link to: the log spans every run
+                return null;
+            }
+
+            @Override
+            public void abort() {
+                // Results already appended stay in the log
+            }
+        };
+    }
+
+    /**
+     * Appends a test's result.
+     * @param testResult Its result, or null if the test was cancelled before it finished.
+     */
+    public synchronized void append(String runId, String test, TestResult testResult) throws IOException {
+        if (segment == null) {
+            startSegment();
+        }
+        encode(runId, test, testResult);
+        if (segmentLength + buffer.remaining() > segmentSize && segmentLength > headerLength) {
+            startSegment();
+            encode(runId, test, testResult);
+        }
+        try {
+            while (buffer.hasRemaining()) {
+                segmentLength += segment.write(buffer);
+            }
+        } catch (IOException e) {
+            // The segment may now end in part of a record, and its strings are not all written: start afresh
+            close();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (segment != null) {
+            segment.close();
+            segment = null;
+        }
+    }
+
+    private void startSegment() throws IOException {
+        close();
+        Files.createDirectories(directory);
+        Path file = directory.resolve(String.format("%013d-%s-%d%s",
+                System.currentTimeMillis(), workerId, ++segmentNumber, ResultLogFormat.EXTENSION));
+        segment = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        stringIds.clear();
+        buffer.clear();
+        ResultLogFormat.writeHeader(buffer);
+        buffer.flip();
+        segmentLength = 0;
+        while (buffer.hasRemaining()) {
+            segmentLength += segment.write(buffer);
+        }
+        headerLength = segmentLength;
+        log.info("Appending test results to {}", file);
+    }
+
+    // The result's record, after the records of the strings it is the first in this segment to use
+    private void encode(String runId, String test, TestResult testResult) {
+        buffer.clear();
+        int testId = id(test);
+        int runIdId = id(runId);
+        int testTypeId = testResult != null ? id(testResult.getTestType()) : ResultLogFormat.NONE;
+
+        int start = beginRecord(ResultLogFormat.RESULT_LENGTH);
+        buffer.put(ResultLogFormat.RESULT);
+        buffer.putInt(testId);
+        buffer.putInt(runIdId);
+        buffer.putInt(testTypeId);
+        if (testResult == null) {
+            buffer.put(ResultLogFormat.CANCELLED);
+            buffer.putLong(ResultLogFormat.NO_TIME);
+            buffer.putLong(ResultLogFormat.NO_TIME);
+            buffer.putLong(-1);
+        } else {
+            buffer.put((byte) testResult.getStatus().ordinal());
+            buffer.putLong(epochMillis(testResult.getStartTime()));
+            buffer.putLong(epochMillis(testResult.getEndTime()));
+            buffer.putLong(testResult.getDurationMs() != null ? testResult.getDurationMs() : -1);
+        }
+        endRecord(start);
+        buffer.flip();
+    }
+
+    private int id(String value) {
+        if (value == null) {
+            return ResultLogFormat.NONE;
+        }
+        Integer id = stringIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        int newId = stringIds.size();
+        stringIds.put(value, newId);
+        byte[] bytes = (value.length() > MAX_STRING_CHARS ? value.substring(0, MAX_STRING_CHARS) : value)
+                .getBytes(StandardCharsets.UTF_8);
+        int start = beginRecord(1 + Integer.BYTES + Short.BYTES + bytes.length);
+        buffer.put(ResultLogFormat.STRING);
+        buffer.putInt(newId);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+        endRecord(start);
+        return newId;
+    }
+
+    // Writes the length and leaves room for the CRC
+    private int beginRecord(int length) {
+        buffer.putInt(length);
+        buffer.putInt(0);
+        return buffer.position();
+    }
+
+    private void endRecord(int payloadStart) {
+        crc.reset();
+        crc.update(buffer.array(), payloadStart, buffer.position() - payloadStart);
+        buffer.putInt(payloadStart - Integer.BYTES, (int) crc.getValue());
+    }
+
+    private static long epochMillis(LocalDateTime time) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : ResultLogFormat.NO_TIME;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.test_runner_worker.results;
+
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The layout of a results log segment (big-endian throughout).
+ *
+ * A segment starts with a header: the magic number, then the TestRunStatus names in the order their
+ * codes refer to, so reordering the enum does not change what old segments mean. Records follow,
+ * each as its payload's length, the payload's CRC32C and the payload, whose first byte is its type:
+ *
+ *   STRING  id (int), length (short), UTF-8 bytes   the first use of a string in the segment
+ *   RESULT  test, run and test type ids (int, -1 for none), status (byte, -1 for cancelled),
+ *           start and end (long epoch millis, Long.MIN_VALUE for none), duration (long ms, -1 for none)
+ *
+ * Test names, run IDs and test types are written once per segment and referred to by id afterwards,
+ * so a result takes 46 bytes. A record that does not fit or fails its checksum ends the segment: it
+ * was cut short when its worker died.
+ */
+final class ResultLogFormat {
+
+    static final int MAGIC = 0x54524C31; // "TRL1"
+    static final String EXTENSION = ".seg";
+    // Length and CRC32C
+    static final int RECORD_HEADER = 8;
+
+    static final byte STRING = 1;
+    static final byte RESULT = 2;
+    static final int RESULT_LENGTH = 1 + 3 * Integer.BYTES + 1 + 3 * Long.BYTES;
+
+    static final int NONE = -1;
+    static final byte CANCELLED = -1;
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private ResultLogFormat() {
+    }
+
+    static void writeHeader(ByteBuffer buffer) {
+        TestRunStatus[] statuses = TestRunStatus.values();
+        buffer.putInt(MAGIC);
+        buffer.put((byte) statuses.length);
+        for (TestRunStatus status : statuses) {
+            byte[] name = status.name().getBytes(StandardCharsets.US_ASCII);
+            buffer.put((byte) name.length);
+            buffer.put(name);
+        }
+    }
+
+    /**
+     * Reads a segment's header.
+     *
+     * @return the statuses by the codes the segment uses, or null if this is not a segment
+     */
+    static TestRunStatus[] readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < Integer.BYTES + 1 || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        TestRunStatus[] statuses = new TestRunStatus[buffer.get() & 0xFF];
+        for (int i = 0; i < statuses.length; i++) {
+            byte[] name = new byte[buffer.get() & 0xFF];
+            buffer.get(name);
+            // A status this version no longer has counts as a failure
+            statuses[i] = valueOf(new String(name, StandardCharsets.US_ASCII));
+        }
+        return statuses;
+    }
+
+    private static TestRunStatus valueOf(String name) {
+        for (TestRunStatus status : TestRunStatus.values()) {
+            if (status.name().equals(name)) {
+                return status;
+            }
+        }
+        return TestRunStatus.FAILED;
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.test_runner_worker.results;
+
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Sums up the results log written by the ResultLog: pass rate and median and 95th percentile duration
+ * per test. Segments are memory-mapped and scanned in place, in parallel, so the results are never
+ * copied onto the heap; what is kept per test is a few counters and a DurationHistogram. The log may
+ * be read while workers append to it: a segment's last record is ignored until it is complete.
+ */
+@Slf4j
+public class ResultLogReader {
+
+    private final Path directory;
+
+    public ResultLogReader(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * The statistics of every test in the log, by test name.
+     */
+    public Map<String, TestStatistics> aggregate() throws IOException {
+        return aggregate(null);
+    }
+
+    /**
+     * The statistics of every test with results started at or after the given time, by test name.
+     * @param since The earliest start time to count, or null to count every result.
+     */
+    public Map<String, TestStatistics> aggregate(Instant since) throws IOException {
+        long sinceMillis = since != null ? since.toEpochMilli() : Long.MIN_VALUE;
+        if (!Files.isDirectory(directory)) {
+            return Map.of();
+        }
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(file -> file.getFileName().toString().endsWith(ResultLogFormat.EXTENSION)).toList();
+        }
+
+        Map<String, TestAggregate> aggregates;
+        try {
+            aggregates = segments.parallelStream()
+                    .map(segment -> read(segment, sinceMillis))
+                    .reduce(ResultLogReader::merge)
+                    .orElseGet(HashMap::new);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Map<String, TestStatistics> statistics = new TreeMap<>();
+        aggregates.forEach((test, aggregate) -> statistics.put(test, aggregate.statistics(test)));
+        return statistics;
+    }
+
+    private static Map<String, TestAggregate> read(Path file, long sinceMillis) {
+        Map<String, TestAggregate> aggregates = new HashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+            TestRunStatus[] statuses = ResultLogFormat.readHeader(segment);
+            if (statuses == null) {
+                log.warn("Skipping {}: not a results log segment", file);
+                return aggregates;
+            }
+            CRC32C crc = new CRC32C();
+            // This segment's strings, and the tests they name, by id
+            String[] strings = new String[64];
+            TestAggregate[] tests = new TestAggregate[64];
+
+            while (segment.remaining() >= ResultLogFormat.RECORD_HEADER) {
+                int length = segment.getInt();
+                int checksum = segment.getInt();
+                int start = segment.position();
+                if (length <= 0 || length > segment.remaining()) {
+                    break;
+                }
+                segment.limit(start + length);
+                crc.reset();
+                crc.update(segment);
+                segment.limit(segment.capacity()).position(start);
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("Skipping the rest of {} from byte {}: checksum mismatch", file, start);
+                    break;
+                }
+
+                byte type = segment.get(start);
+                if (type == ResultLogFormat.STRING) {
+                    int id = segment.getInt(start + 1);
+                    byte[] bytes = new byte[segment.getShort(start + 5) & 0xFFFF];
+                    segment.get(start + 7, bytes);
+                    if (id >= strings.length) {
+                        strings = Arrays.copyOf(strings, Math.max(id + 1, strings.length * 2));
+                        tests = Arrays.copyOf(tests, strings.length);
+                    }
+                    strings[id] = new String(bytes, StandardCharsets.UTF_8);
+                } else if (type == ResultLogFormat.RESULT) {
+                    int testId = segment.getInt(start + 1);
+                    long startMillis = segment.getLong(start + 14);
+                    if (testId >= 0 && testId < strings.length && strings[testId] != null && startMillis >= sinceMillis) {
+                        if (tests[testId] == null) {
+                            tests[testId] = aggregates.computeIfAbsent(strings[testId], test -> new TestAggregate());
+                        }
+                        tests[testId].add(status(statuses, segment.get(start + 13)), segment.getLong(start + 30));
+                    }
+                }
+                // Any other type was added by a later version; skipped
+                segment.position(start + length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return aggregates;
+    }
+
+    // The segment's status code as a current status, null if the test was cancelled
+    private static TestRunStatus status(TestRunStatus[] statuses, byte code) {
+        if (code == ResultLogFormat.CANCELLED) {
+            return null;
+        }
+        return code >= 0 && code < statuses.length ? statuses[code] : TestRunStatus.FAILED;
+    }
+
+    private static Map<String, TestAggregate> merge(Map<String, TestAggregate> left, Map<String, TestAggregate> right) {
+        Map<String, TestAggregate> into = left.size() >= right.size() ? left : right;
+        Map<String, TestAggregate> from = into == left ? right : left;
+        from.forEach((test, aggregate) -> into.merge(test, aggregate, TestAggregate::add));
+        return into;
+    }
+
+    private static final class TestAggregate {
+        private long results;
+        private long passed;
+        private long failed;
+        private long timedOut;
+        private long cancelled;
+        private final DurationHistogram durations = new DurationHistogram();
+
+        void add(TestRunStatus status, long durationMs) {
+            results++;
+            if (status == null) {
+                cancelled++;
+                return;
+            }
+            switch (status) {
+                case COMPLETED -> passed++;
+                case TIMED_OUT -> timedOut++;
+                default -> failed++;
+            }
+            if (durationMs >= 0) {
+                durations.record(durationMs);
+            }
+        }
+
+        TestAggregate add(TestAggregate other) {
+            results += other.results;
+            passed += other.passed;
+            failed += other.failed;
+            timedOut += other.timedOut;
+            cancelled += other.cancelled;
+            durations.add(other.durations);
+            return this;
+        }
+
+        TestStatistics statistics(String test) {
+            return new TestStatistics(test, results, passed, failed, timedOut, cancelled,
+                    durations.percentile(0.50), durations.percentile(0.95));
+        }
+    }
+}
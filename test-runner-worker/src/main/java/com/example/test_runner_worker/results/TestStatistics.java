@@ -0,0 +1,17 @@
+package com.example.test_runner_worker.results;
+
+/**
+ * What the results log says about one test: its results by outcome and its durations' median and
+ * 95th percentile (null if none of its results has a duration).
+ */
+public record TestStatistics(String test, long results, long passed, long failed, long timedOut, long cancelled,
+                             Long p50DurationMs, Long p95DurationMs) {
+
+    /**
+     * The fraction of the test's finished (not cancelled) results that passed, or 0 if there are none.
+     */
+    public double passRate() {
+        long finished = results - cancelled;
+        return finished > 0 ? (double) passed / finished : 0;
+    }
+}
@@ -1,63 +1,91 @@
 package com.example.test_runner_worker.service;
 
+import com.example.test_runner_worker.artifacts.Artifact;
+import com.example.test_runner_worker.artifacts.ArtifactStore;
 import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.registry.RegisteredTest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 @Service
 @Slf4j
 public class CsvReportGenerator implements ReportGenerator {
 
-    private final String reportsDirectory = "reports";
+    private final ArtifactStore artifactStore;
     private static final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public CsvReportGenerator() {
-        // Ensure the reports directory exists
-        try {
-            Files.createDirectories(Paths.get(reportsDirectory));
-        } catch (IOException e) {
-            log.error("Could not create reports directory: {}", reportsDirectory, e);
-        }
+    public CsvReportGenerator(ArtifactStore artifactStore) {
+        this.artifactStore = artifactStore;
     }
 
     @Override
-    public String generateReport(TestResult testResult, String runId) {
-        String uniqueId = java.util.UUID.randomUUID().toString().substring(0, 8);
-        String filename = "report-" + runId + "-" + uniqueId + ".csv";
-        Path destination = Paths.get(reportsDirectory, filename);
-
-        // Define CSV header and data row
-        String header = "RunID,Status,TestType,Description,StartTime,EndTime,Duration(ms),ErrorMessage\n";
-        String data = String.format(
-                "%s,%s,%s,\"%s\",%s,%s,%d,\"%s\"\n",
-                runId,
-                testResult.getStatus(),
-                testResult.getTestType(),
-                testResult.getTestDescription(),
-                testResult.getStartTime() != null ? testResult.getStartTime().format(dtf) : "N/A",
-                testResult.getEndTime() != null ? testResult.getEndTime().format(dtf) : "N/A",
-                testResult.getDurationMs(),
-                testResult.getErrorMessage() != null ? testResult.getErrorMessage().replace("\"", "'") : ""
-        );
-
-        try (FileWriter writer = new FileWriter(destination.toFile())) {
-            // Write header only if the file is new (or just overwrite)
-            writer.write(header);
-            writer.write(data);
-            log.info("CSV report saved successfully: {}", destination.toAbsolutePath());
-            // Return relative path
-            return "reports/" + filename;
-
-        } catch (IOException e) {
-            log.error("Could not save CSV report: {}", e.getMessage());
-            return null;
+    public RunReportWriter open(String runId) throws IOException {
+        // Written aside and stored once finished
+        Path staged = artifactStore.newStagingFile("csv");
+        ReportFile file = ReportFile.create(staged);
+        Writer out = file.writer();
+
+        // Define CSV header; one data row follows per test
+        out.write("RunID,Test,Status,TestType,Description,StartTime,EndTime,Duration(ms),ErrorMessage\n");
+
+        return new RunReportWriter() {
+            @Override
+            public void append(RegisteredTest test, TestResult testResult) throws IOException {
+                out.write(String.join(",",
+                        runId,
+                        csv(test.method().getName()),
+                        testResult != null ? String.valueOf(testResult.getStatus()) : "CANCELLED",
+                        csv(testResult != null ? testResult.getTestType() : null),
+                        csv(testResult != null ? testResult.getTestDescription() : test.description()),
+                        time(testResult != null ? testResult.getStartTime() : null),
+                        time(testResult != null ? testResult.getEndTime() : null),
+                        testResult != null && testResult.getDurationMs() != null ? testResult.getDurationMs().toString() : "",
+                        csv(testResult != null ? testResult.getErrorMessage() : null)));
+                out.write('\n');
+                // Rows are on disk as soon as their test finishes
+                out.flush();
+            }
+
+            @Override
+            public String finish(RunReportTotals totals) throws IOException {
+                file.close();
+                Artifact artifact = artifactStore.put(staged, "csv");
+                log.info("CSV report of run {} saved successfully: {}", runId, artifact.path());
+                // Return relative path
+                return artifact.url();
+            }
+
+            @Override
+            public void abort() {
+                try {
+                    file.close();
+                    Files.deleteIfExists(staged);
+                } catch (IOException e) {
+                    log.debug("Could not discard CSV report {}: {}", staged, e.getMessage());
+                }
+            }
+        };
+    }
+
+    private static String time(LocalDateTime time) {
+        return time != null ? time.format(dtf) : "N/A";
+    }
+
+    // Quoted when needed, with quotes doubled (RFC 4180)
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
         }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
     }
-}
\ No newline at end of file
+}
@@ -1,104 +1,262 @@
 package com.example.test_runner_worker.service;
 
+import com.example.test_runner_worker.artifacts.Artifact;
+import com.example.test_runner_worker.artifacts.ArtifactStore;
 import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.registry.RegisteredTest;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
-import org.thymeleaf.templatemode.TemplateMode;
-import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import org.springframework.web.util.HtmlUtils;
 
-import java.io.File;
-import java.io.FileWriter;
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.Base64;
+import java.util.Locale;
+import java.util.UUID;
 
+/**
+ * The run summary the dashboard links to: the run's totals on top, then one table row per test in
+ * the order the tests finished, with the error message and screenshot of a failed one. Rows are
+ * written as tests finish; the totals go into space reserved for them under the heading.
+ *
+ * Screenshots are either inlined (test.reports.screenshots=inline), Base64-encoded straight from the
+ * PNG file into the report without ever being held in memory whole, or shown as a downscaled
+ * thumbnail linking to the original file (=thumbnail), which keeps large runs' reports small.
+ * The report, its screenshots and their thumbnails all live in the ArtifactStore.
+ */
 @Service
 @Slf4j
 public class HtmlReportGenerator implements ReportGenerator {
 
-    private final TemplateEngine templateEngine;
-    private final String reportsDirectory = "reports"; // Save to a local 'reports' folder
+    // Room for the totals' markup, which is ASCII only
+    private static final int TOTALS_LENGTH = 512;
+    private static final String THUMBNAIL = ".thumb.png";
 
-    public HtmlReportGenerator() {
-        // Configure the Thymeleaf template engine
-        ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
-        templateResolver.setTemplateMode(TemplateMode.HTML);
-        templateResolver.setPrefix("/templates/");
-        templateResolver.setSuffix(".html");
+    private final ArtifactStore artifactStore;
+    private final String stylesheet;
+    private final boolean thumbnails;
+    private final int thumbnailWidth;
 
-        this.templateEngine = new TemplateEngine();
-        this.templateEngine.setTemplateResolver(templateResolver);
+    public HtmlReportGenerator(ArtifactStore artifactStore,
+                               @Value("${test.reports.screenshots:inline}") String screenshots,
+                               @Value("${test.reports.thumbnail-width:320}") int thumbnailWidth) {
+        this.thumbnails = switch (screenshots) {
+            case "inline" -> false;
+            case "thumbnail" -> true;
+            default -> throw new IllegalArgumentException("Unknown test.reports.screenshots: " + screenshots);
+        };
+        this.thumbnailWidth = thumbnailWidth;
+        this.artifactStore = artifactStore;
 
-        // Ensure the reports directory exists
         try {
-            Files.createDirectories(Paths.get(reportsDirectory));
+            this.stylesheet = new ClassPathResource("reports/run-report.css").getContentAsString(StandardCharsets.UTF_8);
         } catch (IOException e) {
-            log.error("Could not create reports directory: {}", reportsDirectory, e);
+            throw new UncheckedIOException("Could not read the report stylesheet", e);
         }
     }
 
     @Override
-    public String generateReport(TestResult testResult, String runId) {
-        Context context = new Context();
-
-        context.setVariable("status", testResult.getStatus().toString());
-        context.setVariable("errorMessage", testResult.getErrorMessage());
-        context.setVariable("failedTestCount", testResult.getFailedTestCount());
-        context.setVariable("testType", testResult.getTestType());
-        context.setVariable("testUrl", testResult.getTestUrl());
-        context.setVariable("testParameters", testResult.getTestParameters());
-        context.setVariable("testDescription", testResult.getTestDescription());
-        context.setVariable("startTime", testResult.getStartTime());
-        context.setVariable("endTime", testResult.getEndTime());
-
-        // Calculate and format duration
-        if (testResult.getDurationMs() != null) {
-            double seconds = testResult.getDurationMs() / 1000.0;
-            context.setVariable("formattedDuration", String.format("%.3f seconds", seconds));
+    public boolean providesReportUrl() {
+        return true;
+    }
+
+    @Override
+    public RunReportWriter open(String runId) throws IOException {
+        // Written aside and stored once finished
+        Path staged = artifactStore.newStagingFile("html");
+        ReportFile file = ReportFile.create(staged);
+        Writer out = file.writer();
+
+        out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>Test Run Report</title>\n<style>\n");
+        out.write(stylesheet);
+        out.write("</style>\n</head>\n<body>\n<div class=\"container\">\n<h1>Test Run Report</h1>\n");
+        out.write("<p>Run " + html(runId) + "</p>\n<div class=\"totals\">");
+        long totals = file.reserve(TOTALS_LENGTH);
+        out.write("</div>\n\n<h2>Tests</h2>\n<table>\n");
+        out.write("<tr><th>Test</th><th>Status</th><th>Duration</th><th>Details</th></tr>\n");
+
+        return new RunReportWriter() {
+            @Override
+            public void append(RegisteredTest test, TestResult testResult) throws IOException {
+                String status = testResult != null ? String.valueOf(testResult.getStatus()) : "CANCELLED";
+                out.write("<tr>\n<td>" + html(test.name()) + "<br><small>" + html(test.description()) + "</small></td>\n");
+                out.write("<td><span class=\"status status-" + status + "\">" + status + "</span></td>\n");
+                out.write("<td>" + (testResult != null && testResult.getDurationMs() != null
+                        ? String.format(Locale.ROOT, "%.3f seconds", testResult.getDurationMs() / 1000.0) : "N/A") + "</td>\n<td>");
+                if (testResult != null && testResult.getErrorMessage() != null) {
+                    out.write("<pre class=\"error-message\">" + html(testResult.getErrorMessage()) + "</pre>");
+                }
+                if (testResult != null && testResult.getScreenshotPath() != null) {
+                    writeScreenshot(out, testResult.getScreenshotPath());
+                }
+                out.write("</td>\n</tr>\n");
+                // Rows are on disk as soon as their test finishes
+                out.flush();
+            }
+
+            @Override
+            public String finish(RunReportTotals runTotals) throws IOException {
+                out.write("</table>\n</div>\n</body>\n</html>\n");
+                out.flush();
+                file.fill(totals, TOTALS_LENGTH, "<span><strong>Tests</strong>" + runTotals.tests() + "</span>"
+                        + "<span><strong>Passed</strong>" + runTotals.passed() + "</span>"
+                        + "<span><strong>Failed</strong>" + runTotals.failed() + "</span>"
+                        + "<span><strong>Timed out</strong>" + runTotals.timedOut() + "</span>"
+                        + "<span><strong>Cancelled</strong>" + runTotals.cancelled() + "</span>"
+                        + "<span><strong>Duration</strong>"
+                        + String.format(Locale.ROOT, "%.3f seconds", runTotals.duration().toMillis() / 1000.0) + "</span>"
+                        + (runTotals.predictedMakespan() != null ? "<span><strong>Predicted</strong>"
+                        + String.format(Locale.ROOT, "%.3f seconds", runTotals.predictedMakespan().toMillis() / 1000.0) + "</span>" : ""));
+                file.close();
+                Artifact artifact = artifactStore.put(staged, "html");
+                log.info("HTML report of run {} saved successfully: {}", runId, artifact.path());
+                // Return the relative path for the dashboard
+                return artifact.url();
+            }
+
+            @Override
+            public void abort() {
+                try {
+                    file.close();
+                    Files.deleteIfExists(staged);
+                } catch (IOException e) {
+                    log.debug("Could not discard HTML report {}: {}", staged, e.getMessage());
+                }
+            }
+        };
+    }
+
+    private void writeScreenshot(Writer out, String screenshotPath) throws IOException {
+        Path screenshot = Paths.get(screenshotPath);
+        if (!Files.isReadable(screenshot)) {
+            log.error("Could not read screenshot file to embed in report: {}", screenshotPath);
+            return;
+        }
+        // Only a stored screenshot can be linked from the report, which is stored as well
+        Artifact stored = thumbnails ? artifactStore.find(screenshot) : null;
+        if (stored != null) {
+            writeThumbnail(out, stored);
+        } else {
+            writeInline(out, screenshot);
+        }
+    }
+
+    // Embedded as Base64, so the report is a single self-contained file
+    private static void writeInline(Writer out, Path screenshot) throws IOException {
+        out.write("<img src=\"data:image/png;base64,");
+        // Closing the encoder writes its last bytes and padding, but leaves the report open
+        try (FileChannel channel = FileChannel.open(screenshot);
+             InputStream png = Channels.newInputStream(channel);
+             OutputStream base64 = Base64.getEncoder().wrap(new AsciiOutputStream(out))) {
+            png.transferTo(base64);
+        }
+        out.write("\" alt=\"Screenshot\" class=\"screenshot\"/>");
+    }
+
+    private void writeThumbnail(Writer out, Artifact screenshot) throws IOException {
+        out.write("<a href=\"" + html(screenshot.link()) + "\">");
+        if (thumbnailOf(screenshot) != null) {
+            out.write("<img src=\"" + html(screenshot.link(THUMBNAIL)) + "\" alt=\"Screenshot\" class=\"screenshot\"/>");
         } else {
-            context.setVariable("formattedDuration", "N/A");
+            out.write("Screenshot");
         }
+        out.write("</a>");
+    }
 
-        if (testResult.getScreenshotPath() != null) {
+    /**
+     * The screenshot scaled down to thumbnailWidth, stored next to it. Made once per screenshot content,
+     * however many reports show it.
+     *
+     * @return the thumbnail, or null if it could not be made
+     */
+    private Path thumbnailOf(Artifact screenshot) {
+        Path thumbnail = screenshot.derived(THUMBNAIL);
+        if (Files.exists(thumbnail)) {
+            return thumbnail;
+        }
+        Path temporary = thumbnail.resolveSibling(UUID.randomUUID() + ".tmp");
+        try {
+            BufferedImage image = ImageIO.read(screenshot.path().toFile());
+            if (image == null) {
+                log.error("Screenshot {} is not an image ImageIO can read", screenshot.path());
+                return null;
+            }
+            int width = Math.min(thumbnailWidth, image.getWidth());
+            int height = Math.max(1, image.getHeight() * width / image.getWidth());
+            BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = scaled.createGraphics();
             try {
-                // Read the screenshot file and encode it as Base64
-                byte[] fileContent = FileUtils.readFileToByteArray(new File(testResult.getScreenshotPath()));
-                String encodedString = Base64.getEncoder().encodeToString(fileContent);
-                // Embed it directly into the HTML
-                context.setVariable("screenshotBase64", "data:image/png;base64," + encodedString);
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            // Two reports may show the same screenshot at once; whichever moves its thumbnail last wins
+            ImageIO.write(scaled, "png", temporary.toFile());
+            Files.move(temporary, thumbnail, StandardCopyOption.REPLACE_EXISTING);
+            return thumbnail;
+        } catch (IOException e) {
+            log.error("Could not make a thumbnail of screenshot {}", screenshot.path(), e);
+            return null;
+        } finally {
+            try {
+                Files.deleteIfExists(temporary);
             } catch (IOException e) {
-                log.error("Could not read screenshot file to embed in report", e);
-                context.setVariable("screenshotBase64", null);
+                log.debug("Could not delete {}: {}", temporary, e.getMessage());
             }
-        } else {
-            context.setVariable("screenshotBase64", null);
         }
+    }
 
-        // Process the template
-        // ... inside the generateReport method ...
+    private static String html(String value) {
+        return value == null ? "" : HtmlUtils.htmlEscape(value, "UTF-8");
+    }
 
-// Process the template
-        String html = templateEngine.process("report-template", context);
+    // Base64 output is ASCII, so every byte is one char of the report
+    private static final class AsciiOutputStream extends OutputStream {
+        private final Writer out;
+        private final char[] chars = new char[4096];
 
-// Save the file with a unique name to prevent parallel conflicts
-        String uniqueId = java.util.UUID.randomUUID().toString().substring(0, 8);
-        String filename = "report-" + runId + "-" + uniqueId + ".html";
+        private AsciiOutputStream(Writer out) {
+            this.out = out;
+        }
 
-        Path destination = Paths.get(reportsDirectory, filename);
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+        }
 
-        try (FileWriter writer = new FileWriter(destination.toFile())) {
-            writer.write(html);
-            log.info("HTML report saved successfully: {}", destination.toAbsolutePath());
-            // Return the relative path for the dashboard
-            return "reports/" + filename;
-        } catch (IOException e) {
-            log.error("Could not save HTML report: {}", e.getMessage());
-            return null;
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                int count = Math.min(length, chars.length);
+                for (int i = 0; i < count; i++) {
+                    chars[i] = (char) bytes[offset + i];
+                }
+                out.write(chars, 0, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        // The report stays open
+        @Override
+        public void close() {
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,114 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.artifacts.Artifact;
+import com.example.test_runner_worker.artifacts.ArtifactStore;
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * A JUnit XML report per run (one testsuite, one testcase per test), which CI servers can read.
+ * Failed tests are failures, timed out tests errors and cancelled tests skipped. The testsuite's
+ * counts are only known at the end, so blanks are reserved in its start tag and filled in then.
+ */
+@Service
+@Slf4j
+public class JUnitXmlReportGenerator implements ReportGenerator {
+
+    // Room for: tests="" failures="" errors="" skipped="" time=""
+    private static final int COUNTS_LENGTH = 160;
+    // Characters XML 1.0 does not allow at all, e.g. the ANSI escapes in some driver messages
+    private static final String INVALID_XML_CHARS = "[^\\x09\\x0A\\x0D\\x20-\\uD7FF\\uE000-\\uFFFD\\x{10000}-\\x{10FFFF}]";
+
+    private final ArtifactStore artifactStore;
+
+    public JUnitXmlReportGenerator(ArtifactStore artifactStore) {
+        this.artifactStore = artifactStore;
+    }
+
+    @Override
+    public RunReportWriter open(String runId) throws IOException {
+        // Written aside and stored once finished
+        Path staged = artifactStore.newStagingFile("xml");
+        ReportFile file = ReportFile.create(staged);
+        Writer out = file.writer();
+
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<testsuite name=\"" + xml("run-" + runId) + "\" timestamp=\""
+                + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME) + "\"");
+        long counts = file.reserve(COUNTS_LENGTH);
+        out.write(">\n");
+
+        return new RunReportWriter() {
+            @Override
+            public void append(RegisteredTest test, TestResult testResult) throws IOException {
+                out.write("  <testcase name=\"" + xml(test.method().getName())
+                        + "\" classname=\"" + xml(test.method().getDeclaringClass().getName()) + "\"");
+                if (testResult != null && testResult.getDurationMs() != null) {
+                    out.write(" time=\"" + seconds(testResult.getDurationMs()) + "\"");
+                }
+                if (testResult == null) {
+                    out.write(">\n    <skipped message=\"Cancelled\"/>\n  </testcase>\n");
+                } else if (testResult.getStatus() == TestRunStatus.COMPLETED) {
+                    out.write("/>\n");
+                } else {
+                    String element = testResult.getStatus() == TestRunStatus.TIMED_OUT ? "error" : "failure";
+                    String message = xml(testResult.getErrorMessage());
+                    out.write(">\n    <" + element + " type=\"" + testResult.getStatus() + "\" message=\"" + message + "\">"
+                            + message + "</" + element + ">\n  </testcase>\n");
+                }
+                // Rows are on disk as soon as their test finishes
+                out.flush();
+            }
+
+            @Override
+            public String finish(RunReportTotals totals) throws IOException {
+                out.write("</testsuite>\n");
+                out.flush();
+                file.fill(counts, COUNTS_LENGTH, " tests=\"" + totals.tests()
+                        + "\" failures=\"" + totals.failed()
+                        + "\" errors=\"" + totals.timedOut()
+                        + "\" skipped=\"" + totals.cancelled()
+                        + "\" time=\"" + seconds(totals.duration().toMillis()) + "\"");
+                file.close();
+                Artifact artifact = artifactStore.put(staged, "xml");
+                log.info("JUnit XML report of run {} saved successfully: {}", runId, artifact.path());
+                // Return relative path
+                return artifact.url();
+            }
+
+            @Override
+            public void abort() {
+                try {
+                    file.close();
+                    Files.deleteIfExists(staged);
+                } catch (IOException e) {
+                    log.debug("Could not discard JUnit XML report {}: {}", staged, e.getMessage());
+                }
+            }
+        };
+    }
+
+    private static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    // The entities HtmlUtils uses for UTF-8 output (&lt; &gt; &amp; &quot; &#39;) are all valid XML
+    private static String xml(String value) {
+        if (value == null) {
+            return "";
+        }
+        return HtmlUtils.htmlEscape(value.replaceAll(INVALID_XML_CHARS, ""), "UTF-8");
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.test_runner_worker.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A report file written front to back as results come in. Text goes through a UTF-8 writer with a
+ * fixed buffer on a FileChannel, so memory stays constant however long the run is.
+ *
+ * Values only known once the run is over (totals) are written into space reserved for them up front:
+ * reserve() writes blanks and fill() later overwrites them in place with a positional write.
+ */
+final class ReportFile implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final Writer writer;
+
+    private ReportFile(FileChannel channel) {
+        this.channel = channel;
+        this.writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE);
+    }
+
+    static ReportFile create(Path path) throws IOException {
+        return new ReportFile(FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    Writer writer() {
+        return writer;
+    }
+
+    /**
+     * Writes the given number of spaces, to be filled in later.
+     *
+     * @return the byte position of the reserved space
+     */
+    long reserve(int length) throws IOException {
+        writer.flush();
+        long position = channel.position();
+        writer.write(" ".repeat(length));
+        return position;
+    }
+
+    /**
+     * Overwrites reserved space with ASCII text, padded with spaces to the reserved length.
+     */
+    void fill(long position, int length, String ascii) throws IOException {
+        if (ascii.length() > length) {
+            throw new IllegalArgumentException("'" + ascii + "' does not fit in " + length + " reserved bytes");
+        }
+        ByteBuffer bytes = ByteBuffer.wrap((ascii + " ".repeat(length - ascii.length())).getBytes(StandardCharsets.US_ASCII));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes, position + bytes.position());
+        }
+    }
+
+    // Also closes the channel
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -1,13 +1,19 @@
 package com.example.test_runner_worker.service;
 
-import com.example.test_runner_worker.dtos.TestResult;
+import java.io.IOException;
 
 public interface ReportGenerator {
     /**
-     * Generates a report file from a TestResult.
-     * @param testResult The result of the test.
-     * @param runId A unique ID for this specific test execution.
-     * @return The file path to the saved report, or null if failed.
+     * Starts this generator's report of a test run, one file per run.
+     * @param runId The ID of the TestRun, which names the report file.
+     * @return A writer that receives the run's results as its tests finish.
      */
-    String generateReport(TestResult testResult, String runId);
-}
\ No newline at end of file
+    RunReportWriter open(String runId) throws IOException;
+
+    /**
+     * Whether the path this generator's reports finish with is the report the dashboard links to.
+     */
+    default boolean providesReportUrl() {
+        return false;
+    }
+}
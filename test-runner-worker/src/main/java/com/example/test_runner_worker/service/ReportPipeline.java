@@ -0,0 +1,268 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Writes the reports of test runs on dedicated writer threads, so rendering, screenshot encoding and
+ * file I/O are not charged to a test's duration or its run's aggregation loop.
+ *
+ * A run opens one RunReport, appends each test's result as it finishes and finishes it at the end;
+ * every ReportGenerator writes one file per run from that, row by row, so memory does not grow with
+ * the run. A run's report operations are carried out in order, one at a time; different runs' reports
+ * are written in parallel. At most queue-capacity operations are pending at once: when the writers
+ * fall behind, append() blocks the run until there is room (backpressure) rather than letting pending
+ * results pile up in memory.
+ */
+@Service
+@Slf4j
+public class ReportPipeline {
+
+    private static final long IDLE_CHECK_MS = 200;
+    // Operations a writer carries out for one report before giving other runs' reports a turn
+    private static final int BATCH_SIZE = 32;
+
+    private final List<ReportGenerator> reportGenerators;
+    private final Semaphore capacity;
+    // Reports with pending operations; a report is in here at most once
+    private final BlockingQueue<RunReport> ready = new LinkedBlockingQueue<>();
+    private final List<Thread> writers = new ArrayList<>();
+    private volatile boolean shutdown;
+
+    @Autowired
+    public ReportPipeline(List<ReportGenerator> reportGenerators,
+                          @Value("${test.reports.queue-capacity:100}") int queueCapacity,
+                          @Value("${test.reports.writer-threads:2}") int writerThreads) {
+        this.reportGenerators = reportGenerators;
+        this.capacity = new Semaphore(queueCapacity);
+        for (int i = 0; i < writerThreads; i++) {
+            Thread writer = new Thread(this::writeReports, "report-writer-" + i);
+            writer.setDaemon(true);
+            writer.start();
+            writers.add(writer);
+        }
+    }
+
+    /**
+     * Starts the reports of a test run; their files are named after the run's ID.
+     */
+    public RunReport open(String runId) {
+        RunReport report = new RunReport(runId);
+        report.submit(report::start);
+        return report;
+    }
+
+    // The writers finish whatever is still pending, then stop
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shutdown = true;
+        for (Thread writer : writers) {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        }
+    }
+
+    // Never interrupted: an interrupt would close the FileChannel of the report being written
+    private void writeReports() {
+        while (true) {
+            RunReport report;
+            try {
+                report = ready.poll(IDLE_CHECK_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (report != null) {
+                report.drain();
+            } else if (shutdown) {
+                return;
+            }
+        }
+    }
+
+    private static TestResult snapshot(TestResult testResult) {
+        TestResult copy = new TestResult();
+        copy.setStatus(testResult.getStatus());
+        copy.setErrorMessage(testResult.getErrorMessage());
+        copy.setFailedTestCount(testResult.getFailedTestCount());
+        copy.setScreenshotPath(testResult.getScreenshotPath());
+        copy.setTestType(testResult.getTestType());
+        copy.setTestUrl(testResult.getTestUrl());
+        copy.setTestParameters(testResult.getTestParameters());
+        copy.setTestDescription(testResult.getTestDescription());
+        copy.setStartTime(testResult.getStartTime());
+        copy.setEndTime(testResult.getEndTime());
+        copy.setDurationMs(testResult.getDurationMs());
+        return copy;
+    }
+
+    private record OpenReport(ReportGenerator generator, RunReportWriter writer) {
+    }
+
+    /**
+     * The reports of one test run. Not meant to be shared between threads; append() and finish() are
+     * called by the run as its tests finish.
+     */
+    public final class RunReport {
+        private final String runId;
+        private final long startNanos = System.nanoTime();
+        private final Queue<Runnable> operations = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final CompletableFuture<String> reportUrl = new CompletableFuture<>();
+
+        // Only touched by the writer carrying out this report's operations
+        private final List<OpenReport> open = new ArrayList<>();
+        private int tests;
+        private int passed;
+        private int failed;
+        private int timedOut;
+        private int cancelled;
+
+        private RunReport(String runId) {
+            this.runId = runId;
+        }
+
+        /**
+         * Queues a test's row, waiting for room if the pipeline is full. The result is copied, so the
+         * caller may go on changing it.
+         * @param testResult The test's result, or null if it was cancelled before it finished.
+         */
+        public void append(RegisteredTest test, TestResult testResult) {
+            TestResult copy = testResult != null ? snapshot(testResult) : null;
+            submit(() -> write(test, copy));
+        }
+
+        /**
+         * Queues the end of the run's reports, without a predicted makespan.
+         */
+        public CompletableFuture<String> finish() {
+            return finish(null, null);
+        }
+
+        /**
+         * Queues the end of the run's reports, which show the predicted makespan next to the actual one.
+         *
+         * @param makespan how long the run took, measured by the caller, or null to use the time since open()
+         * @param predictedMakespan how long the run was expected to take, or null if unknown
+         * @return the future path of the report the dashboard links to; it completes with null if there is none
+         */
+        public CompletableFuture<String> finish(Duration makespan, Duration predictedMakespan) {
+            if (!submit(() -> complete(makespan, predictedMakespan))) {
+                reportUrl.complete(null);
+            }
+            return reportUrl;
+        }
+
+        private boolean submit(Runnable operation) {
+            if (shutdown) {
+                log.warn("Report pipeline is shut down, dropping a report operation of run {}", runId);
+                return false;
+            }
+            try {
+                if (!capacity.tryAcquire()) {
+                    log.warn("Report pipeline is full, waiting for the report writers");
+                    capacity.acquire();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            operations.add(operation);
+            if (scheduled.compareAndSet(false, true)) {
+                ready.add(this);
+            }
+            return true;
+        }
+
+        private void drain() {
+            Runnable operation;
+            for (int i = 0; i < BATCH_SIZE && (operation = operations.poll()) != null; i++) {
+                try {
+                    operation.run();
+                } catch (RuntimeException e) {
+                    log.error("Could not write the reports of run {}", runId, e);
+                } finally {
+                    capacity.release();
+                }
+            }
+            scheduled.set(false);
+            // An operation submitted after the last poll but before the flag was cleared did not schedule this report
+            if (!operations.isEmpty() && scheduled.compareAndSet(false, true)) {
+                ready.add(this);
+            }
+        }
+
+        private void start() {
+            for (ReportGenerator generator : reportGenerators) {
+                try {
+                    open.add(new OpenReport(generator, generator.open(runId)));
+                } catch (Exception e) {
+                    log.error("Could not start a {} for run {}", generator.getClass().getSimpleName(), runId, e);
+                }
+            }
+        }
+
+        private void write(RegisteredTest test, TestResult testResult) {
+            tests++;
+            if (testResult == null) {
+                cancelled++;
+            } else if (testResult.getStatus() == TestRunStatus.COMPLETED) {
+                passed++;
+            } else if (testResult.getStatus() == TestRunStatus.TIMED_OUT) {
+                timedOut++;
+            } else {
+                failed++;
+            }
+            for (Iterator<OpenReport> it = open.iterator(); it.hasNext(); ) {
+                OpenReport report = it.next();
+                try {
+                    report.writer().append(test, testResult);
+                } catch (Exception e) {
+                    log.error("Could not write to the {} of run {}, giving it up",
+                            report.generator().getClass().getSimpleName(), runId, e);
+                    report.writer().abort();
+                    it.remove();
+                }
+            }
+        }
+
+        private void complete(Duration makespan, Duration predictedMakespan) {
+            RunReportTotals totals = new RunReportTotals(tests, passed, failed, timedOut, cancelled,
+                    Duration.ofNanos(System.nanoTime() - startNanos), makespan, predictedMakespan);
+            String url = null;
+            try {
+                for (OpenReport report : open) {
+                    try {
+                        String reportPath = report.writer().finish(totals);
+                        if (report.generator().providesReportUrl() && reportPath != null) {
+                            url = reportPath;
+                        }
+                    } catch (Exception e) {
+                        log.error("Could not finish the {} of run {}", report.generator().getClass().getSimpleName(), runId, e);
+                        report.writer().abort();
+                    }
+                }
+                open.clear();
+            } finally {
+                reportUrl.complete(url);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.test_runner_worker.service;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A fair semaphore whose number of permits can be changed while permits are held.
+ */
+final class ResizableSemaphore extends Semaphore {
+    private int size;
+
+    ResizableSemaphore(int size) {
+        super(size, true);
+        this.size = size;
+    }
+
+    /**
+     * @return whether the size changed
+     */
+    synchronized boolean resize(int newSize) {
+        int delta = newSize - size;
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0) {
+            // May go negative while more than newSize permits are held; they are absorbed as they come back
+            reducePermits(-delta);
+        }
+        size = newSize;
+        return delta != 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.test_runner_worker.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Worker-wide bulkheads: permits per resource class, e.g. "browser=5" for the Selenium grid's session
+ * slots and "http=20" for outbound API calls.
+ *
+ * A test needs one permit of every limited resource class named in its @Test resources; tests that
+ * use no limited resource are not limited at all. Permits are always taken in name order, so two
+ * tests needing the same resources can never deadlock each other. A limit can be changed at runtime
+ * (see SeleniumGridCapacity); permits already held are unaffected.
+ */
+@Component
+@Slf4j
+public class ResourceLimiter {
+
+    private final Map<String, ResizableSemaphore> limits = new TreeMap<>();
+    // Bumped on every release, so a scheduler waiting for capacity can tell that something was freed
+    private long releases;
+
+    public ResourceLimiter(@Value("${test.resource-limits:browser=5,http=20}") String resourceLimits) {
+        for (String entry : resourceLimits.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] parts = entry.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid resource limit '" + entry + "', expected name=permits");
+            }
+            limits.put(parts[0].trim().toLowerCase(), new ResizableSemaphore(Integer.parseInt(parts[1].trim())));
+        }
+        log.info("Resource limits: {}", resourceLimits);
+    }
+
+    /**
+     * Takes a permit of every limited resource in the given names if all of them are free right now.
+     *
+     * @return the permit, or null (holding nothing) if any of the resources is exhausted
+     */
+    public Permit tryAcquire(Collection<String> resources) {
+        Permit permit = new Permit();
+        for (Map.Entry<String, ResizableSemaphore> limit : limits.entrySet()) {
+            if (!resources.contains(limit.getKey())) {
+                continue;
+            }
+            if (!limit.getValue().tryAcquire()) {
+                // Not signalled as a release: the caller would only wake itself up
+                permit.giveBack();
+                return null;
+            }
+            permit.held.push(limit.getValue());
+        }
+        return permit;
+    }
+
+    /**
+     * Waits until any permit is released after the given release count (see releaseCount()), or the timeout passes.
+     */
+    public synchronized void awaitRelease(long seenReleases, Duration timeout) throws InterruptedException {
+        long waitUntil = System.nanoTime() + timeout.toNanos();
+        while (releases == seenReleases) {
+            long remainingMs = TimeUnit.NANOSECONDS.toMillis(waitUntil - System.nanoTime());
+            if (remainingMs <= 0) {
+                return;
+            }
+            wait(remainingMs);
+        }
+    }
+
+    public synchronized long releaseCount() {
+        return releases;
+    }
+
+    /**
+     * Changes the number of permits of a configured resource class. Does nothing for unlimited ones.
+     */
+    public void resize(String resource, int permits) {
+        ResizableSemaphore limit = limits.get(resource);
+        if (limit != null && limit.resize(permits)) {
+            log.info("Resource limit of '{}' is now {}", resource, permits);
+            released();
+        }
+    }
+
+    /**
+     * The configured number of permits of a resource class, or -1 if it is not limited.
+     */
+    public int limit(String resource) {
+        ResizableSemaphore limit = limits.get(resource);
+        return limit == null ? -1 : limit.size();
+    }
+
+    private synchronized void released() {
+        releases++;
+        notifyAll();
+    }
+
+    /**
+     * Permits of one or more resources. Closing gives them back; closing again does nothing.
+     */
+    public final class Permit implements AutoCloseable {
+        private final Deque<Semaphore> held = new ArrayDeque<>();
+
+        @Override
+        public void close() {
+            if (giveBack()) {
+                released();
+            }
+        }
+
+        private synchronized boolean giveBack() {
+            if (held.isEmpty()) {
+                return false;
+            }
+            while (!held.isEmpty()) {
+                held.pop().release();
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.test_runner_worker.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the retries of the whole worker at a fraction of the tests it starts, over a sliding window.
+ *
+ * When a target environment is degraded every test fails at once, and unlimited retries would
+ * multiply the load on it and hold the worker's capacity for much longer. With a ratio of 0.1, at
+ * most one retry is allowed per ten tests started in the last window; minRetries per window are
+ * always allowed, so a quiet worker can still retry a flaky test. The window is kept as one
+ * bucket per second.
+ */
+@Component
+@Slf4j
+public class RetryBudget {
+
+    private final double ratio;
+    private final int minRetries;
+    private final LongSupplier clock;
+    private final long[] started;
+    private final long[] retried;
+    private final long[] bucketSecond;
+
+    @Autowired
+    public RetryBudget(@Value("${test.retry.budget.ratio:0.1}") double ratio,
+                       @Value("${test.retry.budget.window-seconds:60}") int windowSeconds,
+                       @Value("${test.retry.budget.min-retries:10}") int minRetries) {
+        this(ratio, windowSeconds, minRetries, System::currentTimeMillis);
+    }
+
+    RetryBudget(double ratio, int windowSeconds, int minRetries, LongSupplier clock) {
+        this.ratio = ratio;
+        this.minRetries = minRetries;
+        this.clock = clock;
+        this.started = new long[windowSeconds];
+        this.retried = new long[windowSeconds];
+        this.bucketSecond = new long[windowSeconds];
+    }
+
+    /**
+     * Counts a test started for the first time, which earns the budget its share of a retry.
+     */
+    public synchronized void recordStart() {
+        started[bucket()]++;
+    }
+
+    /**
+     * Takes a retry from the budget.
+     *
+     * @return false, and counts nothing, if the window's retries are used up
+     */
+    public synchronized boolean tryRetry() {
+        int current = bucket();
+        long oldestSecond = bucketSecond[current] - started.length;
+        long startedInWindow = 0;
+        long retriedInWindow = 0;
+        for (int i = 0; i < started.length; i++) {
+            // Buckets nobody wrote to for a whole window still hold counts from before it
+            if (bucketSecond[i] > oldestSecond) {
+                startedInWindow += started[i];
+                retriedInWindow += retried[i];
+            }
+        }
+        if (retriedInWindow >= Math.max(minRetries, (long) (startedInWindow * ratio))) {
+            return false;
+        }
+        retried[current]++;
+        return true;
+    }
+
+    // The bucket of the current second, cleared first if it last held an older second
+    private int bucket() {
+        long second = clock.getAsLong() / 1000;
+        int bucket = (int) (second % started.length);
+        if (bucketSecond[bucket] != second) {
+            bucketSecond[bucket] = second;
+            started[bucket] = 0;
+            retried[bucket] = 0;
+        }
+        return bucket;
+    }
+}
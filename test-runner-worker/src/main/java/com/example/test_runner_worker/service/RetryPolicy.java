@@ -0,0 +1,67 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import com.example.test_runner_worker.registry.RetrySpec;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Decides whether and when a failed test attempt is retried, from the test's RetrySpec and the worker defaults.
+ *
+ * Only failures that a retry can fix are retried: by default anything except a failed assertion, which
+ * would just fail again. Retries back off exponentially with full jitter (a random wait between zero
+ * and the exponential delay), so tests failing together against a degraded environment do not all
+ * come back at the same moment.
+ */
+final class RetryPolicy {
+
+    private final int defaultMaxAttempts;
+    private final Duration defaultBackoff;
+    private final Duration maxBackoff;
+    private final DoubleSupplier random;
+
+    RetryPolicy(int defaultMaxAttempts, Duration defaultBackoff, Duration maxBackoff) {
+        this(defaultMaxAttempts, defaultBackoff, maxBackoff, () -> ThreadLocalRandom.current().nextDouble());
+    }
+
+    RetryPolicy(int defaultMaxAttempts, Duration defaultBackoff, Duration maxBackoff, DoubleSupplier random) {
+        this.defaultMaxAttempts = defaultMaxAttempts;
+        this.defaultBackoff = defaultBackoff;
+        this.maxBackoff = maxBackoff;
+        this.random = random;
+    }
+
+    int maxAttempts(RegisteredTest test) {
+        int maxAttempts = test.retry().maxAttempts();
+        return Math.max(1, maxAttempts > 0 ? maxAttempts : defaultMaxAttempts);
+    }
+
+    boolean isRetryable(RegisteredTest test, TestResult result) {
+        Throwable failure = result.getFailure();
+        RetrySpec retry = test.retry();
+        if (retry.retryOn().isEmpty()) {
+            // A test that reports a failure without its cause keeps being retried, as before
+            return !(failure instanceof AssertionError);
+        }
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            for (Class<? extends Throwable> retryable : retry.retryOn()) {
+                if (retryable.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The wait before the given retry (1 for the first).
+     */
+    Duration backoff(RegisteredTest test, int retry) {
+        Duration base = test.retry().backoff() != null ? test.retry().backoff() : defaultBackoff;
+        double ceilingMs = Math.min(base.toMillis() * Math.pow(2, retry - 1), maxBackoff.toMillis());
+        return Duration.ofMillis((long) (random.getAsDouble() * ceilingMs));
+    }
+}
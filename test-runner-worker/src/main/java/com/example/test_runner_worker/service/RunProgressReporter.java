@@ -0,0 +1,118 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestRunProgressDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes the progress of running runs to the API (PUT /api/runs/{id}/progress).
+ *
+ * Completed tests only bump in-memory counters; a shared timer sends the latest counts at most once
+ * per interval and only when they changed, so a run of thousands of fast tests costs a handful of
+ * requests. Progress is best effort: a failed update is logged and superseded by the next one.
+ */
+@Service
+@Slf4j
+public class RunProgressReporter {
+
+    private final RestTemplate restTemplate;
+    private final String apiBaseUrl;
+    private final long intervalMs;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "run-progress");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public RunProgressReporter(RestTemplate restTemplate,
+                               @Value("${api.base.url}") String apiBaseUrl,
+                               @Value("${test.progress.interval-ms:2000}") long intervalMs) {
+        this.restTemplate = restTemplate;
+        this.apiBaseUrl = apiBaseUrl;
+        this.intervalMs = intervalMs;
+    }
+
+    /**
+     * Marks the run RUNNING right away and keeps reporting its progress until the handle is closed.
+     */
+    public RunProgress start(UUID runId, int testsTotal) {
+        RunProgress progress = new RunProgress(runId, testsTotal);
+        progress.schedule(timer.scheduleWithFixedDelay(progress::send, 0, intervalMs, TimeUnit.MILLISECONDS));
+        return progress;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    public final class RunProgress implements AutoCloseable {
+        private final UUID runId;
+        private final int testsTotal;
+        // Bumped by the aggregating thread without taking the lock, which a send may hold for a while
+        private final AtomicInteger testsDone = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        // -1 forces the first send, which is what moves the run to RUNNING
+        private int sentDone = -1;
+        private boolean closed;
+        private ScheduledFuture<?> schedule;
+
+        private RunProgress(UUID runId, int testsTotal) {
+            this.runId = runId;
+            this.testsTotal = testsTotal;
+        }
+
+        public void record(boolean testFailed) {
+            if (testFailed) {
+                failed.incrementAndGet();
+            }
+            testsDone.incrementAndGet();
+        }
+
+        /**
+         * Stops reporting. Once this returns no progress update for the run is in flight, so the final
+         * result sent afterwards cannot be overtaken by one.
+         */
+        @Override
+        public synchronized void close() {
+            closed = true;
+            if (schedule != null) {
+                schedule.cancel(false);
+            }
+        }
+
+        private synchronized void schedule(ScheduledFuture<?> schedule) {
+            this.schedule = schedule;
+            if (closed) {
+                schedule.cancel(false);
+            }
+        }
+
+        // Runs on the timer thread; holding the lock during the request is what makes close() wait for it
+        private synchronized void send() {
+            int done = testsDone.get();
+            if (closed || done == sentDone) {
+                return;
+            }
+            try {
+                restTemplate.put(apiBaseUrl + "/api/runs/" + runId + "/progress",
+                        new TestRunProgressDto(testsTotal, done, failed.get()));
+                sentDone = done;
+            } catch (RestClientException e) {
+                log.warn("Could not report progress of run {}: {}", runId, e.getMessage());
+            }
+        }
+    }
+}
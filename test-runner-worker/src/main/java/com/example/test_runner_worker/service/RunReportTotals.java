@@ -0,0 +1,25 @@
+package com.example.test_runner_worker.service;
+
+import java.time.Duration;
+
+/**
+ * What a finished run's reports sum up: its tests by outcome, how long the run took, and how long its
+ * tests' duration estimates said it would take (null if none of them had run before).
+ *
+ * elapsed is the time since the reports were opened, which includes any wait for the report pipeline;
+ * makespan is the run's own wall-clock time as the executor measured it, or null if it did not.
+ */
+public record RunReportTotals(int tests, int passed, int failed, int timedOut, int cancelled, Duration elapsed,
+                              Duration makespan, Duration predictedMakespan) {
+
+    public RunReportTotals(int tests, int passed, int failed, int timedOut, int cancelled, Duration elapsed) {
+        this(tests, passed, failed, timedOut, cancelled, elapsed, null, null);
+    }
+
+    /**
+     * How long the run took: its makespan if it was measured, otherwise the elapsed time.
+     */
+    public Duration duration() {
+        return makespan != null ? makespan : elapsed;
+    }
+}
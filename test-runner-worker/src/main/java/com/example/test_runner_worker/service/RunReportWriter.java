@@ -0,0 +1,29 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.registry.RegisteredTest;
+
+import java.io.IOException;
+
+/**
+ * One report file of a test run, written as the run's tests finish. Calls are never concurrent.
+ */
+public interface RunReportWriter {
+    /**
+     * Adds a test's row to the report.
+     * @param test The test.
+     * @param testResult Its result, or null if the test was cancelled before it finished.
+     */
+    void append(RegisteredTest test, TestResult testResult) throws IOException;
+
+    /**
+     * Writes the run's totals and closes the file.
+     * @return The relative path of the report, e.g. "reports/report-{runId}.csv", or null if it has none.
+     */
+    String finish(RunReportTotals totals) throws IOException;
+
+    /**
+     * Closes the file unfinished, after the report could not be written.
+     */
+    void abort();
+}
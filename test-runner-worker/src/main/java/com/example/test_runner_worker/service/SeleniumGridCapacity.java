@@ -0,0 +1,102 @@
+package com.example.test_runner_worker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the "browser" resource limit and the size of the WebDriverPool equal to the number of session
+ * slots the Selenium grid reports on /status, summed over its nodes that are UP. While the grid cannot
+ * be reached or reports no slots, the limit configured in test.resource-limits applies to both.
+ */
+@Component
+@Slf4j
+public class SeleniumGridCapacity {
+
+    static final String BROWSER = "browser";
+
+    private final ResourceLimiter resourceLimiter;
+    private final WebDriverPool webDriverPool;
+    private final RestTemplate restTemplate;
+    private final String statusUrl;
+    private final long refreshSeconds;
+    private final int staticLimit;
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "grid-capacity");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SeleniumGridCapacity(ResourceLimiter resourceLimiter,
+                                WebDriverPool webDriverPool,
+                                RestTemplate restTemplate,
+                                @Value("${selenium.hub.url}") String seleniumHubUrl,
+                                @Value("${selenium.grid.status-refresh-seconds:60}") long refreshSeconds) {
+        this.resourceLimiter = resourceLimiter;
+        this.webDriverPool = webDriverPool;
+        this.restTemplate = restTemplate;
+        this.statusUrl = seleniumHubUrl.replaceAll("/+$", "") + "/status";
+        this.refreshSeconds = refreshSeconds;
+        this.staticLimit = resourceLimiter.limit(BROWSER);
+        // Before the first UI test, which may come before the application is ready
+        if (staticLimit >= 0) {
+            webDriverPool.resize(staticLimit);
+        }
+    }
+
+    // The grid usually comes up alongside the worker, so it is asked again every refreshSeconds
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (refreshSeconds <= 0 || staticLimit < 0) {
+            log.info("Selenium grid capacity discovery is off, browser limit stays {}", staticLimit);
+            return;
+        }
+        refresher.scheduleWithFixedDelay(this::refresh, 0, refreshSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    void refresh() {
+        int slots;
+        try {
+            slots = capacityOf(restTemplate.getForObject(statusUrl, JsonNode.class));
+        } catch (RuntimeException e) {
+            // Anything else escaping would cancel the scheduled refresh for good
+            log.debug("Selenium grid status unavailable: {}", e.getMessage());
+            slots = 0;
+        }
+        int sessions = slots > 0 ? slots : staticLimit;
+        resourceLimiter.resize(BROWSER, sessions);
+        webDriverPool.resize(sessions);
+    }
+
+    /**
+     * Session slots of the nodes that are UP in a /status response; 0 if there are none.
+     */
+    static int capacityOf(JsonNode status) {
+        if (status == null) {
+            return 0;
+        }
+        int slots = 0;
+        for (JsonNode node : status.path("value").path("nodes")) {
+            if (!"UP".equalsIgnoreCase(node.path("availability").asText("UP"))) {
+                continue;
+            }
+            JsonNode nodeSlots = node.path("slots");
+            slots += nodeSlots.isArray() ? nodeSlots.size() : node.path("maxSessions").asInt(0);
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestCaseResultDto;
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends every test's result to the API (POST /api/runs/{id}/tests), which stores it and keeps the
+ * per-test daily trends. Results go in batches of test.results.upload-batch-size as the run's tests
+ * finish, and the rest when the run is over.
+ *
+ * The report writer threads only hand the batches over: they are sent by this uploader's own thread,
+ * so a slow or unreachable API never holds up writing the reports, nor the run's report URL. At most
+ * test.results.upload-queue-capacity batches wait to be sent; beyond that new batches are dropped.
+ * The API skips results a run already has, so a batch is retried like the run's final result. A batch
+ * that still cannot be sent is logged and dropped: the run itself and its reports are not affected.
+ * Cancelled tests did not run and are not sent.
+ */
+@Service
+@Slf4j
+public class TestCaseResultUploader implements ReportGenerator {
+
+    private final RestTemplate restTemplate;
+    private final RetryTemplate retryTemplate;
+    private final String apiBaseUrl;
+    private final int batchSize;
+    private final ThreadPoolExecutor uploads;
+
+    public TestCaseResultUploader(RestTemplate restTemplate,
+                                  RetryTemplate retryTemplate,
+                                  @Value("${api.base.url}") String apiBaseUrl,
+                                  @Value("${test.results.upload-batch-size:100}") int batchSize,
+                                  @Value("${test.results.upload-queue-capacity:100}") int queueCapacity) {
+        this.restTemplate = restTemplate;
+        this.retryTemplate = retryTemplate;
+        this.apiBaseUrl = apiBaseUrl;
+        this.batchSize = batchSize;
+        this.uploads = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), r -> {
+            Thread thread = new Thread(r, "result-uploader");
+            thread.setDaemon(true);
+            return thread;
+        }, (upload, executor) -> log.warn("Result upload queue is full, dropping a batch of test results"));
+    }
+
+    // Sends what is still queued, for a while
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        uploads.shutdown();
+        if (!uploads.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("{} batches of test results were not sent before shutdown", uploads.getQueue().size());
+        }
+    }
+
+    @Override
+    public RunReportWriter open(String runId) {
+        List<TestCaseResultDto> batch = new ArrayList<>(batchSize);
+
+        return new RunReportWriter() {
+            @Override
+            public void append(RegisteredTest test, TestResult testResult) {
+                if (testResult == null) {
+                    return;
+                }
+                batch.add(new TestCaseResultDto(test.name(), testResult.getStatus(), testResult.getTestType(),
+                        testResult.getStartTime(), testResult.getEndTime(), testResult.getDurationMs(),
+                        testResult.getErrorMessage()));
+                if (batch.size() >= batchSize) {
+                    send(runId, batch);
+                }
+            }
+
+            @Override
+            public String finish(RunReportTotals totals) {
+                if (!batch.isEmpty()) {
+                    send(runId, batch);
+                }
+                // Nothing to link to
+                return null;
+            }
+
+            @Override
+            public void abort() {
+                batch.clear();
+            }
+        };
+    }
+
+    // Hands a copy of the batch to the upload thread and empties it for the next results
+    private void send(String runId, List<TestCaseResultDto> batch) {
+        List<TestCaseResultDto> results = List.copyOf(batch);
+        batch.clear();
+        uploads.execute(() -> upload(runId, results));
+    }
+
+    private void upload(String runId, List<TestCaseResultDto> batch) {
+        String url = apiBaseUrl + "/api/runs/" + runId + "/tests";
+        try {
+            retryTemplate.execute(context -> restTemplate.postForEntity(url, batch, Void.class));
+            log.debug("Sent {} test results of run {}", batch.size(), runId);
+        } catch (Exception e) {
+            log.warn("Could not send {} test results of run {}, dropping them: {}", batch.size(), runId, e.getMessage());
+        }
+    }
+}
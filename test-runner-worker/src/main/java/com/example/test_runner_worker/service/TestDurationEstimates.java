@@ -0,0 +1,205 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.registry.RegisteredTest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * How long each test is expected to keep its slot, as an exponentially weighted moving average of
+ * the time it took in earlier runs (retries and backoffs included), and the longest-first order a
+ * run's tests are admitted in.
+ *
+ * Admitting the longest tests first keeps a long test from starting last while the other slots run
+ * dry; on identical slots that order stays within 4/3 of the best possible makespan. The estimates
+ * are kept in a properties file on the shared reports volume and survive restarts; saving merges in
+ * what other workers wrote, so every worker learns from every run.
+ */
+@Component
+@Slf4j
+public class TestDurationEstimates {
+
+    private final Path file;
+    private final double alpha;
+    private final Map<String, Double> estimates = new ConcurrentHashMap<>();
+    // Updated since the last save; these are ours to write, the rest is taken from the file
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public TestDurationEstimates(@Value("${test.scheduling.estimates-file:reports/results/duration-estimates.properties}") String file,
+                                 @Value("${test.scheduling.ewma-alpha:0.3}") double alpha) {
+        this(Paths.get(file), alpha);
+    }
+
+    TestDurationEstimates(Path file, double alpha) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("test.scheduling.ewma-alpha must be in (0, 1], was " + alpha);
+        }
+        this.file = file;
+        this.alpha = alpha;
+        read().forEach(estimates::put);
+        log.info("Loaded duration estimates of {} tests from {}", estimates.size(), file);
+    }
+
+    /**
+     * Folds a test's latest time into its estimate; the first time is taken as it is.
+     */
+    public void record(String testName, Duration took) {
+        double ms = Math.max(0, took.toMillis());
+        estimates.merge(testName, ms, (estimate, latest) -> estimate + alpha * (latest - estimate));
+        changed.add(testName);
+    }
+
+    /**
+     * The test's expected time, or null if it has never run.
+     */
+    public Duration estimate(String testName) {
+        Double ms = estimates.get(testName);
+        return ms == null ? null : Duration.ofMillis(Math.round(ms));
+    }
+
+    /**
+     * The tests ordered by their estimates, longest first. Tests that have never run go first, as any
+     * of them might be the longest; ties keep their given order.
+     */
+    public List<RegisteredTest> longestFirst(List<RegisteredTest> tests) {
+        List<RegisteredTest> ordered = new ArrayList<>(tests);
+        ordered.sort(Comparator.comparingDouble((RegisteredTest test) -> estimates.getOrDefault(test.name(), Double.MAX_VALUE))
+                .reversed());
+        return ordered;
+    }
+
+    /**
+     * How long the tests would take if admitted in the given order on the given number of threads,
+     * each holding one permit of every limited resource it names, as admit() does. Assumes the run
+     * has the worker to itself; tests that have never run are assumed to take the average estimate.
+     *
+     * @param limits the permits of a resource class, or -1 if it is not limited (see ResourceLimiter.limit())
+     * @return the predicted makespan, or null if none of the tests has an estimate yet
+     */
+    public Duration predictMakespan(List<RegisteredTest> ordered, int threads, ToIntFunction<String> limits) {
+        Map<RegisteredTest, Double> took = new HashMap<>();
+        double knownSum = 0;
+        for (RegisteredTest test : ordered) {
+            Double ms = estimates.get(test.name());
+            if (ms != null) {
+                took.put(test, ms);
+                knownSum += ms;
+            }
+        }
+        if (took.isEmpty()) {
+            return null;
+        }
+        double average = knownSum / took.size();
+
+        PriorityQueue<Running> running = new PriorityQueue<>(Comparator.comparingDouble(Running::end));
+        Map<String, Integer> free = new HashMap<>();
+        List<RegisteredTest> pending = new LinkedList<>(ordered);
+        double now = 0;
+        while (!pending.isEmpty()) {
+            for (Iterator<RegisteredTest> it = pending.iterator(); it.hasNext() && running.size() < threads; ) {
+                RegisteredTest test = it.next();
+                if (test.resources().stream().allMatch(resource -> free.computeIfAbsent(resource, limits::applyAsInt) != 0)) {
+                    test.resources().forEach(resource -> free.computeIfPresent(resource, (r, permits) -> permits < 0 ? permits : permits - 1));
+                    running.add(new Running(test, now + took.getOrDefault(test, average)));
+                    it.remove();
+                }
+            }
+            Running first = running.poll();
+            if (first == null) {
+                // Needs a resource that has no permits at all
+                break;
+            }
+            now = first.end();
+            first.test().resources().forEach(resource -> free.computeIfPresent(resource, (r, permits) -> permits < 0 ? permits : permits + 1));
+        }
+        while (!running.isEmpty()) {
+            now = running.poll().end();
+        }
+        return Duration.ofMillis(Math.round(now));
+    }
+
+    /**
+     * Writes the estimates changed since the last save into the file, replacing it atomically, and
+     * takes over the other tests' estimates from it. Two workers saving at the same moment may lose
+     * one's changes; they are estimates, and the next run puts them right.
+     */
+    public synchronized void save() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Set<String> saving = new HashSet<>(changed);
+        changed.removeAll(saving);
+        Map<String, Double> merged = read();
+        merged.forEach((testName, ms) -> {
+            if (!changed.contains(testName) && !saving.contains(testName)) {
+                estimates.put(testName, ms);
+            }
+        });
+        saving.forEach(testName -> merged.put(testName, estimates.get(testName)));
+
+        Properties properties = new Properties();
+        merged.forEach((testName, ms) -> properties.setProperty(testName, String.valueOf(Math.round(ms))));
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path temporary = Files.createTempFile(file.toAbsolutePath().getParent(), "estimates", ".tmp");
+            try (Writer out = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+                properties.store(out, "Expected test durations in ms");
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Kept in memory and tried again after the next run
+            changed.addAll(saving);
+            log.warn("Could not save the duration estimates to {}: {}", file, e.getMessage());
+        }
+    }
+
+    private record Running(RegisteredTest test, double end) {
+    }
+
+    private Map<String, Double> read() {
+        Map<String, Double> read = new HashMap<>();
+        if (!Files.exists(file)) {
+            return read;
+        }
+        Properties properties = new Properties();
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            properties.load(in);
+        } catch (IOException e) {
+            log.warn("Could not read the duration estimates from {}: {}", file, e.getMessage());
+            return read;
+        }
+        for (String testName : properties.stringPropertyNames()) {
+            try {
+                read.put(testName, Double.parseDouble(properties.getProperty(testName)));
+            } catch (NumberFormatException e) {
+                log.warn("Ignoring the duration estimate of '{}': {}", testName, properties.getProperty(testName));
+            }
+        }
+        return read;
+    }
+}
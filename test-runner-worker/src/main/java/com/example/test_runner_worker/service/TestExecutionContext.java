@@ -0,0 +1,130 @@
+package com.example.test_runner_worker.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Cooperative cancellation for the test running on the current thread.
+ *
+ * A test registers what has to be torn down to unblock it, e.g. {@code onCancel(driver::quit)} for its
+ * WebDriver session. When the test times out, the TestExecutorService's watchdog runs those cleanups
+ * and then interrupts the test's thread, so a test stuck in a Selenium or HTTP call is released even
+ * if the call itself ignores interrupts. Tests that are not cancelled never see their cleanups run.
+ */
+@Slf4j
+public final class TestExecutionContext {
+
+    private static final ThreadLocal<TestExecutionContext> CURRENT = new ThreadLocal<>();
+
+    private final String testName;
+    private final Deque<Runnable> cleanups = new ArrayDeque<>();
+    private Thread thread;
+    private boolean cancelled;
+    private volatile Runnable abandonHook;
+
+    TestExecutionContext(String testName) {
+        this.testName = testName;
+    }
+
+    /**
+     * Registers a cleanup for the current attempt of the running test. Outside of a test this does nothing;
+     * if the test has already been cancelled the cleanup runs immediately.
+     */
+    public static void onCancel(Runnable cleanup) {
+        TestExecutionContext context = CURRENT.get();
+        if (context == null) {
+            return;
+        }
+        synchronized (context) {
+            if (!context.cancelled) {
+                context.cleanups.push(cleanup);
+                return;
+            }
+        }
+        context.runCleanup(cleanup);
+    }
+
+    /**
+     * True once the running test has been cancelled, for tests that poll instead of blocking.
+     */
+    public static boolean isCancelled() {
+        TestExecutionContext context = CURRENT.get();
+        return context != null && context.cancelled();
+    }
+
+    // Binds a new attempt to the calling thread
+    synchronized void enter() {
+        thread = Thread.currentThread();
+        cancelled = false;
+        cleanups.clear();
+        CURRENT.set(this);
+    }
+
+    // Unbinds the attempt; an interrupt aimed at it can no longer reach the thread after this
+    void exit() {
+        synchronized (this) {
+            thread = null;
+            cleanups.clear();
+        }
+        CURRENT.remove();
+        if (cancelled()) {
+            // The thread goes back to a pool or on to the next test, so the interrupt must not leak
+            Thread.interrupted();
+        }
+    }
+
+    synchronized boolean cancelled() {
+        return cancelled;
+    }
+
+    synchronized boolean isRunning() {
+        return thread != null;
+    }
+
+    /**
+     * Runs the registered cleanups (most recent first) and interrupts the attempt, if one is running.
+     */
+    void cancel() {
+        Thread target;
+        Deque<Runnable> toRun;
+        synchronized (this) {
+            if (thread == null || cancelled) {
+                return;
+            }
+            cancelled = true;
+            target = thread;
+            toRun = new ArrayDeque<>(cleanups);
+            cleanups.clear();
+        }
+        log.warn("Cancelling test '{}'", testName);
+        toRun.forEach(this::runCleanup);
+        synchronized (this) {
+            if (thread == target) {
+                target.interrupt();
+            }
+        }
+    }
+
+    // What to do if the test is still running well after it was cancelled
+    void onAbandon(Runnable hook) {
+        this.abandonHook = hook;
+    }
+
+    void abandonIfRunning() {
+        Runnable hook = abandonHook;
+        if (hook != null && isRunning()) {
+            log.error("Test '{}' ignored its cancellation and is left running", testName);
+            hook.run();
+        }
+    }
+
+    private void runCleanup(Runnable cleanup) {
+        try {
+            cleanup.run();
+        } catch (RuntimeException e) {
+            log.warn("Cleanup of cancelled test '{}' failed: {}", testName, e.getMessage());
+        }
+    }
+}
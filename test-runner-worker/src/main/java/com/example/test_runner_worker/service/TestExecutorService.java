@@ -1,62 +1,154 @@
 package com.example.test_runner_worker.service;
 
-import com.example.test_runner_worker.annotations.Test;
 import com.example.test_runner_worker.dtos.TestResult;
 import com.example.test_runner_worker.model.TestRun;
 import com.example.test_runner_worker.model.enums.TestRunStatus;
-import com.example.test_runner_worker.tests.ApiTests;
-import com.example.test_runner_worker.tests.UiTests;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import com.example.test_runner_worker.registry.TestRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
 
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ExecutionException;
-import java.util.ArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 @Slf4j
 public class TestExecutorService {
 
-    private final ApiTests apiTests;
-    private final UiTests uiTests;
-    private final int maxRetries;
-
-    private final ExecutorService executorService;
-
-    public TestExecutorService(ApiTests apiTests,
-                               UiTests uiTests,
+    // Longest a run waiting for capacity goes without looking at its finished tests
+    private static final Duration ADMISSION_RECHECK = Duration.ofMillis(100);
+
+    private final TestRegistry testRegistry;
+    private final ResourceLimiter resourceLimiter;
+    private final RunProgressReporter progressReporter;
+    private final RetryBudget retryBudget;
+    private final ReportPipeline reportPipeline;
+    private final TestDurationEstimates durationEstimates;
+    private final TaskExecutor testExecutor;
+    private final RetryPolicy retryPolicy;
+    // "pool" shares the testExecutor threads between runs, "virtual" gives every test its own virtual thread
+    private final boolean virtualThreads;
+    // The testExecutor's threads, which the predicted makespan assumes a run has to itself in "pool" mode
+    private final int parallelThreads;
+    // "longest-first" admits the tests with the longest estimates first, "selection" in the order they were selected
+    private final boolean longestFirst;
+    // "shutdown-on-failure" cancels the rest of a run as soon as one test fails
+    private final boolean shutdownOnFailure;
+    // Cancels the rest of a run once this many of its tests have failed; 0 runs every test
+    private final int failFastAfter;
+    // Per attempt, for tests whose @Test does not set timeoutSeconds
+    private final Duration defaultTimeout;
+    // How long a cancelled test gets to stop before its run stops waiting for it
+    private final Duration cancelGrace;
+    // How long a finished run waits for its reports to be finished before it is reported without them
+    private final Duration reportTimeout;
+
+    // Only fires test timeouts; the cleanups themselves (e.g. quitting a session) run on their own virtual threads
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "test-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public TestExecutorService(TestRegistry testRegistry,
+                               ResourceLimiter resourceLimiter,
+                               RunProgressReporter progressReporter,
+                               RetryBudget retryBudget,
+                               ReportPipeline reportPipeline,
+                               TestDurationEstimates durationEstimates,
+                               @Qualifier("testExecutor") TaskExecutor testExecutor,
+                               @Value("${test.parallel-threads:5}") int parallelThreads,
                                @Value("${test.max-retries:3}") int maxRetries,
-                               @Value("${test.parallel-threads:5}") int parallelThreads) {
-        this.apiTests = apiTests;
-        this.uiTests = uiTests;
-        this.maxRetries = maxRetries;
+                               @Value("${test.retry.backoff-ms:1000}") long retryBackoffMs,
+                               @Value("${test.retry.max-backoff-ms:30000}") long maxRetryBackoffMs,
+                               @Value("${test.execution.mode:pool}") String executionMode,
+                               @Value("${test.execution.failure-policy:continue}") String failurePolicy,
+                               @Value("${test.scheduling.order:longest-first}") String schedulingOrder,
+                               @Value("${test.execution.fail-fast-after:0}") int failFastAfter,
+                               @Value("${test.default-timeout-seconds:600}") long defaultTimeoutSeconds,
+                               @Value("${test.cancel-grace-seconds:30}") long cancelGraceSeconds,
+                               @Value("${test.reports.resolve-timeout-seconds:60}") long reportTimeoutSeconds) {
+        this.testRegistry = testRegistry;
+        this.resourceLimiter = resourceLimiter;
+        this.progressReporter = progressReporter;
+        this.failFastAfter = failFastAfter;
+        this.retryBudget = retryBudget;
+        this.reportPipeline = reportPipeline;
+        this.durationEstimates = durationEstimates;
+        this.testExecutor = testExecutor;
+        this.parallelThreads = parallelThreads;
+        this.retryPolicy = new RetryPolicy(maxRetries, Duration.ofMillis(retryBackoffMs), Duration.ofMillis(maxRetryBackoffMs));
+        this.defaultTimeout = Duration.ofSeconds(defaultTimeoutSeconds);
+        this.cancelGrace = Duration.ofSeconds(cancelGraceSeconds);
+        this.reportTimeout = Duration.ofSeconds(reportTimeoutSeconds);
+        this.virtualThreads = switch (executionMode) {
+            case "pool" -> false;
+            case "virtual" -> true;
+            default -> throw new IllegalArgumentException("Unknown test.execution.mode: " + executionMode);
+        };
+        this.shutdownOnFailure = switch (failurePolicy) {
+            case "continue" -> false;
+            case "shutdown-on-failure" -> true;
+            default -> throw new IllegalArgumentException("Unknown test.execution.failure-policy: " + failurePolicy);
+        };
+        this.longestFirst = switch (schedulingOrder) {
+            case "longest-first" -> true;
+            case "selection" -> false;
+            default -> throw new IllegalArgumentException("Unknown test.scheduling.order: " + schedulingOrder);
+        };
+        log.info("Initialized TestExecutorService in {} mode, failure policy {}, {} order",
+                executionMode, failurePolicy, schedulingOrder);
+    }
 
-        this.executorService = Executors.newFixedThreadPool(parallelThreads);
-        log.info("Initialized TestExecutorService with a thread pool of {}", parallelThreads);
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
     }
 
     /**
      * Finds and executes all tests matching the tags from the TestRun job.
-     * This version runs tests in parallel using a thread pool.
+     * The tests run in parallel inside one TestRunScope, which does not return before all of them have stopped.
+     * Results are collected as tests finish, and the run's progress is reported to the API meanwhile.
      */
     public TestResult executeTest(TestRun testRun) {
         log.info("Test execution has started for run: {}", testRun.getId());
-        List<String> requestedTags = Arrays.stream(testRun.getTags().toLowerCase().split(","))
-                .map(String::trim)
-                .collect(Collectors.toList());
-
-        // 1. Find all @Test methods that match the tags
-        List<Method> testsToRun = findTestsByTags(requestedTags);
+        String requestedTags = testRun.getTags();
+        // The API and the worker run in the same time zone, as for startTime
+        Instant runDeadline = testRun.getDeadline() == null
+                ? null : testRun.getDeadline().atZone(ZoneId.systemDefault()).toInstant();
+
+        // 1. Select the @Test methods matching the tag expression (e.g. "smoke,ui" or "smoke & !ui")
+        List<RegisteredTest> testsToRun;
+        try {
+            testsToRun = testRegistry.select(requestedTags);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid tag expression '{}': {}", requestedTags, e.getMessage());
+            TestResult result = new TestResult();
+            result.setStatus(TestRunStatus.FAILED);
+            result.setFailedTestCount(1);
+            result.setErrorMessage("Invalid tag expression: " + e.getMessage());
+            return result;
+        }
 
         if (testsToRun.isEmpty()) {
             log.warn("No tests found for tags: {}. Marking as failed.", requestedTags);
@@ -67,54 +159,136 @@ public class TestExecutorService {
             return result;
         }
 
-
-        // 2. Submit each test to the executor service
-        List<Future<TestResult>> futures = new ArrayList<>();
-        for (Method testMethod : testsToRun) {
-            // Submit a task (as a lambda) to the thread pool
-            // The task will call runSingleTestWithRetries for its assigned testMethod
-            Future<TestResult> future = executorService.submit(() -> runSingleTestWithRetries(testMethod));
-            futures.add(future);
+        // Longest first, so no long test is left to start while the rest of the run is already done
+        if (longestFirst) {
+            testsToRun = durationEstimates.longestFirst(testsToRun);
         }
+        Duration predictedMakespan = durationEstimates.predictMakespan(testsToRun,
+                virtualThreads ? Integer.MAX_VALUE : parallelThreads, resourceLimiter::limit);
+        long runStarted = System.nanoTime();
 
-        log.info("Submitted {} tests to the thread pool for run {}", futures.size(), testRun.getId());
-
-        // 3. Aggregate results from all futures
+        // 2. Admit the tests into the run's scope as permits for their resource classes free up. A test
+        // is only forked once it holds its permits, so a run full of browser tests beyond the grid's
+        // capacity waits here without taking pool threads from the http tests behind it.
         TestResult finalResult = new TestResult();
         finalResult.setStatus(TestRunStatus.COMPLETED);
 
         int failureCount = 0;
+        int timedOutCount = 0;
         StringBuilder allErrors = new StringBuilder();
-        String finalReportUrl = null;
-
-        // Iterate over the futures and call .get()
-        // This blocks until each test is complete
-        for (Future<TestResult> future : futures) {
-            try {
-                TestResult singleTestResult = future.get(); // Get the result from the completed test
+        // One report of each kind for the whole run, written as its tests finish
+        ReportPipeline.RunReport report = reportPipeline.open(String.valueOf(testRun.getId()));
+
+        boolean failedFast = false;
+        boolean interrupted = false;
+
+        try (TestRunScope scope = virtualThreads
+                ? TestRunScope.onVirtualThreads(shutdownOnFailure)
+                : TestRunScope.on(testExecutor, shutdownOnFailure);
+             RunProgressReporter.RunProgress progress = progressReporter.start(testRun.getId(), testsToRun.size())) {
+            Map<Future<TestResult>, Admitted> forked = new IdentityHashMap<>();
+            List<Pending> pending = new LinkedList<>(testsToRun.stream().map(Pending::first).toList());
+
+            // 3. Aggregate results in the order the tests finish, so progress is never held up by a slow test
+            int done = 0;
+            while (done < testsToRun.size()) {
+                Future<TestResult> future;
+                try {
+                    if (pending.isEmpty()) {
+                        future = scope.take();
+                    } else {
+                        long seenReleases = resourceLimiter.releaseCount();
+                        admit(pending, scope, forked, runDeadline);
+                        future = scope.poll();
+                        if (future == null) {
+                            if (!pending.isEmpty()) {
+                                // Woken by any permit coming back, from this run or another
+                                resourceLimiter.awaitRelease(seenReleases, ADMISSION_RECHECK);
+                            }
+                            continue;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // Cancel the rest and keep collecting; cancelled and unadmitted tests are handed out right away
+                    log.warn("Interrupted while waiting for run {}, cancelling its tests", testRun.getId());
+                    interrupted = true;
+                    scope.shutdown();
+                    continue;
+                }
+                // Its permits are given back by the scope once its thread is done, which for a cancelled
+                // test can be after its future is handed out here
+                Admitted admitted = forked.remove(future);
+                String testName = admitted.test().method().getName();
+                boolean testFailed = false;
+                try {
+                    TestResult singleTestResult = future.get();
+
+                    // A retry waits for its backoff in the pending list, holding neither a thread nor permits
+                    Pending retry = retryOf(admitted, singleTestResult, runDeadline, scope);
+                    if (retry != null) {
+                        pending.add(retry);
+                        continue;
+                    }
+
+                    if (singleTestResult.getStatus() == TestRunStatus.TIMED_OUT) {
+                        timedOutCount++;
+                    }
+                    if (singleTestResult.getStatus() != TestRunStatus.COMPLETED) {
+                        testFailed = true;
+                        allErrors.append("[").append(singleTestResult.getTestType()).append("]: ")
+                                .append(singleTestResult.getErrorMessage()).append("\n");
+                    }
+                    report.append(admitted.test(), singleTestResult);
+
+                } catch (CancellationException e) {
+                    // Not a failure of its own: the run was stopped before this test finished
+                    allErrors.append("[").append(testName).append("]: ").append(failedFast
+                            ? "Cancelled after " + failFastAfter + " failures" : "Cancelled after another test failed")
+                            .append("\n");
+                    report.append(admitted.test(), null);
+                } catch (InterruptedException | ExecutionException e) {
+                    log.error("Critical error retrieving result of test '{}'", testName, e);
+                    testFailed = true;
+                    allErrors.append("[Test Execution Error]: Failed to retrieve result from thread: ").append(e.getMessage()).append("\n");
+                    TestResult errorResult = new TestResult();
+                    errorResult.setStatus(TestRunStatus.FAILED);
+                    errorResult.setErrorMessage("Failed to retrieve result from thread: " + e.getMessage());
+                    errorResult.setTestType(testName);
+                    report.append(admitted.test(), errorResult);
+                }
 
-                // Aggregate results (same logic as before)
-                if (singleTestResult.getStatus() == TestRunStatus.FAILED) {
+                if (testFailed) {
                     failureCount++;
-                    allErrors.append("[").append(singleTestResult.getTestType()).append("]: ") // Added test type for clarity
-                            .append(singleTestResult.getErrorMessage()).append("\n");
+                    if (failFastAfter > 0 && failureCount >= failFastAfter && !scope.isShutdown()) {
+                        log.warn("Run {} reached {} failures, cancelling its remaining tests", testRun.getId(), failureCount);
+                        failedFast = true;
+                        scope.shutdown();
+                    }
                 }
-                // Save the report URL.
-                // NOTE: This still only saves one URL.
-                // We'll address this when we create a summary report.
-                finalReportUrl = singleTestResult.getReportUrl();
-
-            } catch (InterruptedException | ExecutionException e) {
-                log.error("Critical error retrieving test result from future", e);
-                failureCount++;
-                allErrors.append("[Test Execution Error]: Failed to retrieve result from thread: ").append(e.getMessage()).append("\n");
+                done++;
+                progress.record(testFailed);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            if (failureCount == 0) {
+                failureCount = 1;
+                allErrors.append("[Test Execution Error]: Run was interrupted\n");
             }
         }
 
-        // 4. Set the final aggregated result
+        Duration makespan = Duration.ofNanos(System.nanoTime() - runStarted);
+        if (predictedMakespan != null) {
+            log.info("Run {} took {} ms, predicted {} ms", testRun.getId(), makespan.toMillis(), predictedMakespan.toMillis());
+        }
+        durationEstimates.save();
+
+        // 4. Set the final aggregated result, once the run's reports are finished
+        String finalReportUrl = resolveReportUrl(report.finish(makespan, predictedMakespan));
         finalResult.setFailedTestCount(failureCount);
         if (failureCount > 0) {
-            finalResult.setStatus(TestRunStatus.FAILED);
+            boolean deadlinePassed = runDeadline != null && !Instant.now().isBefore(runDeadline);
+            finalResult.setStatus(deadlinePassed && timedOutCount > 0 ? TestRunStatus.TIMED_OUT : TestRunStatus.FAILED);
             finalResult.setErrorMessage(allErrors.toString());
         }
         finalResult.setReportUrl(finalReportUrl);
@@ -125,79 +299,188 @@ public class TestExecutorService {
         return finalResult;
     }
 
+    // The run's summary report, waiting at most reportTimeout for its reports to be finished
+    private String resolveReportUrl(CompletableFuture<String> reportUrl) {
+        try {
+            return reportUrl.get(reportTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Reports not finished within {}s, the run is reported without them", reportTimeout.toSeconds());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Reports could not be written", e.getCause());
+        }
+        return null;
+    }
+
     /**
-     * Runs a single test method with retry logic.
-     * This method is thread-safe as-is because it operates on its own testMethod
-     * and doesn't share state with other running tests.
+     * Forks every pending test whose resource permits are all free right now, in selection order, so a
+     * test that has to wait for one resource class does not hold up tests needing another. A retry is
+     * not forked before its backoff has passed. Once the run is shut down or past its deadline, the
+     * remaining tests are forked without permits to be cancelled or timed out straight away; a retry
+     * that did not get to run keeps the failure of its last attempt.
      */
-    private TestResult runSingleTestWithRetries(Method testMethod) {
-        TestResult lastResult = null;
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            log.info("Attempt {} of {} for test '{}'", attempt, maxRetries, testMethod.getName());
-            try {
-                Object testInstance = getTestInstance(testMethod.getDeclaringClass());
-
-                lastResult = (TestResult) testMethod.invoke(testInstance);
-
-                // Add test name to the result for better error messages
-                lastResult.setTestType(testMethod.getName());
-
-                if (lastResult.getStatus() == TestRunStatus.COMPLETED) {
-                    log.info("Test '{}' passed on attempt {}", testMethod.getName(), attempt);
-                    return lastResult;
+    private void admit(List<Pending> pending, TestRunScope scope, Map<Future<TestResult>, Admitted> forked,
+                       Instant runDeadline) {
+        Instant now = Instant.now();
+        boolean deadlinePassed = runDeadline != null && !now.isBefore(runDeadline);
+        for (Iterator<Pending> it = pending.iterator(); it.hasNext(); ) {
+            Pending next = it.next();
+            RegisteredTest test = next.test();
+            if (scope.isShutdown() || deadlinePassed) {
+                // A fork after shutdown is cancelled without running
+                TestResult result = next.lastFailure() != null ? next.lastFailure()
+                        : timedOut(test, "Run deadline reached while waiting for " + test.resources());
+                forked.put(scope.fork(() -> result), new Admitted(test, null, next.attempt()));
+                it.remove();
+                continue;
+            }
+            if (next.notBefore() != null && now.isBefore(next.notBefore())) {
+                continue;
+            }
+            ResourceLimiter.Permit permit = resourceLimiter.tryAcquire(test.resources());
+            if (permit == null) {
+                continue;
+            }
+            TestExecutionContext context = new TestExecutionContext(test.name());
+            Future<TestResult> future = scope.fork(() -> {
+                long started = System.nanoTime();
+                TestResult result = runAttempt(test, next.attempt(), context, runDeadline);
+                // A test cut short by its run's cancellation says nothing about how long it takes
+                if (!scope.isShutdown()) {
+                    durationEstimates.record(test.name(), Duration.ofNanos(System.nanoTime() - started));
                 }
+                return result;
+            }, permit::close);
+            // A test that ignores its cancellation is left behind rather than holding up the run
+            context.onAbandon(() -> scope.abandon(future,
+                    timedOut(test, "Did not stop within " + cancelGrace.toSeconds() + "s after timing out")));
+            forked.put(future, new Admitted(test, permit, next.attempt()));
+            it.remove();
+        }
+    }
 
-            } catch (InvocationTargetException e) {
-                log.error("Test method threw an internal exception: {}", e.getTargetException().getMessage());
-                lastResult = new TestResult();
-                lastResult.setStatus(TestRunStatus.FAILED);
-                lastResult.setErrorMessage("Test invocation failed: " + e.getTargetException().getMessage());
-                lastResult.setTestType(testMethod.getName());
-            } catch (Exception e) {
-                log.error("An unexpected error occurred during test execution on attempt {}", attempt, e);
-                lastResult = new TestResult();
-                lastResult.setStatus(TestRunStatus.FAILED);
-                lastResult.setErrorMessage("Exception during test invocation: " + e.getMessage());
-                lastResult.setTestType(testMethod.getName());
-            }
+    /**
+     * Runs one attempt of a test method. This method is thread-safe as-is because it operates on its
+     * own test and doesn't share state with other running tests.
+     */
+    private TestResult runAttempt(RegisteredTest test, int attempt, TestExecutionContext context, Instant runDeadline)
+            throws InterruptedException {
+        String testName = test.method().getName();
+        Duration timeout = test.timeout() != null ? test.timeout() : defaultTimeout;
+        if (attempt == 1) {
+            retryBudget.recordStart();
+        }
+        // Each attempt gets the full timeout, but never past the run's deadline
+        Instant attemptDeadline = Instant.now().plus(timeout);
+        boolean cutByRunDeadline = runDeadline != null && runDeadline.isBefore(attemptDeadline);
+        if (cutByRunDeadline) {
+            attemptDeadline = runDeadline;
+        }
+        long remainingMs = Duration.between(Instant.now(), attemptDeadline).toMillis();
+        if (remainingMs <= 0) {
+            return timedOut(test, "Run deadline reached before attempt " + attempt);
+        }
 
-            if (attempt < maxRetries) {
-                log.warn("Test '{}' failed on attempt {}. Retrying...", testMethod.getName(), attempt);
+        log.info("Attempt {} of {} for test '{}'", attempt, retryPolicy.maxAttempts(test), testName);
+        TestResult result;
+        context.enter();
+        ScheduledFuture<?> timer = watchdog.schedule(() -> timeOut(context), remainingMs, TimeUnit.MILLISECONDS);
+        try {
+            // Direct call through the generated invoker, no reflection
+            result = test.invoke();
+
+            // Add test name to the result for better error messages
+            result.setTestType(testName);
+
+        } catch (InterruptedException e) {
+            // A timed out attempt is reported as such below; any other interrupt is the run being cancelled
+            Thread.currentThread().interrupt();
+            if (!context.cancelled()) {
+                throw e;
             }
+            result = null;
+        } catch (Exception e) {
+            log.error("Test method threw an exception on attempt {}: {}", attempt, e.getMessage());
+            result = new TestResult();
+            result.setStatus(TestRunStatus.FAILED);
+            result.setErrorMessage("Test invocation failed: " + e.getMessage());
+            result.setTestType(testName);
+            result.setFailure(e);
+        } finally {
+            timer.cancel(false);
+            context.exit();
         }
 
-        log.error("Test '{}' failed after {} attempts.", testMethod.getName(), maxRetries);
-        return lastResult; // Return the last failed result
+        // Whatever the test returned after being cancelled is not trusted; a timed out test is not retried
+        if (context.cancelled()) {
+            log.error("Test '{}' timed out on attempt {}", testName, attempt);
+            return timedOut(test, cutByRunDeadline
+                    ? "Run deadline reached during attempt " + attempt
+                    : "Timed out after " + timeout.toSeconds() + "s on attempt " + attempt);
+        }
+        if (result.getStatus() == TestRunStatus.COMPLETED) {
+            log.info("Test '{}' passed on attempt {}", testName, attempt);
+        }
+        return result;
     }
 
     /**
-     * Helper to find all methods with our @Test annotation.
+     * The next attempt of a failed test, per its RetryPolicy while the RetryBudget allows, or null if
+     * the result is final.
      */
-    private List<Method> findTestsByTags(List<String> requestedTags) {
-        Stream<Method> uiTestMethods = Arrays.stream(UiTests.class.getMethods())
-                .filter(method -> method.isAnnotationPresent(Test.class));
-
-        Stream<Method> apiTestMethods = Arrays.stream(ApiTests.class.getMethods())
-                .filter(method -> method.isAnnotationPresent(Test.class));
-
-        return Stream.concat(uiTestMethods, apiTestMethods)
-                .filter(method -> {
-                    Test testAnnotation = method.getAnnotation(Test.class);
-                    List<String> methodTags = Arrays.asList(testAnnotation.tags());
-                    return methodTags.containsAll(requestedTags);
-                })
-                .collect(Collectors.toList());
+    private Pending retryOf(Admitted admitted, TestResult result, Instant runDeadline, TestRunScope scope) {
+        RegisteredTest test = admitted.test();
+        String testName = test.method().getName();
+        int attempt = admitted.attempt();
+        if (result.getStatus() == TestRunStatus.COMPLETED || result.getStatus() == TestRunStatus.TIMED_OUT
+                || admitted.permit() == null || scope.isShutdown()) {
+            return null;
+        }
+        if (attempt >= retryPolicy.maxAttempts(test)) {
+            log.error("Test '{}' failed after {} attempts.", testName, attempt);
+            return null;
+        }
+        if (!retryPolicy.isRetryable(test, result)) {
+            log.warn("Test '{}' failed on attempt {} with a failure a retry cannot fix", testName, attempt);
+            return null;
+        }
+        Duration backoff = retryPolicy.backoff(test, attempt);
+        Instant notBefore = Instant.now().plus(backoff);
+        if (runDeadline != null && notBefore.isAfter(runDeadline)) {
+            log.warn("Test '{}' failed on attempt {}, no time left to retry before the run deadline", testName, attempt);
+            return null;
+        }
+        if (!retryBudget.tryRetry()) {
+            log.warn("Test '{}' failed on attempt {}, not retried: the worker's retry budget is used up", testName, attempt);
+            return null;
+        }
+        log.warn("Test '{}' failed on attempt {}. Retrying in {} ms...", testName, attempt, backoff.toMillis());
+        return new Pending(test, attempt + 1, notBefore, result);
     }
 
-    /**
-     * Helper to get the correct service instance (ApiTests or UiTests).
-     */
-    private Object getTestInstance(Class<?> testClass) {
-        if (testClass.equals(UiTests.class)) {
-            return uiTests;
-        } else if (testClass.equals(ApiTests.class)) {
-            return apiTests;
+    // Tears down what the test registered, interrupts it, and gives it cancelGrace to stop
+    private void timeOut(TestExecutionContext context) {
+        Thread.ofVirtual().name("test-cancel").start(context::cancel);
+        watchdog.schedule(context::abandonIfRunning, cancelGrace.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // A test waiting to be forked: its next attempt, and for a retry when its backoff ends and why it is retried
+    private record Pending(RegisteredTest test, int attempt, Instant notBefore, TestResult lastFailure) {
+        static Pending first(RegisteredTest test) {
+            return new Pending(test, 1, null, null);
         }
-        throw new IllegalArgumentException("Unknown test class: " + testClass.getName());
     }
-}
\ No newline at end of file
+
+    private record Admitted(RegisteredTest test, ResourceLimiter.Permit permit, int attempt) {
+    }
+
+    private static TestResult timedOut(RegisteredTest test, String reason) {
+        TestResult result = new TestResult();
+        result.setStatus(TestRunStatus.TIMED_OUT);
+        result.setFailedTestCount(1);
+        result.setErrorMessage(reason);
+        result.setTestType(test.method().getName());
+        return result;
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The tests of one run, forked together and joined as a unit.
+ *
+ * Closing the scope cancels whatever is still running and waits until every forked test has
+ * actually stopped, so no test thread outlives its run. With shutdownOnFailure the first failed
+ * test cancels (interrupts) all of its siblings; their futures then throw CancellationException.
+ * Same shape as StructuredTaskScope.ShutdownOnFailure, which is still a preview API on Java 21.
+ *
+ * take() hands out the futures in the order the tests finish (like an ExecutorCompletionService),
+ * so results can be consumed while slower tests are still running.
+ *
+ * The one exception is a test that ignores both cancellation and interrupts: abandon() completes its
+ * future with a substitute result so the run can finish, and leaves the stuck thread behind.
+ *
+ * A cancelled test's future is done as soon as it is cancelled, while its thread may still be
+ * unwinding (e.g. taking a screenshot with its browser session). Whatever the test holds is therefore
+ * given back through the whenStopped hook of fork(), not by whoever takes the future.
+ */
+class TestRunScope implements AutoCloseable {
+
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+    private final boolean shutdownOnFailure;
+    private final Queue<TestTask> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean shutdown = new AtomicBoolean();
+    private final AtomicBoolean abandoned = new AtomicBoolean();
+    // Every forked task passes through here exactly once, whether it completed, failed, was cancelled or abandoned
+    private final BlockingQueue<Future<TestResult>> completed = new LinkedBlockingQueue<>();
+
+    private TestRunScope(Executor executor, ExecutorService ownedExecutor, boolean shutdownOnFailure) {
+        this.executor = executor;
+        this.ownedExecutor = ownedExecutor;
+        this.shutdownOnFailure = shutdownOnFailure;
+    }
+
+    /**
+     * Forks every test onto its own new virtual thread. The threads belong to this scope only.
+     */
+    static TestRunScope onVirtualThreads(boolean shutdownOnFailure) {
+        ExecutorService threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("test-", 0).factory());
+        return new TestRunScope(threads, threads, shutdownOnFailure);
+    }
+
+    /**
+     * Forks the tests onto a shared executor, which is left running when the scope closes.
+     */
+    static TestRunScope on(Executor executor, boolean shutdownOnFailure) {
+        return new TestRunScope(executor, null, shutdownOnFailure);
+    }
+
+    Future<TestResult> fork(Callable<TestResult> test) {
+        return fork(test, () -> {
+        });
+    }
+
+    /**
+     * Forks a test; whenStopped runs once the test can no longer be running on any thread: after its
+     * thread is done with it, if it is cancelled before it starts, or when it is abandoned.
+     */
+    Future<TestResult> fork(Callable<TestResult> test, Runnable whenStopped) {
+        TestTask task = new TestTask(test, whenStopped);
+        tasks.add(task);
+        if (shutdown.get()) {
+            task.cancel(false);
+            return task;
+        }
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.reject(e);
+        }
+        return task;
+    }
+
+    /**
+     * Cancels every forked test that has not finished yet. Safe to call more than once.
+     */
+    void shutdown() {
+        if (shutdown.compareAndSet(false, true)) {
+            tasks.forEach(task -> task.cancel(true));
+        }
+    }
+
+    /**
+     * Completes a forked test that will not stop with the given result, so take() and close() stop
+     * waiting for it. Does nothing if the test's thread has finished in the meantime.
+     */
+    void abandon(Future<TestResult> future, TestResult result) {
+        if (future instanceof TestTask task) {
+            task.abandon(result);
+        }
+    }
+
+    /**
+     * Waits for the next forked test to finish and returns its future, which is done.
+     * Call it once per forked test.
+     */
+    Future<TestResult> take() throws InterruptedException {
+        return completed.take();
+    }
+
+    /**
+     * Like take(), but returns null right away if no forked test has finished since the last call.
+     */
+    Future<TestResult> poll() {
+        return completed.poll();
+    }
+
+    boolean isShutdown() {
+        return shutdown.get();
+    }
+
+    @Override
+    public void close() {
+        shutdown();
+        boolean interrupted = false;
+        for (TestTask task : tasks) {
+            while (true) {
+                try {
+                    task.finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (ownedExecutor != null) {
+            if (abandoned.get()) {
+                // close() would wait for the abandoned threads; interrupt them once more and move on
+                ownedExecutor.shutdownNow();
+            } else {
+                ownedExecutor.close();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean isFailure(TestResult result) {
+        return result == null || result.getStatus() != TestRunStatus.COMPLETED;
+    }
+
+    private final class TestTask extends FutureTask<TestResult> {
+        // Counted down once the test can no longer be running on any thread, or once it is abandoned
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private final Runnable whenStopped;
+
+        private TestTask(Callable<TestResult> test, Runnable whenStopped) {
+            super(test);
+            this.whenStopped = whenStopped;
+        }
+
+        @Override
+        public void run() {
+            started.set(true);
+            try {
+                super.run();
+            } finally {
+                stopped();
+            }
+        }
+
+        // Several paths can get here for the same task (e.g. abandoned while its thread finishes); only the first counts
+        private void stopped() {
+            if (stopped.compareAndSet(false, true)) {
+                try {
+                    whenStopped.run();
+                } finally {
+                    finished.countDown();
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            completed.add(this);
+            if (isCancelled()) {
+                // A task cancelled while still queued never calls the test, so nothing is left to wait for
+                if (!started.get()) {
+                    stopped();
+                }
+                return;
+            }
+            if (shutdownOnFailure && failed()) {
+                shutdown();
+            }
+        }
+
+        private boolean failed() {
+            try {
+                return isFailure(get());
+            } catch (Exception e) {
+                return true;
+            }
+        }
+
+        private void abandon(TestResult result) {
+            if (finished.getCount() == 0) {
+                return;
+            }
+            // Flagged before the latch opens, so close() is sure to see it
+            abandoned.set(true);
+            // A cancelled task keeps its cancellation, but nobody waits for its thread anymore either
+            set(result);
+            stopped();
+        }
+
+        private void reject(RejectedExecutionException e) {
+            setException(e);
+            stopped();
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.test_runner_worker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.remote.RemoteWebDriver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of RemoteWebDriver sessions on the Selenium grid.
+ *
+ * Creating a session takes seconds, so sessions are kept and handed to the next UI test instead of
+ * being quit. The pool never holds more sessions than the grid has slots: SeleniumGridCapacity sizes
+ * it together with the "browser" resource limit. A borrower waits for a free one. A returned session
+ * is reset (storage, cookies, extra windows, about:blank) and an idle one is health-checked before
+ * reuse. Sessions that fail either check, sit idle too long or reach max-uses are quit and replaced.
+ *
+ * Metrics: webdriver.pool.wait (time to get a session), webdriver.pool.borrows tagged
+ * outcome=reused|created (the hit rate), webdriver.pool.evictions tagged by reason, and
+ * webdriver.pool.sessions tagged state=active|idle.
+ */
+@Component
+@Slf4j
+public class WebDriverPool {
+
+    private static final String CLEAR_STORAGE =
+            "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}";
+
+    private final Supplier<WebDriver> driverFactory;
+    private final ResizableSemaphore slots;
+    private final long borrowTimeoutMs;
+    private final int maxUses;
+    private final long maxIdleMs;
+    // Most recently returned first, so the warmest sessions are reused and the rest age out
+    private final Deque<PooledSession> idle = new ConcurrentLinkedDeque<>();
+
+    private final Timer waitTimer;
+    private final Counter reused;
+    private final Counter created;
+    private final MeterRegistry meterRegistry;
+
+    @Autowired
+    public WebDriverPool(@Value("${selenium.hub.url}") String seleniumHubUrl,
+                         @Value("${selenium.pool.max-sessions:5}") int maxSessions,
+                         @Value("${selenium.pool.borrow-timeout-ms:120000}") long borrowTimeoutMs,
+                         @Value("${selenium.pool.max-uses:50}") int maxUses,
+                         @Value("${selenium.pool.max-idle-ms:240000}") long maxIdleMs,
+                         MeterRegistry meterRegistry) {
+        this(() -> new RemoteWebDriver(toUrl(seleniumHubUrl), new ChromeOptions()),
+                maxSessions, borrowTimeoutMs, maxUses, maxIdleMs, meterRegistry);
+    }
+
+    WebDriverPool(Supplier<WebDriver> driverFactory, int maxSessions, long borrowTimeoutMs, int maxUses,
+                  long maxIdleMs, MeterRegistry meterRegistry) {
+        this.driverFactory = driverFactory;
+        this.slots = new ResizableSemaphore(maxSessions);
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.maxUses = maxUses;
+        this.maxIdleMs = maxIdleMs;
+        this.meterRegistry = meterRegistry;
+        this.waitTimer = Timer.builder("webdriver.pool.wait")
+                .description("Time spent waiting for a WebDriver session")
+                .register(meterRegistry);
+        this.reused = Counter.builder("webdriver.pool.borrows").tag("outcome", "reused").register(meterRegistry);
+        this.created = Counter.builder("webdriver.pool.borrows").tag("outcome", "created").register(meterRegistry);
+        Gauge.builder("webdriver.pool.sessions", idle, Deque::size).tag("state", "idle").register(meterRegistry);
+        Gauge.builder("webdriver.pool.sessions", this, pool -> pool.slots.size() - pool.slots.availablePermits())
+                .tag("state", "active").register(meterRegistry);
+        log.info("WebDriver pool of {} sessions, recycled after {} uses", maxSessions, maxUses);
+    }
+
+    /**
+     * Waits for a healthy session. Close the returned session to give it back, or invalidate() it if
+     * it must not be reused.
+     *
+     * @throws WebDriverException if no session frees up within the borrow timeout, or one cannot be created
+     */
+    public PooledDriver borrow() throws InterruptedException {
+        long start = System.nanoTime();
+        boolean acquired = slots.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS);
+        waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!acquired) {
+            throw new WebDriverException("No WebDriver session became free within " + borrowTimeoutMs + " ms");
+        }
+        try {
+            PooledSession session;
+            while ((session = idle.pollFirst()) != null) {
+                if (System.currentTimeMillis() - session.idleSince > maxIdleMs) {
+                    evict(session, "idle");
+                } else if (!isHealthy(session.driver)) {
+                    evict(session, "unhealthy");
+                } else {
+                    reused.increment();
+                    return new PooledDriver(session);
+                }
+            }
+            WebDriver driver = driverFactory.get();
+            created.increment();
+            return new PooledDriver(new PooledSession(driver));
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Changes how many sessions the pool may hold. Borrowed sessions beyond a smaller size are not
+     * taken away; no new one is handed out until enough of them have come back.
+     */
+    public void resize(int maxSessions) {
+        if (slots.resize(maxSessions)) {
+            log.info("WebDriver pool now holds up to {} sessions", maxSessions);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        PooledSession session;
+        while ((session = idle.pollFirst()) != null) {
+            quit(session.driver);
+        }
+    }
+
+    private void giveBack(PooledSession session) {
+        try {
+            session.uses++;
+            if (session.uses >= maxUses) {
+                evict(session, "max-uses");
+            } else if (!reset(session.driver)) {
+                evict(session, "reset-failed");
+            } else {
+                session.idleSince = System.currentTimeMillis();
+                idle.offerFirst(session);
+            }
+        } finally {
+            slots.release();
+        }
+    }
+
+    private boolean reset(WebDriver driver) {
+        try {
+            // Storage is per origin, so it is cleared before leaving the page
+            if (driver instanceof JavascriptExecutor js) {
+                js.executeScript(CLEAR_STORAGE);
+            }
+            driver.manage().deleteAllCookies();
+            String first = null;
+            for (String handle : driver.getWindowHandles()) {
+                if (first == null) {
+                    first = handle;
+                } else {
+                    driver.switchTo().window(handle).close();
+                }
+            }
+            if (first != null) {
+                driver.switchTo().window(first);
+            }
+            driver.get("about:blank");
+            return true;
+        } catch (WebDriverException e) {
+            log.warn("Could not reset WebDriver session: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    // One cheap round trip to the grid; fails for sessions the grid has already timed out
+    private static boolean isHealthy(WebDriver driver) {
+        try {
+            driver.getWindowHandle();
+            return true;
+        } catch (WebDriverException e) {
+            return false;
+        }
+    }
+
+    private void evict(PooledSession session, String reason) {
+        meterRegistry.counter("webdriver.pool.evictions", "reason", reason).increment();
+        log.info("Evicting WebDriver session after {} uses ({})", session.uses, reason);
+        quit(session.driver);
+    }
+
+    private static void quit(WebDriver driver) {
+        try {
+            driver.quit();
+        } catch (WebDriverException e) {
+            log.debug("Quitting WebDriver session failed: {}", e.getMessage());
+        }
+    }
+
+    private static URL toUrl(String url) {
+        try {
+            return URI.create(url).toURL();
+        } catch (IllegalArgumentException | MalformedURLException e) {
+            throw new IllegalArgumentException("Invalid selenium.hub.url: " + url, e);
+        }
+    }
+
+    private static final class PooledSession {
+        private final WebDriver driver;
+        private int uses;
+        private long idleSince;
+
+        private PooledSession(WebDriver driver) {
+            this.driver = driver;
+        }
+    }
+
+    /**
+     * A borrowed session. Exactly one of close() and invalidate() takes effect; later calls are ignored.
+     */
+    public final class PooledDriver implements AutoCloseable {
+        private final PooledSession session;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private PooledDriver(PooledSession session) {
+            this.session = session;
+        }
+
+        public WebDriver driver() {
+            return session.driver;
+        }
+
+        /**
+         * Quits the session instead of returning it, e.g. when a timed out test may have left it hanging.
+         */
+        public void invalidate() {
+            if (released.compareAndSet(false, true)) {
+                try {
+                    evict(session, "invalidated");
+                } finally {
+                    slots.release();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                giveBack(session);
+            }
+        }
+    }
+}
@@ -1,56 +1,41 @@
 package com.example.test_runner_worker.tests;
 
 import com.example.test_runner_worker.annotations.Test;
+import com.example.test_runner_worker.artifacts.Artifact;
+import com.example.test_runner_worker.artifacts.ArtifactStore;
 import com.example.test_runner_worker.dtos.TestResult;
 import com.example.test_runner_worker.model.enums.TestRunStatus;
-import com.example.test_runner_worker.service.ReportGenerator;
-import com.example.test_runner_worker.service.HtmlReportGenerator;
+import com.example.test_runner_worker.service.TestExecutionContext;
+import com.example.test_runner_worker.service.WebDriverPool;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.*;
-import org.openqa.selenium.chrome.ChromeOptions;
-import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
 import java.io.IOException;
-import java.net.URL;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.UUID;
 
 @Slf4j
 @Service
 public class UiTests {
 
-    private final String seleniumHubUrl;
-    private final List<ReportGenerator> reportGenerators;
-    private final String reportsDirectory = "reports";
+    private final WebDriverPool webDriverPool;
+    private final ArtifactStore artifactStore;
 
-    public UiTests(@Value("${selenium.hub.url}") String seleniumHubUrl,
-                   List<ReportGenerator> reportGenerators) {
-        this.seleniumHubUrl = seleniumHubUrl;
-        this.reportGenerators = reportGenerators;
-        try {
-            Files.createDirectories(Paths.get(reportsDirectory, "screenshots"));
-        } catch (IOException e) {
-            log.error("Could not create screenshots directory", e);
-        }
+    public UiTests(WebDriverPool webDriverPool, ArtifactStore artifactStore) {
+        this.webDriverPool = webDriverPool;
+        this.artifactStore = artifactStore;
     }
 
-    @Test(name = "UI Google Search Test", tags = {"ui", "smoke"}, description = "Verify Google search results page title")
-    public TestResult runUiSearchTest() {
+    @Test(name = "UI Google Search Test", tags = {"ui", "smoke"}, resources = "browser", description = "Verify Google search results page title")
+    public TestResult runUiSearchTest() throws InterruptedException {
         // ... (all your test setup code remains the same) ...
         TestResult result = new TestResult();
+        WebDriverPool.PooledDriver session = null;
         WebDriver driver = null;
-        String runId = UUID.randomUUID().toString();
 
         result.setTestType("UI");
         result.setTestUrl("https://the-internet.herokuapp.com/");
@@ -61,9 +46,11 @@ public class UiTests {
 
         try {
             // ... (all your try logic remains the same) ...
-            log.info("Connecting to Selenium Hub at: {}", seleniumHubUrl);
-            driver = new RemoteWebDriver(new URL(seleniumHubUrl), new ChromeOptions());
-            log.info("Driver created. Navigating to https://the-internet.herokuapp.com/");
+            session = webDriverPool.borrow();
+            driver = session.driver();
+            // If the test times out, ending the session also fails any call still blocked on the grid
+            TestExecutionContext.onCancel(session::invalidate);
+            log.info("Driver ready. Navigating to https://the-internet.herokuapp.com/");
             WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
             driver.get("https://the-internet.herokuapp.com/");
             WebElement checkboxesLink = wait.until(ExpectedConditions.presenceOfElementLocated(By.linkText("Checkboxes")));
@@ -77,60 +64,50 @@ public class UiTests {
             result.setStatus(TestRunStatus.COMPLETED);
             result.setFailedTestCount(0);
 
+        } catch (InterruptedException e) {
+            // Cancelled, e.g. while waiting for a session: not a failure of the test, so it is not reported as one
+            Thread.currentThread().interrupt();
+            throw e;
+
         } catch (Throwable t) {
             // ... (all your catch logic remains the same) ...
             log.error("UI test FAILED: {}", t.getMessage());
             String errorMessage = "UI test FAILED: " + t.getMessage();
             result.setErrorMessage(errorMessage);
+            result.setFailure(t);
             result.setStatus(TestRunStatus.FAILED);
             result.setFailedTestCount(1);
 
         } finally {
             log.info("Attempting to take screenshot...");
-            String screenshotPath = takeScreenshot(driver, runId);
+            String screenshotPath = takeScreenshot(driver);
             result.setScreenshotPath(screenshotPath);
 
-            if (driver != null) {
-                log.info("Quitting driver...");
-                driver.quit();
+            if (session != null) {
+                // Back to the pool for the next UI test; a no-op if it was invalidated on cancel
+                session.close();
             }
 
             result.setEndTime(LocalDateTime.now());
             result.setDurationMs(System.currentTimeMillis() - startTimeMs);
-
-            String htmlReportPath = null;
-
-            // Generate all reports (HTML, CSV)
-            for (ReportGenerator generator : reportGenerators) {
-                String reportPath = generator.generateReport(result, runId);
-
-                // Check if this is the HTML generator and save its path
-                if (generator instanceof HtmlReportGenerator && reportPath != null) {
-                    htmlReportPath = reportPath;
-                }
-            }
-
-            // After the loop, explicitly set the URL to the HTML path
-            result.setReportUrl(htmlReportPath);
         }
 
         return result;
     }
 
     // ... (takeScreenshot method remains the same) ...
-    private String takeScreenshot(WebDriver driver, String runId) {
+    private String takeScreenshot(WebDriver driver) {
         if (driver == null) {
             log.warn("Driver was null, cannot take screenshot.");
             return null;
         }
-        String filename = "screenshot-" + runId + ".png";
-        Path destination = Paths.get(reportsDirectory, "screenshots", filename);
         try {
             TakesScreenshot ts = (TakesScreenshot) driver;
             File screenshotFile = ts.getScreenshotAs(OutputType.FILE);
-            Files.copy(screenshotFile.toPath(), destination, StandardCopyOption.REPLACE_EXISTING);
-            log.info("Screenshot saved successfully: {}", destination.toAbsolutePath());
-            return destination.toAbsolutePath().toString();
+            // Stored once per distinct image; a screenshot identical to an earlier one costs no space
+            Artifact screenshot = artifactStore.put(screenshotFile.toPath(), "png");
+            log.info("Screenshot saved successfully: {}", screenshot.path());
+            return screenshot.path().toString();
         } catch (IOException | ClassCastException | WebDriverException e) {
             log.error("Could not save screenshot: {}", e.getMessage());
             return null;
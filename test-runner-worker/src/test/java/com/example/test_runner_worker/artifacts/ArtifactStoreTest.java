@@ -0,0 +1,87 @@
+package com.example.test_runner_worker.artifacts;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArtifactStoreTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("artifacts");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws Exception {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void whenSameContentPutTwice_shouldStoreItOnceUnderItsHash() throws Exception {
+        ArtifactStore store = new ArtifactStore(directory.toString(), "html");
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+
+        Artifact first = store.put(file(png), "png");
+        Artifact second = store.put(file(png), "png");
+
+        assertEquals(first, second);
+        assertEquals(directory.resolve(first.hash().substring(0, 2)).resolve(first.hash().substring(2, 4)).resolve(first.hash() + ".png"), first.path());
+        assertEquals(directory + "/" + first.hash().substring(0, 2) + "/" + first.hash().substring(2, 4) + "/" + first.hash() + ".png", first.url());
+        assertArrayEquals(png, Files.readAllBytes(first.path()));
+    }
+
+    @Test
+    void whenTextPut_shouldStoreItGzippedAndFindItByItsUrl() throws Exception {
+        ArtifactStore store = new ArtifactStore(directory.toString(), "html,csv");
+        String html = "<p>Résultat</p>\n".repeat(1000);
+
+        Artifact report = store.put(file(html.getBytes(StandardCharsets.UTF_8)), "html");
+
+        assertTrue(report.compressed());
+        assertTrue(report.path().toString().endsWith(".html.gz"));
+        assertTrue(Files.size(report.path()) < html.length() / 10);
+        assertEquals(report, store.find(Paths.get(report.url())));
+        try (InputStream in = store.open(report)) {
+            assertEquals(html, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertNull(store.find(Files.createTempFile("elsewhere", ".html")));
+    }
+
+    @Test
+    void whenWorkersShareTheStore_shouldKeepOneCopyOfTheContent() throws Exception {
+        ArtifactStore worker1 = new ArtifactStore(directory.toString(), "txt");
+        ArtifactStore worker2 = new ArtifactStore(directory.toString(), "txt");
+        Path source1 = file("same log".getBytes(StandardCharsets.UTF_8));
+        Path source2 = file("same log".getBytes(StandardCharsets.UTF_8));
+
+        Artifact artifact = worker1.put(source1, "txt");
+        assertEquals(artifact, worker2.put(source2, "txt"));
+
+        assertFalse(Files.exists(source1));
+        assertFalse(Files.exists(source2));
+        try (var files = Files.list(artifact.path().getParent())) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    private static Path file(byte[] content) throws Exception {
+        Path file = Files.createTempFile("artifact", ".tmp");
+        Files.write(file, content);
+        return file;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.test_runner_worker.benchmark;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.registry.TestInvoker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-invocation overhead of calling a @Test method through Method.invoke versus a generated invoker.
+ * The test body is trivial on purpose, so only the call path is measured.
+ *
+ * Run with:
+ * mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.test_runner_worker.benchmark.TestInvocationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestInvocationBenchmark {
+
+    public static class SampleTests {
+        private final TestResult result = new TestResult();
+
+        public TestResult quickTest() {
+            return result;
+        }
+    }
+
+    private Object bean;
+    private Method method;
+    private TestInvoker invoker;
+
+    @Setup
+    public void setUp() throws NoSuchMethodException {
+        bean = new SampleTests();
+        method = SampleTests.class.getMethod("quickTest");
+        // Same shape as the lambdas in GeneratedTestCatalog
+        invoker = testBean -> ((SampleTests) testBean).quickTest();
+    }
+
+    @Benchmark
+    public TestResult reflective() throws Exception {
+        return (TestResult) method.invoke(bean);
+    }
+
+    @Benchmark
+    public TestResult generatedInvoker() throws Exception {
+        return invoker.invoke(bean);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TestInvocationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
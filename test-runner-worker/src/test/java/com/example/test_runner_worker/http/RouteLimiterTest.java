@@ -0,0 +1,64 @@
+package com.example.test_runner_worker.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RouteLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RouteLimiter limiter = new RouteLimiter(1, Duration.ofMillis(50), meterRegistry);
+
+    @Test
+    void whenRouteSaturated_shouldWaitUntilAResponseIsClosed() throws Exception {
+        ClientHttpResponse first = limiter.intercept(request("http://api:8080/api/runs/1"), new byte[0],
+                (request, body) -> mock(ClientHttpResponse.class));
+
+        assertThrows(IOException.class, () -> limiter.intercept(request("http://api:8080/api/runs/2"), new byte[0],
+                (request, body) -> mock(ClientHttpResponse.class)));
+        // Other routes have slots of their own
+        limiter.intercept(request("https://jsonplaceholder.typicode.com/posts/1"), new byte[0],
+                (request, body) -> mock(ClientHttpResponse.class));
+
+        first.close();
+        first.close();
+        limiter.intercept(request("http://api:8080/api/runs/3"), new byte[0], (request, body) -> mock(ClientHttpResponse.class));
+
+        String route = "http://api:8080";
+        assertEquals(1.0, meterRegistry.get("http.client.pool.acquire.timeouts").tag("route", route).counter().count());
+        assertEquals(1.0, meterRegistry.get("http.client.pool.utilization").tag("route", route).gauge().value());
+    }
+
+    @Test
+    void whenRequestFails_shouldGiveTheSlotBack() throws Exception {
+        assertThrows(IOException.class, () -> limiter.intercept(request("http://api:8080/"), new byte[0],
+                (request, body) -> {
+                    throw new IOException("Connection refused");
+                }));
+
+        limiter.intercept(request("http://api:8080/"), new byte[0], (request, body) -> mock(ClientHttpResponse.class));
+    }
+
+    @Test
+    void whenPortImplicit_shouldUseTheSchemeDefault() {
+        assertEquals("https://example.com:443", RouteLimiter.routeOf(URI.create("https://example.com/a")));
+        assertEquals("http://example.com:80", RouteLimiter.routeOf(URI.create("http://example.com")));
+        assertEquals("http://selenium:4444", RouteLimiter.routeOf(URI.create("http://selenium:4444/status")));
+    }
+
+    private static HttpRequest request(String uri) {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getURI()).thenReturn(URI.create(uri));
+        return request;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.test_runner_worker.registry;
+
+import com.example.test_runner_worker.annotations.Test;
+import com.example.test_runner_worker.dtos.TestResult;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TestRegistryTest {
+
+    private final SampleTests sampleTests = new SampleTests();
+    private final TestRegistry registry = new TestRegistry(List.of(
+            definition("apiRegression"), definition("apiSmoke"), definition("uiSmoke")), testClass -> sampleTests);
+
+    @org.junit.jupiter.api.Test
+    void whenCommaSeparated_shouldRequireAllTags() {
+        assertEquals(List.of("ui-smoke"), names(registry.select("ui, SMOKE")));
+    }
+
+    @org.junit.jupiter.api.Test
+    void whenExpressionCombinesOperators_shouldHonourPrecedenceAndParentheses() {
+        // & binds tighter than |, so this is (smoke & !ui) | (api & regression)
+        assertEquals(List.of("api-regression", "api-smoke"), names(registry.select("smoke & !ui | (api & regression)")));
+        assertEquals(List.of("ui-smoke"), names(registry.select("!(api | regression)")));
+    }
+
+    @org.junit.jupiter.api.Test
+    void whenTagUnknown_shouldSelectNothing() {
+        assertEquals(List.of(), registry.select("nightly"));
+    }
+
+    @org.junit.jupiter.api.Test
+    void whenSameExpressionRequestedAgain_shouldReuseTheSelection() {
+        assertSame(registry.select("api"), registry.select("api"));
+    }
+
+    @org.junit.jupiter.api.Test
+    void whenExpressionMalformed_shouldRejectIt() {
+        assertThrows(IllegalArgumentException.class, () -> registry.select("api & (smoke"));
+        assertThrows(IllegalArgumentException.class, () -> registry.select("api &"));
+        assertThrows(IllegalArgumentException.class, () -> registry.select("api smoke"));
+    }
+
+    @org.junit.jupiter.api.Test
+    void whenInvoked_shouldCallTheMethodOnTheResolvedBean() throws Exception {
+        registry.select("ui").get(0).invoke();
+
+        assertEquals(1, sampleTests.uiSmokeCalls);
+    }
+
+    @org.junit.jupiter.api.Test
+    void whenResourcesDeclared_shouldNormaliseThem() {
+        assertEquals(Set.of("browser"), registry.select("ui").get(0).resources());
+        assertEquals(Set.of(), registry.select("api & smoke").get(0).resources());
+    }
+
+    // What the TestInvokerProcessor generates for a main-source test class
+    private static TestDefinition definition(String methodName) {
+        return new TestDefinition(SampleTests.class, methodName, bean -> switch (methodName) {
+            case "apiRegression" -> ((SampleTests) bean).apiRegression();
+            case "apiSmoke" -> ((SampleTests) bean).apiSmoke();
+            default -> ((SampleTests) bean).uiSmoke();
+        });
+    }
+
+    private static List<String> names(List<RegisteredTest> tests) {
+        return tests.stream().map(RegisteredTest::name).toList();
+    }
+
+    public static class SampleTests {
+        private int uiSmokeCalls;
+
+        @Test(name = "api-smoke", tags = {"api", "smoke"})
+        public TestResult apiSmoke() {
+            return new TestResult();
+        }
+
+        @Test(name = "api-regression", tags = {"api", "regression"})
+        public TestResult apiRegression() {
+            return new TestResult();
+        }
+
+        @Test(name = "ui-smoke", tags = {"ui", "smoke"}, resources = " Browser ")
+        public TestResult uiSmoke() {
+            uiSmokeCalls++;
+            return new TestResult();
+        }
+    }
+}
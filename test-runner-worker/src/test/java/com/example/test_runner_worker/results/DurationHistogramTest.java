@@ -0,0 +1,39 @@
+package com.example.test_runner_worker.results;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DurationHistogramTest {
+
+    // Durations and the value their bucket reports; DurationSketchTest in the API pins the same table
+    private static final long[][] BUCKETS = {
+            {0, 0}, {127, 127}, {128, 129}, {255, 255}, {256, 258}, {1_000, 1_004}, {60_000, 60_160}
+    };
+
+    @Test
+    void whenSingleDuration_shouldReportItsBucketsValueLikeTheApi() {
+        for (long[] bucket : BUCKETS) {
+            DurationHistogram histogram = new DurationHistogram();
+            histogram.record(bucket[0]);
+            assertEquals(bucket[1], histogram.percentile(0.5), "duration " + bucket[0]);
+        }
+    }
+
+    @Test
+    void whenHistogramsAdded_shouldReadPercentilesWithinOnePercent() {
+        DurationHistogram first = new DurationHistogram();
+        DurationHistogram second = new DurationHistogram();
+        for (long ms = 1; ms <= 10_000; ms++) {
+            (ms % 2 == 0 ? first : second).record(ms);
+        }
+
+        first.add(second);
+
+        assertEquals(10_000, first.count());
+        assertEquals(5_000, first.percentile(0.50), 5_000 * 0.01);
+        assertEquals(9_500, first.percentile(0.95), 9_500 * 0.01);
+        assertNull(new DurationHistogram().percentile(0.5));
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.test_runner_worker.results;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResultLogTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("results");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws Exception {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void whenResultsAppended_shouldSumThemUpPerTestAcrossSegments() throws Exception {
+        // 1 MB segments: 50,000 results need a few
+        ResultLog resultLog = new ResultLog(directory.toString(), 1);
+        for (int i = 0; i < 50_000; i++) {
+            // login passes 9 times in 10 and takes 1..1000 ms; search always passes in 250 ms
+            resultLog.append("run-" + i / 100, "login", result(i % 10 == 0 ? TestRunStatus.FAILED : TestRunStatus.COMPLETED, DAY, 1 + i % 1000));
+            resultLog.append("run-" + i / 100, "search", result(TestRunStatus.COMPLETED, DAY, 250));
+        }
+        resultLog.append("run-last", "search", result(TestRunStatus.TIMED_OUT, DAY, 600_000));
+        resultLog.append("run-last", "search", null);
+        resultLog.close();
+
+        Map<String, TestStatistics> statistics = new ResultLogReader(directory).aggregate();
+
+        assertTrue(segments().size() > 1);
+        assertEquals(List.of("login", "search"), List.copyOf(statistics.keySet()));
+        TestStatistics login = statistics.get("login");
+        assertEquals(50_000, login.results());
+        assertEquals(45_000, login.passed());
+        assertEquals(5_000, login.failed());
+        assertEquals(0.9, login.passRate(), 1e-9);
+        assertEquals(500, login.p50DurationMs(), 500 * 0.01);
+        assertEquals(950, login.p95DurationMs(), 950 * 0.01);
+        TestStatistics search = statistics.get("search");
+        assertEquals(50_002, search.results());
+        assertEquals(1, search.timedOut());
+        assertEquals(1, search.cancelled());
+        assertEquals(50_000.0 / 50_001, search.passRate(), 1e-9);
+        assertEquals(250, search.p95DurationMs(), 250 * 0.01);
+    }
+
+    @Test
+    void whenSince_shouldOnlyCountResultsStartedFromThen() throws Exception {
+        ResultLog resultLog = new ResultLog(directory.toString(), 64);
+        resultLog.append("run-1", "login", result(TestRunStatus.FAILED, DAY.minusDays(30), 100));
+        resultLog.append("run-2", "login", result(TestRunStatus.COMPLETED, DAY, 200));
+        resultLog.append("run-2", "checkout", result(TestRunStatus.COMPLETED, DAY.minusDays(30), 300));
+        resultLog.close();
+
+        Map<String, TestStatistics> statistics = new ResultLogReader(directory)
+                .aggregate(DAY.minusDays(1).atZone(ZoneId.systemDefault()).toInstant());
+
+        assertEquals(List.of("login"), List.copyOf(statistics.keySet()));
+        assertEquals(1.0, statistics.get("login").passRate(), 1e-9);
+        assertEquals(200, statistics.get("login").p50DurationMs(), 200 * 0.01);
+    }
+
+    @Test
+    void whenSegmentEndsInPartOfARecord_shouldIgnoreIt() throws Exception {
+        ResultLog resultLog = new ResultLog(directory.toString(), 64);
+        resultLog.append("run-1", "login", result(TestRunStatus.COMPLETED, DAY, 100));
+        resultLog.append("run-1", "login", result(TestRunStatus.COMPLETED, DAY, 100));
+        resultLog.close();
+        Path segment = segments().get(0);
+        long complete = Files.size(segment);
+
+        // A worker died while appending: a record header promising more than was written
+        Files.write(segment, new byte[]{0, 0, 0, 38, 1, 2, 3, 4, 2, 0}, StandardOpenOption.APPEND);
+        assertEquals(2, new ResultLogReader(directory).aggregate().get("login").results());
+
+        // Or the record is all there but garbled
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.truncate(complete);
+        }
+        byte[] garbled = new byte[8 + 38];
+        garbled[3] = 38;
+        garbled[8] = 2;
+        Files.write(segment, garbled, StandardOpenOption.APPEND);
+        TestStatistics login = new ResultLogReader(directory).aggregate().get("login");
+        assertEquals(2, login.results());
+        assertEquals(100L, login.p50DurationMs());
+    }
+
+    @Test
+    void whenNothingLogged_shouldHaveNoStatistics() throws Exception {
+        assertTrue(new ResultLogReader(directory.resolve("missing")).aggregate().isEmpty());
+        TestStatistics none = new TestStatistics("login", 1, 0, 0, 0, 1, null, null);
+        assertEquals(0.0, none.passRate(), 0);
+        assertNull(none.p50DurationMs());
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static TestResult result(TestRunStatus status, LocalDateTime start, long durationMs) {
+        TestResult result = new TestResult();
+        result.setStatus(status);
+        result.setTestType("UI");
+        result.setStartTime(start);
+        result.setEndTime(start.plusNanos(durationMs * 1_000_000));
+        result.setDurationMs(durationMs);
+        return result;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.artifacts.Artifact;
+import com.example.test_runner_worker.artifacts.ArtifactStore;
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import com.example.test_runner_worker.registry.RetrySpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HtmlReportGeneratorTest {
+
+    private Path directory;
+    private ArtifactStore artifactStore;
+    private Artifact screenshot;
+    private byte[] png;
+
+    @BeforeEach
+    void storeScreenshot() throws Exception {
+        directory = Files.createTempDirectory("artifacts");
+        artifactStore = new ArtifactStore(directory.toString(), "html");
+        // Noise does not compress, so the PNG is larger than the report writer's buffers
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(1);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        Path file = Files.createTempFile("screenshot", ".png");
+        ImageIO.write(image, "png", file.toFile());
+        png = Files.readAllBytes(file);
+        screenshot = artifactStore.put(file, "png");
+    }
+
+    @AfterEach
+    void deleteStore() throws Exception {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void whenInline_shouldEmbedTheWholeScreenshotAsBase64() throws Exception {
+        String html = render(new HtmlReportGenerator(artifactStore, "inline", 320));
+
+        String expected = "data:image/png;base64," + Base64.getEncoder().encodeToString(png) + "\"";
+        assertTrue(png.length > 64 * 1024);
+        assertTrue(html.contains(expected));
+    }
+
+    @Test
+    void whenThumbnail_shouldLinkADownscaledCopyAndTheOriginal() throws Exception {
+        String html = render(new HtmlReportGenerator(artifactStore, "thumbnail", 320));
+
+        String shard = "../../" + screenshot.hash().substring(0, 2) + "/" + screenshot.hash().substring(2, 4) + "/";
+        assertTrue(html.contains("<a href=\"" + shard + screenshot.hash() + ".png\"><img src=\""
+                + shard + screenshot.hash() + ".thumb.png\""));
+        assertFalse(html.contains("base64"));
+        BufferedImage thumbnail = ImageIO.read(screenshot.derived(".thumb.png").toFile());
+        assertEquals(320, thumbnail.getWidth());
+        assertEquals(240, thumbnail.getHeight());
+    }
+
+    private String render(HtmlReportGenerator generator) throws Exception {
+        RegisteredTest test = new RegisteredTest(0, "UI Test", "", Set.of("ui"), Set.of("browser"), null,
+                new RetrySpec(0, null, List.of()), Object.class.getMethod("toString"), null, bean -> null);
+        TestResult result = new TestResult();
+        result.setStatus(TestRunStatus.FAILED);
+        result.setErrorMessage("Heading was <h3>Other</h3>");
+        result.setScreenshotPath(screenshot.path().toString());
+
+        RunReportWriter writer = generator.open("run-1");
+        writer.append(test, result);
+        Artifact report = artifactStore.find(Paths.get(writer.finish(new RunReportTotals(1, 0, 1, 0, 0, Duration.ofSeconds(1)))));
+        String html;
+        try (InputStream in = artifactStore.open(report)) {
+            html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        assertTrue(html.contains("Heading was &lt;h3&gt;Other&lt;/h3&gt;"));
+        return html;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.artifacts.ArtifactStore;
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import com.example.test_runner_worker.registry.RetrySpec;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportPipelineTest {
+
+    private static final RegisteredTest TEST = new RegisteredTest(0, "Sample", "A sample test", Set.of(), Set.of(),
+            null, new RetrySpec(0, null, List.of()), sampleMethod(), null, bean -> null);
+
+    @Test
+    void whenRunFinished_shouldWriteItsRowsInOrderAndResolveToTheLinkedReport() throws Exception {
+        List<String> calls = new CopyOnWriteArrayList<>();
+        ReportPipeline pipeline = new ReportPipeline(List.of(generator(false, "reports/a.csv", calls, null),
+                generator(true, "reports/a.html", calls, null)), 10, 2);
+
+        ReportPipeline.RunReport report = pipeline.open("run-1");
+        report.append(TEST, result(TestRunStatus.COMPLETED));
+        report.append(TEST, result(TestRunStatus.TIMED_OUT));
+        report.append(TEST, null);
+
+        assertEquals("reports/a.html", report.finish().get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("reports/a.csv open run-1", "reports/a.html open run-1",
+                "reports/a.csv COMPLETED", "reports/a.html COMPLETED",
+                "reports/a.csv TIMED_OUT", "reports/a.html TIMED_OUT",
+                "reports/a.csv cancelled", "reports/a.html cancelled",
+                "reports/a.csv finish 3/1/0/1/1", "reports/a.html finish 3/1/0/1/1"), calls);
+        pipeline.shutdown();
+    }
+
+    @Test
+    void whenPipelineFull_shouldBlockTheRun() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        ReportPipeline pipeline = new ReportPipeline(List.of(generator(true, "reports/a.html", new CopyOnWriteArrayList<>(), release)), 2, 1);
+
+        // The open is held up by the writer, the first append fits
+        ReportPipeline.RunReport report = pipeline.open("run-1");
+        report.append(TEST, result(TestRunStatus.COMPLETED));
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> report.append(TEST, result(TestRunStatus.FAILED)));
+
+        Thread.sleep(100);
+        assertFalse(second.isDone());
+        release.countDown();
+        second.get(5, TimeUnit.SECONDS);
+        assertEquals("reports/a.html", report.finish().get(5, TimeUnit.SECONDS));
+        pipeline.shutdown();
+    }
+
+    @Test
+    void whenJUnitReportFinished_shouldHoldTheRunsCounts() throws Exception {
+        Path directory = Files.createTempDirectory("artifacts");
+        ArtifactStore artifactStore = new ArtifactStore(directory.toString(), "xml");
+        RunReportWriter writer = new JUnitXmlReportGenerator(artifactStore).open("run-1");
+        TestResult failed = result(TestRunStatus.FAILED);
+        failed.setErrorMessage("expected <1> but was \u001b[31m<2>");
+        writer.append(TEST, result(TestRunStatus.COMPLETED));
+        writer.append(TEST, failed);
+        writer.append(TEST, null);
+        // The time is the run's measured makespan, not the elapsed time that includes the pipeline's backlog
+        String path = writer.finish(new RunReportTotals(3, 1, 1, 0, 1, Duration.ofSeconds(9), Duration.ofMillis(1500), null));
+
+        Document xml;
+        try (InputStream in = artifactStore.open(artifactStore.find(Paths.get(path)))) {
+            xml = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in);
+        }
+        Element suite = xml.getDocumentElement();
+        assertEquals("3", suite.getAttribute("tests"));
+        assertEquals("1", suite.getAttribute("failures"));
+        assertEquals("1", suite.getAttribute("skipped"));
+        assertEquals("1.500", suite.getAttribute("time"));
+        assertEquals("expected <1> but was [31m<2>",
+                ((Element) suite.getElementsByTagName("failure").item(0)).getAttribute("message"));
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void whenSpaceReserved_shouldFillItInPlaceAfterLargeUtf8Text() throws Exception {
+        Path file = Files.createTempFile("report", ".html");
+        String content = "<p>Résultat ✓</p>\n".repeat(20_000);
+
+        try (ReportFile report = ReportFile.create(file)) {
+            report.writer().write("<h1>");
+            long reserved = report.reserve(10);
+            report.writer().write("</h1>\n" + content);
+            report.writer().flush();
+            report.fill(reserved, 10, "3 tests");
+        }
+
+        assertEquals("<h1>3 tests   </h1>\n" + content, Files.readString(file, StandardCharsets.UTF_8));
+        assertTrue(Files.size(file) > 64 * 1024);
+        Files.delete(file);
+    }
+
+    private static TestResult result(TestRunStatus status) {
+        TestResult result = new TestResult();
+        result.setStatus(status);
+        result.setDurationMs(100L);
+        return result;
+    }
+
+    // Records every call as "<path> <what>"; open() waits for the latch if there is one
+    private static ReportGenerator generator(boolean providesReportUrl, String path, List<String> calls, CountDownLatch openLatch) {
+        return new ReportGenerator() {
+            @Override
+            public RunReportWriter open(String runId) {
+                if (openLatch != null) {
+                    try {
+                        openLatch.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                calls.add(path + " open " + runId);
+                return new RunReportWriter() {
+                    @Override
+                    public void append(RegisteredTest test, TestResult testResult) {
+                        calls.add(path + " " + (testResult != null ? testResult.getStatus() : "cancelled"));
+                    }
+
+                    @Override
+                    public String finish(RunReportTotals totals) {
+                        calls.add(path + " finish " + totals.tests() + "/" + totals.passed() + "/" + totals.failed()
+                                + "/" + totals.timedOut() + "/" + totals.cancelled());
+                        return path;
+                    }
+
+                    @Override
+                    public void abort() {
+                    }
+                };
+            }
+
+            @Override
+            public boolean providesReportUrl() {
+                return providesReportUrl;
+            }
+        };
+    }
+
+    private static Method sampleMethod() {
+        try {
+            return ReportPipelineTest.class.getDeclaredMethod("sample");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private void sample() {
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.test_runner_worker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResourceLimiterTest {
+
+    private final ResourceLimiter limiter = new ResourceLimiter("browser=1, http=2");
+
+    @Test
+    void whenAnyResourceExhausted_shouldTakeNoPermitAtAll() {
+        ResourceLimiter.Permit browser = limiter.tryAcquire(Set.of("browser"));
+        assertNotNull(browser);
+
+        assertNull(limiter.tryAcquire(Set.of("browser", "http")));
+        // The http permit taken on the way was given back
+        assertNotNull(limiter.tryAcquire(Set.of("http")));
+        assertNotNull(limiter.tryAcquire(Set.of("http")));
+        assertNull(limiter.tryAcquire(Set.of("http")));
+        // Unlimited resources need no permit
+        assertNotNull(limiter.tryAcquire(Set.of("database")));
+
+        browser.close();
+        browser.close();
+        assertNotNull(limiter.tryAcquire(Set.of("browser")));
+        assertNull(limiter.tryAcquire(Set.of("browser")));
+    }
+
+    @Test
+    void whenResized_shouldApplyToPermitsNotYetTaken() {
+        ResourceLimiter.Permit first = limiter.tryAcquire(Set.of("browser"));
+        limiter.resize("browser", 2);
+        assertNotNull(limiter.tryAcquire(Set.of("browser")));
+
+        limiter.resize("browser", 1);
+        first.close();
+        // Two were held against a limit of one, so the returned permit is absorbed
+        assertNull(limiter.tryAcquire(Set.of("browser")));
+        assertEquals(1, limiter.limit("browser"));
+        assertEquals(-1, limiter.limit("database"));
+    }
+
+    @Test
+    void whenPermitReleased_shouldWakeWaitingScheduler() throws Exception {
+        ResourceLimiter.Permit permit = limiter.tryAcquire(List.of("browser"));
+        long seen = limiter.releaseCount();
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            permit.close();
+        });
+
+        long start = System.nanoTime();
+        limiter.awaitRelease(seen, Duration.ofSeconds(10));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toSeconds() < 5);
+        assertTrue(limiter.releaseCount() > seen);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.test_runner_worker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryBudgetTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+    private final RetryBudget budget = new RetryBudget(0.1, 10, 2, now::get);
+
+    @Test
+    void whenFewTestsStarted_shouldStillAllowMinRetries() {
+        budget.recordStart();
+
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    void whenManyTestsStarted_shouldAllowRetriesUpToTheRatio() {
+        for (int i = 0; i < 50; i++) {
+            budget.recordStart();
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(budget.tryRetry());
+        }
+        assertFalse(budget.tryRetry());
+    }
+
+    @Test
+    void whenWindowSlidesPast_shouldForgetOldRetries() {
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+
+        now.addAndGet(5_000);
+        assertFalse(budget.tryRetry());
+        now.addAndGet(6_000);
+        assertTrue(budget.tryRetry());
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import com.example.test_runner_worker.registry.RetrySpec;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetryPolicyTest {
+
+    private final RetryPolicy policy = new RetryPolicy(3, Duration.ofSeconds(1), Duration.ofSeconds(5), () -> 1.0);
+
+    @Test
+    void whenNothingDeclared_shouldRetryAllButFailedAssertions() {
+        RegisteredTest test = test(new RetrySpec(0, null, List.of()));
+
+        assertEquals(3, policy.maxAttempts(test));
+        assertFalse(policy.isRetryable(test, failedWith(new AssertionError("expected 200"))));
+        assertTrue(policy.isRetryable(test, failedWith(new IllegalStateException("session not created"))));
+        assertTrue(policy.isRetryable(test, failedWith(null)));
+    }
+
+    @Test
+    void whenRetryOnDeclared_shouldRetryOnlyThoseFailures() {
+        RegisteredTest test = test(new RetrySpec(5, null, List.of(IOException.class)));
+
+        assertEquals(5, policy.maxAttempts(test));
+        assertTrue(policy.isRetryable(test, failedWith(new UncheckedIOException(new SocketTimeoutException()))));
+        assertFalse(policy.isRetryable(test, failedWith(new IllegalStateException())));
+        assertFalse(policy.isRetryable(test, failedWith(null)));
+    }
+
+    @Test
+    void whenRetriedAgain_shouldDoubleTheBackoffUpToTheMax() {
+        RegisteredTest test = test(new RetrySpec(0, null, List.of()));
+
+        assertEquals(Duration.ofSeconds(1), policy.backoff(test, 1));
+        assertEquals(Duration.ofSeconds(4), policy.backoff(test, 3));
+        assertEquals(Duration.ofSeconds(5), policy.backoff(test, 10));
+        assertEquals(Duration.ofMillis(200), policy.backoff(test(new RetrySpec(0, Duration.ofMillis(100), List.of())), 2));
+        // Full jitter: anywhere between no wait and the exponential delay
+        RetryPolicy jittered = new RetryPolicy(3, Duration.ofSeconds(1), Duration.ofSeconds(5), () -> 0.25);
+        assertEquals(Duration.ofMillis(500), jittered.backoff(test, 2));
+    }
+
+    private static RegisteredTest test(RetrySpec retry) {
+        return new RegisteredTest(0, "test", "", Set.of(), Set.of(), null, retry, null, null, null);
+    }
+
+    private static TestResult failedWith(Throwable failure) {
+        TestResult result = new TestResult();
+        result.setFailure(failure);
+        return result;
+    }
+}
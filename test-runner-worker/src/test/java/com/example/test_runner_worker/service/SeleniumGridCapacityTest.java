@@ -0,0 +1,88 @@
+package com.example.test_runner_worker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.springframework.web.client.RestTemplate;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SeleniumGridCapacityTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void whenNodesReported_shouldCountSlotsOfNodesThatAreUp() throws Exception {
+        String status = """
+                {"value": {"ready": true, "nodes": [
+                  {"availability": "UP", "maxSessions": 2, "slots": [{}, {}]},
+                  {"availability": "UP", "maxSessions": 3},
+                  {"availability": "DRAINING", "maxSessions": 4, "slots": [{}, {}, {}, {}]}
+                ]}}""";
+
+        assertEquals(5, SeleniumGridCapacity.capacityOf(objectMapper.readTree(status)));
+    }
+
+    @Test
+    void whenNoNodes_shouldReportNoCapacity() throws Exception {
+        assertEquals(0, SeleniumGridCapacity.capacityOf(objectMapper.readTree("{\"value\": {\"ready\": false}}")));
+        assertEquals(0, SeleniumGridCapacity.capacityOf(null));
+    }
+
+    @Test
+    void whenRefreshed_shouldSizeBrowserLimitAndWebDriverPoolAlike() throws Exception {
+        ResourceLimiter limiter = new ResourceLimiter("browser=1");
+        WebDriverPool pool = new WebDriverPool(SeleniumGridCapacityTest::driver, 5, 100, 50, 60_000, new SimpleMeterRegistry());
+        JsonNode twoSlots = objectMapper.readTree("{\"value\": {\"nodes\": [{\"availability\": \"UP\", \"maxSessions\": 2}]}}");
+        Supplier<?>[] status = {() -> twoSlots};
+        RestTemplate restTemplate = new RestTemplate() {
+            @Override
+            public <T> T getForObject(String url, Class<T> responseType, Object... uriVariables) {
+                return responseType.cast(status[0].get());
+            }
+        };
+
+        SeleniumGridCapacity capacity = new SeleniumGridCapacity(limiter, pool, restTemplate, "http://grid:4444", 60);
+        assertEquals(1, sessionsOf(pool));
+
+        capacity.refresh();
+        assertEquals(2, limiter.limit(SeleniumGridCapacity.BROWSER));
+        assertEquals(2, sessionsOf(pool));
+
+        // Not a RestClientException, e.g. a response that is not JSON
+        status[0] = () -> {
+            throw new IllegalStateException("not JSON");
+        };
+        capacity.refresh();
+        assertEquals(1, limiter.limit(SeleniumGridCapacity.BROWSER));
+        assertEquals(1, sessionsOf(pool));
+    }
+
+    // A session that does nothing; the pool only quits it here
+    private static WebDriver driver() {
+        return (WebDriver) Proxy.newProxyInstance(WebDriver.class.getClassLoader(), new Class<?>[]{WebDriver.class},
+                (proxy, method, args) -> null);
+    }
+
+    // How many sessions can be borrowed before the next one times out
+    private static int sessionsOf(WebDriverPool pool) throws InterruptedException {
+        List<WebDriverPool.PooledDriver> borrowed = new ArrayList<>();
+        try {
+            while (true) {
+                borrowed.add(pool.borrow());
+            }
+        } catch (WebDriverException e) {
+            return borrowed.size();
+        } finally {
+            borrowed.forEach(WebDriverPool.PooledDriver::invalidate);
+        }
+    }
+}
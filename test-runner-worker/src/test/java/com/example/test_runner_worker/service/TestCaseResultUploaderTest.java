@@ -0,0 +1,88 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import com.example.test_runner_worker.registry.RegisteredTest;
+import com.example.test_runner_worker.registry.RetrySpec;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.client.ExpectedCount.times;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.jsonPath;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class TestCaseResultUploaderTest {
+
+    private static final RunReportTotals TOTALS = new RunReportTotals(4, 2, 1, 0, 1, Duration.ofSeconds(1));
+
+    private final RestTemplate restTemplate = new RestTemplate();
+    private final MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+    private final TestCaseResultUploader uploader = new TestCaseResultUploader(restTemplate, new RetryTemplate(), "http://api", 2, 10);
+
+    @Test
+    void whenRunFinishes_shouldHaveSentItsResultsInBatches() throws Exception {
+        server.expect(requestTo("http://api/api/runs/run-1/tests"))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].testName").value("login"))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andRespond(withSuccess());
+        server.expect(requestTo("http://api/api/runs/run-1/tests"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].testName").value("checkout"))
+                .andRespond(withSuccess());
+
+        RunReportWriter writer = uploader.open("run-1");
+        writer.append(test("login"), result(TestRunStatus.COMPLETED));
+        writer.append(test("search"), result(TestRunStatus.FAILED));
+        // Cancelled: never ran, so not sent
+        writer.append(test("cart"), null);
+        writer.append(test("checkout"), result(TestRunStatus.COMPLETED));
+
+        assertNull(writer.finish(TOTALS));
+        // Sent by the uploader's own thread; shutting down waits for it
+        uploader.shutdown();
+        server.verify();
+    }
+
+    @Test
+    void whenApiKeepsFailing_shouldRetryThenDropTheBatch() throws Exception {
+        server.expect(times(3), requestTo("http://api/api/runs/run-1/tests")).andRespond(withServerError());
+
+        RunReportWriter writer = uploader.open("run-1");
+        writer.append(test("login"), result(TestRunStatus.COMPLETED));
+
+        assertNull(writer.finish(TOTALS));
+        // Sent by the uploader's own thread; shutting down waits for it
+        uploader.shutdown();
+        server.verify();
+    }
+
+    private static RegisteredTest test(String name) {
+        try {
+            return new RegisteredTest(0, name, "", Set.of("ui"), Set.of(), null,
+                    new RetrySpec(0, null, List.of()), Object.class.getMethod("toString"), null, bean -> null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static TestResult result(TestRunStatus status) {
+        TestResult result = new TestResult();
+        result.setStatus(status);
+        result.setTestType("UI");
+        result.setDurationMs(120L);
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.registry.RegisteredTest;
+import com.example.test_runner_worker.registry.RetrySpec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class TestDurationEstimatesTest {
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void createDirectory() throws Exception {
+        directory = Files.createTempDirectory("estimates");
+        file = directory.resolve("duration-estimates.properties");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws Exception {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Test
+    void whenTestRunsAgain_shouldMoveItsEstimateTowardsTheLatestTime() {
+        TestDurationEstimates estimates = new TestDurationEstimates(file, 0.5);
+        assertNull(estimates.estimate("login"));
+
+        estimates.record("login", Duration.ofMillis(1000));
+        assertEquals(Duration.ofMillis(1000), estimates.estimate("login"));
+        estimates.record("login", Duration.ofMillis(2000));
+        assertEquals(Duration.ofMillis(1500), estimates.estimate("login"));
+    }
+
+    @Test
+    void whenSaved_shouldBeLoadedAgainWithWhatOtherWorkersSaved() {
+        TestDurationEstimates first = new TestDurationEstimates(file, 0.5);
+        TestDurationEstimates second = new TestDurationEstimates(file, 0.5);
+        first.record("login", Duration.ofMillis(1000));
+        first.save();
+        second.record("checkout", Duration.ofMillis(4000));
+        second.save();
+
+        assertEquals(Duration.ofMillis(1000), second.estimate("login"));
+        TestDurationEstimates restarted = new TestDurationEstimates(file, 0.5);
+        assertEquals(Duration.ofMillis(1000), restarted.estimate("login"));
+        assertEquals(Duration.ofMillis(4000), restarted.estimate("checkout"));
+    }
+
+    @Test
+    void whenOrdered_shouldPutUnknownTestsFirstThenTheLongest() {
+        TestDurationEstimates estimates = new TestDurationEstimates(file, 0.5);
+        estimates.record("short", Duration.ofMillis(100));
+        estimates.record("long", Duration.ofMillis(300));
+
+        List<RegisteredTest> ordered = estimates.longestFirst(List.of(test("short"), test("new"), test("long")));
+
+        assertEquals(List.of("new", "long", "short"), ordered.stream().map(RegisteredTest::name).toList());
+    }
+
+    @Test
+    void whenLongTestIsSelectedLast_shouldPredictALongerMakespanThanLongestFirst() {
+        TestDurationEstimates estimates = new TestDurationEstimates(file, 0.5);
+        List<RegisteredTest> selected = List.of(test("a"), test("b"), test("c"), test("d"), test("long"));
+        for (String name : List.of("a", "b", "c", "d")) {
+            estimates.record(name, Duration.ofMillis(1000));
+        }
+        estimates.record("long", Duration.ofMillis(4000));
+
+        assertEquals(Duration.ofMillis(6000), estimates.predictMakespan(selected, 2, resource -> -1));
+        assertEquals(Duration.ofMillis(4000), estimates.predictMakespan(estimates.longestFirst(selected), 2, resource -> -1));
+    }
+
+    @Test
+    void whenResourceIsLimited_shouldPredictItsTestsOneAfterAnother() {
+        TestDurationEstimates estimates = new TestDurationEstimates(file, 0.5);
+        estimates.record("ui1", Duration.ofMillis(2000));
+        estimates.record("ui2", Duration.ofMillis(2000));
+        estimates.record("api", Duration.ofMillis(3000));
+        List<RegisteredTest> tests = List.of(test("ui1", "browser"), test("ui2", "browser"), test("api"));
+
+        assertEquals(Duration.ofMillis(4000), estimates.predictMakespan(tests, 3,
+                resource -> resource.equals("browser") ? 1 : -1));
+        assertNull(new TestDurationEstimates(directory.resolve("none.properties"), 0.5).predictMakespan(tests, 3, resource -> -1));
+    }
+
+    private static RegisteredTest test(String name, String... resources) {
+        try {
+            return new RegisteredTest(0, name, "", Set.of(), Set.of(resources), null,
+                    new RetrySpec(0, null, List.of()), Object.class.getMethod("toString"), null, bean -> null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
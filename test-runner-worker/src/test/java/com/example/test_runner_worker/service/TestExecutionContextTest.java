@@ -0,0 +1,59 @@
+package com.example.test_runner_worker.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestExecutionContextTest {
+
+    @Test
+    void whenCancelled_shouldRunCleanupsMostRecentFirstAndInterruptTheTest() throws Exception {
+        TestExecutionContext context = new TestExecutionContext("blocked");
+        List<String> cleanups = new ArrayList<>();
+        CountDownLatch registered = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        Thread test = Thread.ofVirtual().start(() -> {
+            context.enter();
+            try {
+                TestExecutionContext.onCancel(() -> cleanups.add("driver"));
+                TestExecutionContext.onCancel(() -> cleanups.add("tunnel"));
+                registered.countDown();
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            } finally {
+                context.exit();
+            }
+        });
+        registered.await();
+        context.cancel();
+        test.join();
+
+        assertEquals(List.of("tunnel", "driver"), cleanups);
+        assertTrue(interrupted.get());
+        assertTrue(context.cancelled());
+    }
+
+    @Test
+    void whenAttemptAlreadyFinished_shouldNotInterruptTheThread() throws Exception {
+        TestExecutionContext context = new TestExecutionContext("finished");
+        AtomicBoolean cleanedUp = new AtomicBoolean();
+
+        context.enter();
+        TestExecutionContext.onCancel(() -> cleanedUp.set(true));
+        context.exit();
+        context.cancel();
+
+        assertFalse(cleanedUp.get());
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertFalse(TestExecutionContext.isCancelled());
+    }
+}
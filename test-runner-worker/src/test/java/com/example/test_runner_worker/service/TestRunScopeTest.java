@@ -0,0 +1,165 @@
+package com.example.test_runner_worker.service;
+
+import com.example.test_runner_worker.dtos.TestResult;
+import com.example.test_runner_worker.model.enums.TestRunStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TestRunScopeTest {
+
+    @Test
+    void whenShutdownOnFailure_shouldCancelRunningSiblings() throws Exception {
+        CountDownLatch siblingStarted = new CountDownLatch(1);
+        AtomicBoolean siblingInterrupted = new AtomicBoolean();
+        Future<TestResult> sibling;
+        Future<TestResult> failing;
+
+        try (TestRunScope scope = TestRunScope.onVirtualThreads(true)) {
+            sibling = scope.fork(() -> {
+                siblingStarted.countDown();
+                try {
+                    Thread.sleep(60_000);
+                } catch (InterruptedException e) {
+                    siblingInterrupted.set(true);
+                    throw e;
+                }
+                return result(TestRunStatus.COMPLETED);
+            });
+            siblingStarted.await();
+            failing = scope.fork(() -> result(TestRunStatus.FAILED));
+            assertSame(failing, scope.take());
+            assertSame(sibling, scope.take());
+        }
+
+        assertEquals(TestRunStatus.FAILED, failing.get().getStatus());
+        assertThrows(CancellationException.class, sibling::get);
+        // close() only returns once the cancelled sibling has actually stopped
+        assertTrue(siblingInterrupted.get());
+    }
+
+    @Test
+    void whenContinuingOnFailure_shouldRunEveryTest() throws Exception {
+        Future<TestResult> failing;
+        Future<TestResult> passing;
+
+        try (TestRunScope scope = TestRunScope.onVirtualThreads(false)) {
+            failing = scope.fork(() -> result(TestRunStatus.FAILED));
+            passing = scope.fork(() -> {
+                Thread.sleep(50);
+                return result(TestRunStatus.COMPLETED);
+            });
+            assertSame(failing, scope.take());
+            assertSame(passing, scope.take());
+            assertFalse(scope.isShutdown());
+        }
+
+        assertEquals(TestRunStatus.FAILED, failing.get().getStatus());
+        assertEquals(TestRunStatus.COMPLETED, passing.get().getStatus());
+    }
+
+    @Test
+    void whenTaken_shouldHandOutTestsInCompletionOrder() throws Exception {
+        CountDownLatch releaseSlow = new CountDownLatch(1);
+
+        try (TestRunScope scope = TestRunScope.onVirtualThreads(false)) {
+            Future<TestResult> slow = scope.fork(() -> {
+                releaseSlow.await();
+                return result(TestRunStatus.COMPLETED);
+            });
+            Future<TestResult> fast = scope.fork(() -> result(TestRunStatus.FAILED));
+
+            assertSame(fast, scope.take());
+            releaseSlow.countDown();
+            assertSame(slow, scope.take());
+        }
+    }
+
+    @Test
+    void whenCancelledTestStillUnwinding_shouldKeepItsPermitUntilItsThreadIsDone() throws Exception {
+        ResourceLimiter limiter = new ResourceLimiter("browser=1");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch unwind = new CountDownLatch(1);
+
+        try (TestRunScope scope = TestRunScope.onVirtualThreads(true)) {
+            ResourceLimiter.Permit permit = limiter.tryAcquire(Set.of("browser"));
+            Future<TestResult> cancelled = scope.fork(() -> {
+                started.countDown();
+                try {
+                    Thread.sleep(60_000);
+                } finally {
+                    // Like a UI test taking its screenshot after being interrupted
+                    unwind.await();
+                }
+                return result(TestRunStatus.COMPLETED);
+            }, permit::close);
+            started.await();
+            scope.shutdown();
+
+            assertSame(cancelled, scope.take());
+            assertTrue(cancelled.isCancelled());
+            assertNull(limiter.tryAcquire(Set.of("browser")));
+
+            long seenReleases = limiter.releaseCount();
+            unwind.countDown();
+            limiter.awaitRelease(seenReleases, Duration.ofSeconds(5));
+            assertTrue(limiter.releaseCount() > seenReleases);
+        }
+    }
+
+    @Test
+    void whenResourceLimited_shouldNotExceedItsPermits() throws Exception {
+        ResourceLimiter limiter = new ResourceLimiter("browser=2");
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+
+        try (TestRunScope scope = TestRunScope.onVirtualThreads(false)) {
+            for (int i = 0; i < 20; i++) {
+                scope.fork(() -> {
+                    try (ResourceLimiter.Permit ignored = acquire(limiter, Set.of("browser", "http"))) {
+                        maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                        Thread.sleep(5);
+                        active.decrementAndGet();
+                    }
+                    return result(TestRunStatus.COMPLETED);
+                });
+            }
+            for (int i = 0; i < 20; i++) {
+                assertEquals(TestRunStatus.COMPLETED, scope.take().get().getStatus());
+            }
+        }
+
+        assertEquals(2, maxActive.get());
+    }
+
+    // Waits for the permits the way the executor's admission loop does
+    private static ResourceLimiter.Permit acquire(ResourceLimiter limiter, Set<String> resources) throws InterruptedException {
+        while (true) {
+            long seenReleases = limiter.releaseCount();
+            ResourceLimiter.Permit permit = limiter.tryAcquire(resources);
+            if (permit != null) {
+                return permit;
+            }
+            limiter.awaitRelease(seenReleases, Duration.ofMillis(100));
+        }
+    }
+
+    private static TestResult result(TestRunStatus status) {
+        TestResult result = new TestResult();
+        result.setStatus(status);
+        return result;
+    }
+}
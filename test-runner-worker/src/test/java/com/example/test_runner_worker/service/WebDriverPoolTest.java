@@ -0,0 +1,101 @@
+package com.example.test_runner_worker.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class WebDriverPoolTest {
+
+    private final List<WebDriver> created = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private WebDriverPool pool(int maxSessions, int maxUses) {
+        return new WebDriverPool(this::newDriver, maxSessions, 100, maxUses, 60_000, meterRegistry);
+    }
+
+    private WebDriver newDriver() {
+        WebDriver driver = mock(WebDriver.class, withSettings()
+                .extraInterfaces(JavascriptExecutor.class)
+                .defaultAnswer(Answers.RETURNS_DEEP_STUBS));
+        when(driver.getWindowHandles()).thenReturn(Set.of("main"));
+        created.add(driver);
+        return driver;
+    }
+
+    @Test
+    void whenSessionReturned_shouldResetAndReuseIt() throws Exception {
+        WebDriverPool pool = pool(1, 50);
+
+        WebDriver first;
+        try (WebDriverPool.PooledDriver session = pool.borrow()) {
+            first = session.driver();
+        }
+        try (WebDriverPool.PooledDriver session = pool.borrow()) {
+            assertSame(first, session.driver());
+        }
+
+        assertEquals(1, created.size());
+        verify(first, never()).quit();
+        verify(first.manage(), times(2)).deleteAllCookies();
+        assertEquals(1.0, meterRegistry.get("webdriver.pool.borrows").tag("outcome", "reused").counter().count());
+    }
+
+    @Test
+    void whenSessionUnhealthyOrUsedUp_shouldReplaceIt() throws Exception {
+        WebDriverPool pool = pool(1, 2);
+
+        WebDriver first;
+        try (WebDriverPool.PooledDriver session = pool.borrow()) {
+            first = session.driver();
+        }
+        when(first.getWindowHandle()).thenThrow(new WebDriverException("session timed out"));
+        WebDriver second;
+        try (WebDriverPool.PooledDriver session = pool.borrow()) {
+            second = session.driver();
+        }
+        try (WebDriverPool.PooledDriver session = pool.borrow()) {
+            assertSame(second, session.driver());
+        }
+        try (WebDriverPool.PooledDriver session = pool.borrow()) {
+            assertNotSame(second, session.driver());
+        }
+
+        verify(first).quit();
+        verify(second).quit();
+        assertEquals(1.0, meterRegistry.get("webdriver.pool.evictions").tag("reason", "unhealthy").counter().count());
+        assertEquals(1.0, meterRegistry.get("webdriver.pool.evictions").tag("reason", "max-uses").counter().count());
+    }
+
+    @Test
+    void whenAllSessionsBorrowed_shouldTimeOutUntilOneIsInvalidated() throws Exception {
+        WebDriverPool pool = pool(1, 50);
+
+        WebDriverPool.PooledDriver held = pool.borrow();
+        assertThrows(WebDriverException.class, pool::borrow);
+
+        held.invalidate();
+        held.close();
+        try (WebDriverPool.PooledDriver session = pool.borrow()) {
+            assertNotSame(held.driver(), session.driver());
+        }
+        verify(held.driver()).quit();
+    }
+}